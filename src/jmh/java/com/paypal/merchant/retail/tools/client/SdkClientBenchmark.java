@@ -0,0 +1,50 @@
+package com.paypal.merchant.retail.tools.client;
+
+import com.paypal.merchant.retail.sdk.contract.commands.Command;
+import com.paypal.merchant.retail.sdk.contract.commands.CommandResult;
+import com.paypal.merchant.retail.tools.exception.ClientException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.reflect.Proxy;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link SdkClient#executeCommand(String, String, Command)} against a stub Command that succeeds without calling out,
+ * so only the tool's own per-command work is measured (result checking and logging with the
+ * log4j.xml on the classpath, and recording the command metrics).
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SdkClientBenchmark {
+    private final Command command = newStubCommand();
+
+    private static Command newStubCommand() {
+        return (Command) Proxy.newProxyInstance(SdkClientBenchmark.class.getClassLoader(), new Class<?>[]{Command.class},
+                (proxy, method, args) -> "execute".equals(method.getName()) ? CommandResult.Success : null);
+    }
+
+    @Benchmark
+    public Command executeCommand() throws ClientException {
+        SdkClient.INSTANCE.executeCommand("Benchmark", "BENCH", command);
+        return command;
+    }
+
+    @Benchmark
+    @Threads(8)
+    public Command executeCommandContended() throws ClientException {
+        return executeCommand();
+    }
+}
@@ -0,0 +1,51 @@
+package com.paypal.merchant.retail.tools.util;
+
+import com.paypal.merchant.retail.tools.exception.ClientException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Overhead of running a trivial callable through {@link CallableWithTimeout} compared to calling it directly.
+ * The difference is the cost of the thread hand-off and the timeout bookkeeping each SDK call pays.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CallableWithTimeoutBenchmark {
+    private final Callable<Integer> callable = () -> 42;
+
+    @Benchmark
+    public Integer direct() throws Exception {
+        return callable.call();
+    }
+
+    @Benchmark
+    public Integer call() throws ClientException {
+        return new CallableWithTimeout<>(callable, 30, TimeUnit.SECONDS).call();
+    }
+
+    @Benchmark
+    public Integer callAsync() throws Exception {
+        return new CallableWithTimeout<>(callable, 30, TimeUnit.SECONDS).callAsync().get();
+    }
+
+    @Benchmark
+    @Threads(8)
+    public Integer callContended() throws ClientException {
+        return new CallableWithTimeout<>(callable, 30, TimeUnit.SECONDS).call();
+    }
+}
@@ -0,0 +1,70 @@
+package com.paypal.merchant.retail.tools.util;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Typed lookups against the properties loaded from sdk-tool-properties.xml.
+ * A lookup should not allocate; the allocation rate (-prof gc) shows if one does.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PropertyManagerBenchmark {
+
+    @Setup
+    public void setUp() throws Exception {
+        PropertyManager.INSTANCE.loadProperties();
+    }
+
+    @Benchmark
+    public String getString() {
+        return PropertyManager.INSTANCE.getProperty("sdk.store.id");
+    }
+
+    @Benchmark
+    public int getInt() {
+        return PropertyManager.INSTANCE.getProperty("sdk.fleet.max.concurrent", 10);
+    }
+
+    @Benchmark
+    public long getLong() {
+        return PropertyManager.INSTANCE.getProperty("sdk.service.timeout.seconds", 30L);
+    }
+
+    @Benchmark
+    public boolean getBoolean() {
+        return PropertyManager.INSTANCE.getProperty("sdk.service.retry.enabled.flag", false);
+    }
+
+    @Benchmark
+    public BigDecimal getBigDecimal() {
+        return PropertyManager.INSTANCE.getProperty("sdk.circuit.failure.rate.threshold", BigDecimal.ZERO);
+    }
+
+    @Benchmark
+    public int getMissing() {
+        return PropertyManager.INSTANCE.getProperty("sdk.missing.property", 10);
+    }
+
+    @Benchmark
+    @Threads(8)
+    public int getIntContended() {
+        return getInt();
+    }
+}
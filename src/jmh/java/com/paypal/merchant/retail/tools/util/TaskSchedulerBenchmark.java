@@ -0,0 +1,59 @@
+package com.paypal.merchant.retail.tools.util;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Start/stop churn of each {@link TaskScheduler}. The task is scheduled an hour out so it never runs;
+ * only the cost of registering and cancelling a timer on the {@link SharedTimerService} is measured.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TaskSchedulerBenchmark {
+    private static final Runnable TASK = () -> { };
+    private static final RetryPolicy RETRY_POLICY = new FixedRetryPolicy(3600, 3);
+
+    @Param({"oneTime", "repeating", "backoff"})
+    public String scheduler;
+
+    private TaskScheduler newScheduler() {
+        switch (scheduler) {
+            case "repeating":
+                return new RepeatingTaskScheduler(TASK, 3600, 3600, TimeUnit.SECONDS);
+            case "backoff":
+                return new BackoffTaskScheduler(TASK, 3600, RETRY_POLICY, TimeUnit.SECONDS);
+            default:
+                return new OneTimeTaskScheduler(TASK, 3600, TimeUnit.SECONDS);
+        }
+    }
+
+    @Benchmark
+    public long startStop() {
+        TaskScheduler taskScheduler = newScheduler();
+        taskScheduler.start();
+        long delay = taskScheduler.getDelayTime();
+        taskScheduler.stop();
+        return delay;
+    }
+
+    @Benchmark
+    @Threads(8)
+    public long startStopContended() {
+        return startStop();
+    }
+}
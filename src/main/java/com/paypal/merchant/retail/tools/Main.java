@@ -1,15 +1,19 @@
 package com.paypal.merchant.retail.tools;
 
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.paypal.merchant.retail.sdk.contract.entities.Location;
 import com.paypal.merchant.retail.tools.client.SdkClient;
 import com.paypal.merchant.retail.tools.controller.MainController;
-import com.paypal.merchant.retail.tools.exception.ClientException;
+import com.paypal.merchant.retail.tools.controller.PaneManager;
+import com.paypal.merchant.retail.tools.controller.UiUpdateDispatcher;
+import com.paypal.merchant.retail.tools.standin.SdkStandInServer;
+import com.paypal.merchant.retail.tools.util.ConfigWatcher;
 import com.paypal.merchant.retail.tools.util.PropertyManager;
+import com.paypal.merchant.retail.tools.util.SharedTimerService;
+import com.paypal.merchant.retail.tools.util.StartupGraph;
 import javafx.animation.FadeTransition;
 import javafx.application.Application;
 import javafx.application.Platform;
-import javafx.concurrent.Task;
-import javafx.concurrent.Worker;
 import javafx.fxml.FXMLLoader;
 import javafx.geometry.Pos;
 import javafx.geometry.Rectangle2D;
@@ -29,6 +33,11 @@ import javafx.util.Duration;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
 /**
  * Created by pderoxas on 2/26/14.
  * This is the main class of the Demo POS Application
@@ -40,6 +49,8 @@ public final class Main extends Application {
     private static FXMLLoader fxmlLoader;
     private static Location sdkLocation;
     private static Parent root;
+    private static ConfigWatcher configWatcher;
+    private static SdkStandInServer standIn;
 
     private Pane splashLayout;
     private ProgressBar loadProgress;
@@ -47,6 +58,16 @@ public final class Main extends Application {
     private static final int SPLASH_WIDTH = 642;
     private static final int SPLASH_HEIGHT = 169;
 
+    private static final int STARTUP_THREADS = 4;
+    private static final String STEP_PROPERTIES = "Loading properties";
+    private static final String STEP_STANDIN = "Starting SDK stand-in";
+    private static final String STEP_SDK = "Creating SDK";
+    private static final String STEP_LOCATION = "Getting Store Location";
+    private static final String STEP_WATCH = "Watching configuration files";
+    private static final String STEP_AVAILABILITY_PANE = "Loading storeAvailability.fxml";
+    private static final String STEP_MAIN_FXML = "Loading main.fxml";
+    private static final String STEP_MAIN_STAGE = "Showing main window";
+
     public static void main(String[] args) {
         logger.info("Launching Merchant SDK Tool");
         try{
@@ -84,30 +105,63 @@ public final class Main extends Application {
 
     @Override
     public void start(Stage initStage) throws Exception {
-        final Task getLocationTask = new Task() {
-            @Override protected Void call() throws InterruptedException {
-                updateMessage("Getting Store Location information . . .");
-                try {
-                    sdkLocation = SdkClient.INSTANCE.getSdkLocation();
-                } catch (ClientException e) {
-                    logger.error("Failed to get Store Location Information");
-                }
-                updateMessage("Success");
-                Platform.runLater(() -> showMainStage());
-                return null;
-            }
-        };
+        final ExecutorService startupExecutor = Executors.newFixedThreadPool(STARTUP_THREADS,
+                new ThreadFactoryBuilder().setNameFormat("startup-%d").setDaemon(true).build());
+
+        // Steps without a dependency between them run in parallel.
+        // The SDK fetches its OpenID token as part of the first GetLocation call.
+        final StartupGraph startup = new StartupGraph(startupExecutor)
+                .add(STEP_PROPERTIES, PropertyManager.INSTANCE::loadProperties)
+                .add(STEP_STANDIN, () -> standIn = SdkStandInServer.startIfEnabled(), STEP_PROPERTIES)
+                .add(STEP_SDK, () -> SdkClient.INSTANCE.getStoreIds(), STEP_STANDIN)
+                .add(STEP_LOCATION, () -> sdkLocation = SdkClient.INSTANCE.getSdkLocation(), STEP_SDK)
+                .add(STEP_WATCH, Main::watchConfiguration, STEP_SDK)
+                // the first pane is loaded here for the MainController to pick up; the others are loaded when it is shown
+                .add(STEP_AVAILABILITY_PANE, () -> PaneManager.preload(MainController.STORE_AVAILABILITY_FXML, Runnable::run).join(),
+                        STEP_LOCATION)
+                .add(STEP_MAIN_FXML, () -> root = fxmlLoader.load(), STEP_LOCATION, STEP_AVAILABILITY_PANE)
+                .add(STEP_MAIN_STAGE, Platform::runLater, Main::showMainStage, STEP_MAIN_FXML);
+
+        showSplash(initStage);
+        // steps finish in parallel; only the latest progress of each pulse is shown
+        startup.run((name, elapsedMillis, error, finished, total) -> UiUpdateDispatcher.INSTANCE.submit(loadProgress, () -> {
+            loadProgress.setProgress((double) finished / total);
+            progressText.setText(name + (error != null ? " failed" : "") + " (" + elapsedMillis + " ms)");
+        })).whenComplete((ignored, e) -> {
+            startupExecutor.shutdown();
+            Platform.runLater(() -> hideSplash(initStage));
+        });
+    }
 
-        showSplash(initStage, getLocationTask);
-        new Thread(getLocationTask).start();
+    /**
+     * Reloads the properties file and Config.xml when they change on disk.
+     * Files packaged inside a jar cannot be watched and are skipped.
+     */
+    private static void watchConfiguration() throws IOException {
+        if (!PropertyManager.INSTANCE.getProperty("sdk.config.watch.enabled", true)) {
+            return;
+        }
+        ConfigWatcher watcher = new ConfigWatcher(PropertyManager.INSTANCE.getProperty("sdk.config.watch.debounce.millis", 500L));
+        Path propertiesPath = PropertyManager.INSTANCE.getPropertiesPath();
+        if (propertiesPath != null) {
+            watcher.watch(propertiesPath, () -> {
+                PropertyManager.INSTANCE.reloadProperties();
+                SdkClient.INSTANCE.resetCircuitBreakers();
+            });
+        }
+        Path configPath = SdkClient.INSTANCE.getConfigPath();
+        if (configPath != null) {
+            watcher.watch(configPath, SdkClient.INSTANCE::reloadConfig);
+        }
+        watcher.start();
+        configWatcher = watcher;
     }
 
     private static void showMainStage() {
         try{
-
-            //fxmlLoader.setController(controller);
-
-            root = fxmlLoader.load();
+            if (root == null) {
+                throw new IllegalStateException("main.fxml failed to load");
+            }
             root.setId("rootGroup");
 
             Scene scene = new Scene(root);
@@ -117,7 +171,19 @@ public final class Main extends Application {
             mainStage.setScene(scene);
             mainStage.setTitle(PropertyManager.INSTANCE.getProperty("application.title"));
             mainStage.show();
+            getController().onMainStageShown();
             mainStage.setOnCloseRequest(t -> {
+                if (configWatcher != null) {
+                    try {
+                        configWatcher.close();
+                    } catch (IOException e) {
+                        logger.warn("Failed to stop watching configuration files", e);
+                    }
+                }
+                if (standIn != null) {
+                    standIn.close();
+                }
+                SharedTimerService.INSTANCE.shutdown();
                 Platform.exit();
                 System.exit(0);
             });
@@ -128,25 +194,12 @@ public final class Main extends Application {
 
 
     /**
-     * Show the splash screen while we get Location information
+     * Show the splash screen while the startup steps run
      * @param initStage
-     * @param task
      */
-    private void showSplash(final Stage initStage, Task task) {
-        progressText.textProperty().bind(task.messageProperty());
-        loadProgress.progressProperty().bind(task.progressProperty());
-        task.stateProperty().addListener((observableValue, oldState, newState) -> {
-            if (newState == Worker.State.SUCCEEDED) {
-                loadProgress.progressProperty().unbind();
-                loadProgress.setProgress(1);
-                initStage.toFront();
-                FadeTransition fadeSplash = new FadeTransition(Duration.seconds(0.5), splashLayout);
-                fadeSplash.setFromValue(1.0);
-                fadeSplash.setToValue(0.0);
-                fadeSplash.setOnFinished(actionEvent -> initStage.hide());
-                fadeSplash.play();
-            }
-        });
+    private void showSplash(final Stage initStage) {
+        loadProgress.setProgress(0);
+        progressText.setText("Getting Store Location information . . .");
 
         Scene splashScene = new Scene(splashLayout);
         initStage.initStyle(StageStyle.UNDECORATED);
@@ -156,4 +209,18 @@ public final class Main extends Application {
         initStage.setY(bounds.getMinY() + bounds.getHeight() / 2 - SPLASH_HEIGHT / 2);
         initStage.show();
     }
+
+    /**
+     * Fade out the splash screen once every startup step has finished
+     * @param initStage
+     */
+    private void hideSplash(final Stage initStage) {
+        loadProgress.setProgress(1);
+        initStage.toFront();
+        FadeTransition fadeSplash = new FadeTransition(Duration.seconds(0.5), splashLayout);
+        fadeSplash.setFromValue(1.0);
+        fadeSplash.setToValue(0.0);
+        fadeSplash.setOnFinished(actionEvent -> initStage.hide());
+        fadeSplash.play();
+    }
 }
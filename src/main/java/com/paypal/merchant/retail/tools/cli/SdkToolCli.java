@@ -0,0 +1,406 @@
+package com.paypal.merchant.retail.tools.cli;
+
+import com.paypal.merchant.retail.sdk.contract.entities.Location;
+import com.paypal.merchant.retail.tools.client.FleetAvailabilityUpdater;
+import com.paypal.merchant.retail.tools.client.SdkClient;
+import com.paypal.merchant.retail.tools.exception.ClientException;
+import com.paypal.merchant.retail.tools.standin.SdkStandInServer;
+import com.paypal.merchant.retail.tools.util.PropertyManager;
+import com.paypal.merchant.retail.tools.util.SharedTimerService;
+import com.paypal.merchant.retail.tools.util.TimeoutExecutor;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.log4j.Appender;
+import org.apache.log4j.ConsoleAppender;
+import org.apache.log4j.spi.AppenderAttachable;
+
+import java.io.BufferedReader;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Headless entry point for scripts and scheduled jobs. Uses the same {@link SdkClient} and
+ * {@link PropertyManager} as the UI but never loads JavaFX.
+ *
+ * <pre>
+ * java -cp paypal-retail-tools.jar com.paypal.merchant.retail.tools.cli.SdkToolCli &lt;command&gt; [options] [storeId...]
+ *
+ * Commands:
+ *   status            print the availability of each store
+ *   open | close      set each store to Open or Closed
+ *   bulk              read "storeId open|close" lines and apply each one
+ *
+ * Options:
+ *   --file &lt;path&gt;     read store ids (or bulk lines) from a file, one per line; "-" reads stdin
+ *   --all             every store in Config.xml
+ *   --format tsv|json tab separated columns (default) or one JSON object per line
+ *   --concurrency N   maximum number of SDK calls in flight (default sdk.fleet.max.concurrent)
+ *   --verbose         log to stderr
+ * </pre>
+ *
+ * <p>Without store ids the default store (sdk.store.id) is used. One line is printed per store:
+ * storeId, ok|failed, open|closed, elapsed milliseconds and a message. The exit code is 0 if every
+ * store succeeded, 1 if any failed and 2 for a usage error.
+ */
+public final class SdkToolCli {
+    static final int EXIT_OK = 0;
+    static final int EXIT_FAILED = 1;
+    static final int EXIT_USAGE = 2;
+
+    private final PrintStream out;
+    private final InputStream in;
+    private String command;
+    private String file;
+    private boolean allStores = false;
+    private boolean json = false;
+    private boolean verbose = false;
+    private int concurrency = PropertyManager.INSTANCE.getProperty("sdk.fleet.max.concurrent", 10);
+    private final List<String> storeIds = new ArrayList<>();
+
+    SdkToolCli(PrintStream out, InputStream in) {
+        this.out = out;
+        this.in = in;
+    }
+
+    public static void main(String[] args) {
+        int exitCode;
+        try {
+            exitCode = new SdkToolCli(System.out, System.in).run(args);
+        } catch (Exception e) {
+            System.err.println("Error: " + e.getMessage());
+            exitCode = EXIT_FAILED;
+        } finally {
+            SharedTimerService.INSTANCE.shutdown();
+            TimeoutExecutor.INSTANCE.shutdown();
+        }
+        System.exit(exitCode);
+    }
+
+    int run(String[] args) throws IOException, ClientException, InterruptedException {
+        try {
+            parseArguments(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            printUsage();
+            return EXIT_USAGE;
+        }
+        configureLogging();
+
+        try (SdkStandInServer standIn = SdkStandInServer.startIfEnabled()) {
+            switch (command) {
+                case "status":
+                    return status(getStoreIds());
+                case "open":
+                    return setAvailability(Collections.singletonMap(true, getStoreIds()));
+                case "close":
+                    return setAvailability(Collections.singletonMap(false, getStoreIds()));
+                case "bulk":
+                    Map<Boolean, List<String>> entries;
+                    try {
+                        entries = getBulkEntries();
+                    } catch (IllegalArgumentException e) {
+                        // a malformed line is a usage error; nothing has been sent yet
+                        System.err.println(e.getMessage());
+                        printUsage();
+                        return EXIT_USAGE;
+                    }
+                    return setAvailability(entries);
+                default:
+                    System.err.println("Unknown command: " + command);
+                    printUsage();
+                    return EXIT_USAGE;
+            }
+        }
+    }
+
+    void parseArguments(String[] args) {
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--file":
+                    file = requireValue(args, ++i, "--file");
+                    break;
+                case "--all":
+                    allStores = true;
+                    break;
+                case "--format":
+                    String format = requireValue(args, ++i, "--format");
+                    if (!format.equals("tsv") && !format.equals("json")) {
+                        throw new IllegalArgumentException("--format must be tsv or json");
+                    }
+                    json = format.equals("json");
+                    break;
+                case "--concurrency":
+                    try {
+                        concurrency = Integer.parseInt(requireValue(args, ++i, "--concurrency"));
+                    } catch (NumberFormatException e) {
+                        throw new IllegalArgumentException("--concurrency must be a number");
+                    }
+                    break;
+                case "--verbose":
+                    verbose = true;
+                    break;
+                default:
+                    if (args[i].startsWith("--")) {
+                        throw new IllegalArgumentException("Unknown option: " + args[i]);
+                    }
+                    if (command == null) {
+                        command = args[i];
+                    } else {
+                        storeIds.add(args[i]);
+                    }
+            }
+        }
+        if (command == null) {
+            throw new IllegalArgumentException("A command is required");
+        }
+        if (command.equals("bulk") && (allStores || !storeIds.isEmpty())) {
+            throw new IllegalArgumentException("bulk reads its stores from --file or stdin");
+        }
+    }
+
+    private static String requireValue(String[] args, int i, String option) {
+        if (i >= args.length) {
+            throw new IllegalArgumentException(option + " requires a value");
+        }
+        return args[i];
+    }
+
+    private void printUsage() {
+        System.err.println("Usage: SdkToolCli status|open|close|bulk [--file <path>|-] [--all] [--format tsv|json] " +
+                "[--concurrency N] [--verbose] [storeId...]");
+    }
+
+    /**
+     * The console appender writes to stdout, which is reserved for results
+     */
+    private void configureLogging() {
+        configureConsoleAppenders(org.apache.log4j.Logger.getRootLogger());
+    }
+
+    /**
+     * Redirects or removes the console appenders of the parent, including those behind an async appender
+     */
+    private void configureConsoleAppenders(AppenderAttachable parent) {
+        if (parent.getAllAppenders() == null) {
+            return;
+        }
+        List<Appender> consoleAppenders = new ArrayList<>();
+        for (Object appender : Collections.list(parent.getAllAppenders())) {
+            if (appender instanceof ConsoleAppender) {
+                consoleAppenders.add((Appender) appender);
+            } else if (appender instanceof AppenderAttachable) {
+                configureConsoleAppenders((AppenderAttachable) appender);
+            }
+        }
+        for (Appender appender : consoleAppenders) {
+            if (verbose) {
+                ((ConsoleAppender) appender).setTarget(ConsoleAppender.SYSTEM_ERR);
+                ((ConsoleAppender) appender).activateOptions();
+            } else {
+                parent.removeAppender(appender);
+            }
+        }
+    }
+
+    /**
+     * The stores named on the command line, in --file and by --all, each once in the order first named
+     */
+    private List<String> getStoreIds() throws IOException, ClientException {
+        Set<String> ids = new LinkedHashSet<>(storeIds);
+        if (allStores) {
+            ids.addAll(SdkClient.INSTANCE.getStoreIds());
+        }
+        if (file != null) {
+            ids.addAll(readLines());
+        }
+        if (ids.isEmpty()) {
+            ids.add(SdkClient.INSTANCE.getDefaultStoreId());
+        }
+        return new ArrayList<>(ids);
+    }
+
+    /**
+     * Groups the bulk lines by desired state. A store listed twice keeps its last state.
+     */
+    private Map<Boolean, List<String>> getBulkEntries() throws IOException {
+        Map<String, Boolean> desiredStates = new LinkedHashMap<>();
+        for (String line : readLines()) {
+            String[] fields = parseBulkLine(line);
+            desiredStates.remove(fields[0]);
+            desiredStates.put(fields[0], fields[1].equals("open"));
+        }
+        Map<Boolean, List<String>> entries = new LinkedHashMap<>();
+        entries.put(true, new ArrayList<>());
+        entries.put(false, new ArrayList<>());
+        desiredStates.forEach((storeId, isOpen) -> entries.get(isOpen).add(storeId));
+        return entries;
+    }
+
+    /**
+     * Splits a bulk line ("storeId open", "storeId,close", "storeId\tOPEN") into the store id and state
+     */
+    static String[] parseBulkLine(String line) {
+        String[] fields = line.trim().split("[\\s,]+");
+        if (fields.length != 2) {
+            throw new IllegalArgumentException("Expected \"storeId open|close\" but got: " + line);
+        }
+        String state = fields[1].toLowerCase();
+        if (!state.equals("open") && !state.equals("close") && !state.equals("closed")) {
+            throw new IllegalArgumentException("Expected open or close for " + fields[0] + " but got: " + fields[1]);
+        }
+        return new String[]{fields[0], state.equals("open") ? "open" : "close"};
+    }
+
+    /**
+     * Reads the non-blank lines of --file, or stdin if the file is "-". Lines starting with # are skipped.
+     */
+    private List<String> readLines() throws IOException {
+        if (file == null) {
+            file = "-";
+        }
+        try (InputStream inputStream = file.equals("-") ? in : new FileInputStream(file)) {
+            return readLines(new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8)));
+        }
+    }
+
+    static List<String> readLines(BufferedReader reader) throws IOException {
+        List<String> lines = new ArrayList<>();
+        String line;
+        while ((line = reader.readLine()) != null) {
+            line = line.trim();
+            if (!line.isEmpty() && !line.startsWith("#")) {
+                lines.add(line);
+            }
+        }
+        return lines;
+    }
+
+    private int status(List<String> ids) throws InterruptedException {
+        final Semaphore permits = new Semaphore(Math.max(1, concurrency));
+        final CountDownLatch done = new CountDownLatch(ids.size());
+        final AtomicInteger failed = new AtomicInteger();
+        for (String storeId : ids) {
+            permits.acquire();
+            final long start = System.currentTimeMillis();
+            SdkClient.INSTANCE.getSdkLocationAsync(storeId).whenComplete((location, e) -> {
+                permits.release();
+                if (e != null) {
+                    failed.incrementAndGet();
+                }
+                print(storeId, location, e == null ? "" : getMessage(e), System.currentTimeMillis() - start);
+                done.countDown();
+            });
+        }
+        done.await();
+        return failed.get() == 0 ? EXIT_OK : EXIT_FAILED;
+    }
+
+    private int setAvailability(Map<Boolean, List<String>> storesByState) throws InterruptedException {
+        // the exit code tells the caller what to run again; the availability journal is left to the UI
+        FleetAvailabilityUpdater updater = new FleetAvailabilityUpdater(SdkClient.INSTANCE::setLocationAvailabilityAsync, concurrency,
+                FleetAvailabilityUpdater::configuredRetryPolicy, null);
+        final AtomicInteger failed = new AtomicInteger();
+        try {
+            for (Map.Entry<Boolean, List<String>> stores : storesByState.entrySet()) {
+                if (stores.getValue().isEmpty()) {
+                    continue;
+                }
+                final CountDownLatch done = new CountDownLatch(1);
+                updater.update(stores.getValue(), stores.getKey(), new FleetAvailabilityUpdater.ProgressListener() {
+                    @Override
+                    public void onStoreResult(FleetAvailabilityUpdater.StoreResult result) {
+                        print(result.getStoreId(), result.getLocation(), result.isSuccessful() ? "" : result.getMessage(),
+                                result.getElapsedMillis());
+                    }
+
+                    @Override
+                    public void onProgress(int completed, int failedCount, int total) {
+                    }
+
+                    @Override
+                    public void onFinished(int completed, int failedCount, int total) {
+                        failed.addAndGet(failedCount);
+                        done.countDown();
+                    }
+                });
+                done.await();
+            }
+        } finally {
+            updater.shutdown();
+        }
+        return failed.get() == 0 ? EXIT_OK : EXIT_FAILED;
+    }
+
+    private synchronized void print(String storeId, Location location, String message, long elapsedMillis) {
+        out.println(format(storeId, location != null, location != null && location.isOpen(), elapsedMillis, message, json));
+        out.flush();
+    }
+
+    /**
+     * Formats one result line
+     *
+     * @param ok - Whether the SDK call succeeded; the state is only printed if it did
+     */
+    static String format(String storeId, boolean ok, boolean isOpen, long elapsedMillis, String message, boolean json) {
+        String state = ok ? (isOpen ? "open" : "closed") : "";
+        message = StringUtils.defaultString(message);
+        if (json) {
+            return "{\"storeId\":\"" + escapeJson(storeId) + "\",\"ok\":" + ok +
+                    (ok ? ",\"state\":\"" + state + "\"" : "") +
+                    ",\"elapsedMillis\":" + elapsedMillis +
+                    (message.isEmpty() ? "" : ",\"message\":\"" + escapeJson(message) + "\"") + "}";
+        }
+        return storeId + "\t" + (ok ? "ok" : "failed") + "\t" + state + "\t" + elapsedMillis + "\t" +
+                message.replaceAll("[\\t\\r\\n]+", " ");
+    }
+
+    static String escapeJson(String value) {
+        StringBuilder escaped = new StringBuilder(value.length() + 8);
+        for (char c : value.toCharArray()) {
+            switch (c) {
+                case '"':
+                    escaped.append("\\\"");
+                    break;
+                case '\\':
+                    escaped.append("\\\\");
+                    break;
+                case '\n':
+                    escaped.append("\\n");
+                    break;
+                case '\r':
+                    escaped.append("\\r");
+                    break;
+                case '\t':
+                    escaped.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        escaped.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        escaped.append(c);
+                    }
+            }
+        }
+        return escaped.toString();
+    }
+
+    private static String getMessage(Throwable e) {
+        while (!(e instanceof ClientException) && e.getCause() != null) {
+            e = e.getCause();
+        }
+        return e.getMessage();
+    }
+}
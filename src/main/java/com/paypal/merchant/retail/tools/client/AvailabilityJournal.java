@@ -0,0 +1,285 @@
+package com.paypal.merchant.retail.tools.client;
+
+import com.paypal.merchant.retail.tools.util.JournalRecords;
+import com.paypal.merchant.retail.tools.util.PropertyManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Write-ahead log of the store availability changes (Open or Closed) that were asked for and have not
+ * completed, so a restart resumes them instead of leaving stores in the wrong state.
+ *
+ * <p>A change is recorded and fsynced before the first call for it is made, and marked done once it
+ * succeeds, fails for good or is canceled. A done record is not fsynced: if it is lost, the change is
+ * made again after a restart, which leaves the store in the same state.
+ *
+ * <p>The pending changes are kept in memory. The log, availability.wal, is compacted once it holds
+ * compactAfterRecords records and at least twice as many records as pending changes: the pending
+ * changes are written to availability.checkpoint, which is replaced atomically, and the log is emptied.
+ * On open the checkpoint is read, the log replayed over it, a torn record at the end of the log cut
+ * off, and a new checkpoint written. Records are in the {@link JournalRecords} format.
+ */
+public class AvailabilityJournal implements Closeable {
+    private static Logger logger = LoggerFactory.getLogger(AvailabilityJournal.class);
+    private static final String CHECKPOINT = "availability.checkpoint";
+    private static final String LOG = "availability.wal";
+    private static final char PENDING = 'P';
+    private static final char DONE = 'D';
+    private static final String OPEN = "OPEN";
+    private static final String CLOSED = "CLOSED";
+
+    private static AvailabilityJournal defaultJournal;
+    private static boolean defaultOpened;
+
+    private final Path directory;
+    private final int compactAfterRecords;
+    private final Map<String, Change> pending = new LinkedHashMap<>();
+    private FileChannel log;
+    private int logRecords;
+    private boolean closed;
+
+    private AvailabilityJournal(Path directory, int compactAfterRecords) {
+        this.directory = directory;
+        this.compactAfterRecords = compactAfterRecords;
+    }
+
+    /**
+     * Returns the journal configured by availability.journal.dir, opening it on first use
+     *
+     * @return The journal, or null if it is disabled or cannot be opened
+     */
+    public static synchronized AvailabilityJournal getDefault() {
+        if (!defaultOpened) {
+            defaultOpened = true;
+            if (PropertyManager.INSTANCE.getProperty("availability.journal.enabled", true)) {
+                try {
+                    defaultJournal = open(Paths.get(PropertyManager.INSTANCE.getProperty("availability.journal.dir", "availability-journal")),
+                            PropertyManager.INSTANCE.getProperty("availability.journal.compact.records", 10000));
+                } catch (IOException e) {
+                    logger.error("Failed to open the availability journal; pending store changes will not survive a restart", e);
+                }
+            }
+        }
+        return defaultJournal;
+    }
+
+    /**
+     * Opens the journal in a directory, creating it if needed, and replays it
+     *
+     * @param compactAfterRecords - Number of records in the log after which it may be compacted
+     */
+    public static AvailabilityJournal open(Path directory, int compactAfterRecords) throws IOException {
+        AvailabilityJournal journal = new AvailabilityJournal(directory, compactAfterRecords);
+        journal.replay();
+        return journal;
+    }
+
+    private void replay() throws IOException {
+        Files.createDirectories(directory);
+        Path checkpoint = directory.resolve(CHECKPOINT);
+        if (Files.exists(checkpoint)) {
+            JournalRecords.read(checkpoint, false, this::apply);
+        }
+        Path logFile = directory.resolve(LOG);
+        long validLength = 0;
+        if (Files.exists(logFile)) {
+            validLength = JournalRecords.read(logFile, true, record -> {
+                apply(record);
+                logRecords++;
+            });
+        }
+        log = FileChannel.open(logFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        if (log.size() > validLength) {
+            logger.warn("Cutting off " + (log.size() - validLength) + " torn bytes at the end of " + logFile);
+            log.truncate(validLength);
+        }
+        log.position(validLength);
+        logger.info("Replayed " + logRecords + " availability journal records; " + pending.size() +
+                " store changes are pending");
+        checkpoint();
+    }
+
+    private void apply(String[] record) {
+        if (record[0].charAt(0) == PENDING) {
+            String[] detail = record[2].split("@");
+            long requestedAt = detail.length > 1 ? Long.parseLong(detail[1]) : System.currentTimeMillis();
+            pending.remove(record[1]);
+            pending.put(record[1], new Change(OPEN.equals(detail[0]), requestedAt));
+        } else {
+            pending.remove(record[1]);
+        }
+    }
+
+    /**
+     * Records that stores are to be set to a state. Returns once the record is fsynced.
+     * If the journal cannot be written the error is logged and the change is not resumed after a restart.
+     *
+     * @param storeIds - The stores to change
+     * @param isOpen - The desired state (true=Open, false=Closed)
+     */
+    public synchronized void recordPending(Collection<String> storeIds, boolean isOpen) {
+        long now = System.currentTimeMillis();
+        ByteArrayOutputStream records = new ByteArrayOutputStream();
+        for (String storeId : storeIds) {
+            byte[] record = JournalRecords.encode(PENDING, storeId, (isOpen ? OPEN : CLOSED) + "@" + now);
+            records.write(record, 0, record.length);
+        }
+        try {
+            write(records.toByteArray());
+            log.force(false);
+        } catch (IOException e) {
+            logger.error("Failed to record " + storeIds.size() + " pending store changes in the availability journal", e);
+            return;
+        }
+        for (String storeId : storeIds) {
+            // a newer change moves to the end, so changes resume in the order they were asked for
+            pending.remove(storeId);
+            pending.put(storeId, new Change(isOpen, now));
+        }
+        logRecords += storeIds.size();
+        compactIfNeeded();
+    }
+
+    /**
+     * Records that the change of a store to a state is over, whether it succeeded or not.
+     * Does nothing if a change to the other state was asked for since.
+     *
+     * @param isOpen - The state the store was to be set to
+     */
+    public synchronized void recordDone(String storeId, boolean isOpen) {
+        Change change = pending.get(storeId);
+        if (change == null || change.isOpen != isOpen) {
+            return;
+        }
+        try {
+            write(JournalRecords.encode(DONE, storeId, isOpen ? OPEN : CLOSED));
+        } catch (IOException e) {
+            logger.error("Failed to record the end of a store change in the availability journal | StoreId: " + storeId, e);
+            return;
+        }
+        pending.remove(storeId);
+        logRecords++;
+        compactIfNeeded();
+    }
+
+    /**
+     * Returns the pending changes in the order they were asked for. Changes older than maxAgeMillis are
+     * dropped, as the stores may have been changed some other way since.
+     *
+     * @return The desired state of each store (true=Open, false=Closed)
+     */
+    public synchronized Map<String, Boolean> getPending(long maxAgeMillis) {
+        long oldest = System.currentTimeMillis() - maxAgeMillis;
+        Map<String, Boolean> changes = new LinkedHashMap<>();
+        for (Iterator<Map.Entry<String, Change>> it = pending.entrySet().iterator(); it.hasNext(); ) {
+            Map.Entry<String, Change> entry = it.next();
+            if (entry.getValue().requestedAt < oldest) {
+                logger.warn("Dropping a pending change to " + (entry.getValue().isOpen ? OPEN : CLOSED) +
+                        " that is too old to resume | StoreId: " + entry.getKey());
+                it.remove();
+                logRecords++;
+                try {
+                    write(JournalRecords.encode(DONE, entry.getKey(), entry.getValue().isOpen ? OPEN : CLOSED));
+                } catch (IOException e) {
+                    logger.error("Failed to record a dropped store change in the availability journal", e);
+                }
+            } else {
+                changes.put(entry.getKey(), entry.getValue().isOpen);
+            }
+        }
+        compactIfNeeded();
+        return changes;
+    }
+
+    /**
+     * Number of store changes that have not completed
+     */
+    public synchronized int getPendingCount() {
+        return pending.size();
+    }
+
+    private void write(byte[] records) throws IOException {
+        if (closed) {
+            throw new IOException("The availability journal is closed");
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(records);
+        while (buffer.hasRemaining()) {
+            log.write(buffer);
+        }
+    }
+
+    private void compactIfNeeded() {
+        if (logRecords >= compactAfterRecords && logRecords >= 2 * pending.size()) {
+            try {
+                checkpoint();
+            } catch (IOException e) {
+                // the log is still complete; compaction is tried again after the next record
+                logger.error("Failed to compact the availability journal", e);
+            }
+        }
+    }
+
+    /**
+     * Writes the pending changes to a new checkpoint and empties the log
+     */
+    private void checkpoint() throws IOException {
+        ByteArrayOutputStream records = new ByteArrayOutputStream();
+        for (Map.Entry<String, Change> entry : pending.entrySet()) {
+            byte[] record = JournalRecords.encode(PENDING, entry.getKey(),
+                    (entry.getValue().isOpen ? OPEN : CLOSED) + "@" + entry.getValue().requestedAt);
+            records.write(record, 0, record.length);
+        }
+        Path temporary = directory.resolve(CHECKPOINT + ".tmp");
+        try (FileChannel out = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = ByteBuffer.wrap(records.toByteArray());
+            while (buffer.hasRemaining()) {
+                out.write(buffer);
+            }
+            out.force(true);
+        }
+        Files.move(temporary, directory.resolve(CHECKPOINT), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        // only once the checkpoint is in place; a crash before this replays the log over it, which is harmless
+        log.truncate(0);
+        log.force(false);
+        logRecords = 0;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        log.force(false);
+        log.close();
+    }
+
+    /**
+     * A change that was asked for and when
+     */
+    private static class Change {
+        private final boolean isOpen;
+        private final long requestedAt;
+
+        Change(boolean isOpen, long requestedAt) {
+            this.isOpen = isOpen;
+            this.requestedAt = requestedAt;
+        }
+    }
+}
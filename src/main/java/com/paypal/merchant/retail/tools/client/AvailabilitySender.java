@@ -0,0 +1,16 @@
+package com.paypal.merchant.retail.tools.client;
+
+import com.paypal.merchant.retail.sdk.contract.entities.Location;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Sets the availability of a single store without blocking
+ */
+public interface AvailabilitySender {
+    /**
+     * @param isOpen - The desired state (true=Open, false=Closed)
+     * @return Future completed with the updated Location, or exceptionally if the store could not be set
+     */
+    public CompletableFuture<Location> setAvailability(String storeId, boolean isOpen);
+}
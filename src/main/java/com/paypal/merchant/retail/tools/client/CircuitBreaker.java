@@ -0,0 +1,258 @@
+package com.paypal.merchant.retail.tools.client;
+
+import com.paypal.merchant.retail.tools.exception.ClientException;
+import com.paypal.merchant.retail.tools.exception.RequestRejectedException;
+import com.paypal.merchant.retail.tools.util.PropertyManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Stops calling an SDK service (a &lt;Service&gt; in Config.xml) while it is failing.
+ *
+ * <p>The outcome of the last sdk.circuit.window.size calls is kept. Once at least
+ * sdk.circuit.minimum.calls have been made and the share of failed calls or of calls slower than
+ * sdk.circuit.slow.call.seconds reaches its threshold, the circuit opens: every call fails
+ * immediately with a ClientException for sdk.circuit.open.seconds. Then the circuit is half open and
+ * sdk.circuit.half.open.calls trial calls are let through. If they pass the thresholds the circuit
+ * closes again, otherwise it opens for another period.
+ *
+ * <p>Calls rejected because the local executor is full say nothing about the service and are not counted.
+ * A {@link RequestRejectedException}, e.g. a validation error the service answered for one request, means
+ * the service is up and counts as a call that did not fail. Only timeouts and transport or service failures are failures.
+ */
+public class CircuitBreaker {
+    private static Logger logger = LoggerFactory.getLogger(CircuitBreaker.class);
+
+    private static final byte FAILED = 1;
+    private static final byte SLOW = 2;
+
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private final String serviceId;
+    private final boolean enabled;
+    private final int windowSize;
+    private final int minimumCalls;
+    private final int failureRateThreshold;
+    private final int slowCallRateThreshold;
+    private final long slowCallNanos;
+    private final long openNanos;
+    private final int halfOpenCalls;
+
+    private State state = State.CLOSED;
+    private final byte[] window;
+    private int windowIndex = 0;
+    private int callCount = 0;
+    private int failedCount = 0;
+    private int slowCount = 0;
+    private long openedAt = 0;
+    private int halfOpenPermits = 0;
+    private long notPermittedCount = 0;
+
+    /**
+     * @param serviceId - The Config.xml service this circuit protects
+     * @param windowSize - Number of most recent calls the rates are computed over
+     * @param minimumCalls - Number of calls needed before the circuit can open
+     * @param failureRateThreshold - Percentage of failed calls that opens the circuit
+     * @param slowCallRateThreshold - Percentage of slow calls that opens the circuit
+     * @param slowCallSeconds - A call that takes at least this long is slow
+     * @param openSeconds - How long the circuit stays open before trial calls are let through
+     * @param halfOpenCalls - Number of trial calls made while the circuit is half open
+     */
+    public CircuitBreaker(String serviceId, boolean enabled, int windowSize, int minimumCalls,
+                          int failureRateThreshold, int slowCallRateThreshold, long slowCallSeconds,
+                          long openSeconds, int halfOpenCalls) {
+        this.serviceId = serviceId;
+        this.enabled = enabled;
+        this.windowSize = Math.max(1, windowSize);
+        this.minimumCalls = Math.max(1, Math.min(this.windowSize, minimumCalls));
+        this.failureRateThreshold = failureRateThreshold;
+        this.slowCallRateThreshold = slowCallRateThreshold;
+        this.slowCallNanos = TimeUnit.SECONDS.toNanos(slowCallSeconds);
+        this.openNanos = TimeUnit.SECONDS.toNanos(openSeconds);
+        this.halfOpenCalls = Math.max(1, Math.min(this.windowSize, halfOpenCalls));
+        this.window = new byte[this.windowSize];
+    }
+
+    /**
+     * Builds the circuit breaker for a service from the properties file. Each setting is read from
+     * sdk.circuit.[serviceId].* and falls back to sdk.circuit.*
+     *
+     * @param serviceId - The service id in Config.xml, e.g. hereAPIService
+     * @return CircuitBreaker
+     */
+    public static CircuitBreaker forService(String serviceId) {
+        return new CircuitBreaker(serviceId,
+                getProperty(serviceId, "enabled", true),
+                getProperty(serviceId, "window.size", 20),
+                getProperty(serviceId, "minimum.calls", 10),
+                getProperty(serviceId, "failure.rate.threshold", 50),
+                getProperty(serviceId, "slow.call.rate.threshold", 80),
+                getProperty(serviceId, "slow.call.seconds", 5),
+                getProperty(serviceId, "open.seconds", 30),
+                getProperty(serviceId, "half.open.calls", 3));
+    }
+
+    private static int getProperty(String serviceId, String name, int defaultValue) {
+        return PropertyManager.INSTANCE.getProperty("sdk.circuit." + serviceId + "." + name,
+                PropertyManager.INSTANCE.getProperty("sdk.circuit." + name, defaultValue));
+    }
+
+    private static boolean getProperty(String serviceId, String name, boolean defaultValue) {
+        return PropertyManager.INSTANCE.getProperty("sdk.circuit." + serviceId + "." + name,
+                PropertyManager.INSTANCE.getProperty("sdk.circuit." + name, defaultValue));
+    }
+
+    /**
+     * Must be called before each call to the service
+     *
+     * @throws ClientException if the circuit is open, or half open with all trial calls in flight
+     */
+    public synchronized void acquirePermission() throws ClientException {
+        if (!enabled) {
+            return;
+        }
+        if (state == State.OPEN) {
+            long remaining = openNanos - (System.nanoTime() - openedAt);
+            if (remaining > 0) {
+                notPermittedCount++;
+                throw new ClientException(serviceId + " is unavailable. Not calling it for another " +
+                        Math.max(1, TimeUnit.NANOSECONDS.toSeconds(remaining)) + " seconds.");
+            }
+            transitionTo(State.HALF_OPEN);
+        }
+        if (state == State.HALF_OPEN) {
+            if (halfOpenPermits <= 0) {
+                notPermittedCount++;
+                throw new ClientException(serviceId + " is unavailable. Waiting for trial calls to complete.");
+            }
+            halfOpenPermits--;
+        }
+    }
+
+    /**
+     * Records a call that returned a result
+     *
+     * @param elapsedNanos - How long the call took
+     */
+    public synchronized void onSuccess(long elapsedNanos) {
+        record(elapsedNanos >= slowCallNanos ? SLOW : 0);
+    }
+
+    /**
+     * Records a call that failed. Rejections by the local executor are not counted, and requests the
+     * service rejected are counted as calls that did not fail.
+     *
+     * @param elapsedNanos - How long the call took
+     * @param e - The failure
+     */
+    public synchronized void onError(long elapsedNanos, Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof RejectedExecutionException) {
+                if (state == State.HALF_OPEN) {
+                    halfOpenPermits++;
+                }
+                return;
+            }
+            if (cause instanceof RequestRejectedException) {
+                onSuccess(elapsedNanos);
+                return;
+            }
+        }
+        record((byte) (FAILED | (elapsedNanos >= slowCallNanos ? SLOW : 0)));
+    }
+
+    private void record(byte outcome) {
+        if (!enabled || state == State.OPEN) {
+            // the call was started before the circuit opened
+            return;
+        }
+        if (callCount == windowSize) {
+            byte evicted = window[windowIndex];
+            failedCount -= evicted & FAILED;
+            slowCount -= (evicted & SLOW) >> 1;
+        } else {
+            callCount++;
+        }
+        window[windowIndex] = outcome;
+        windowIndex = (windowIndex + 1) % windowSize;
+        failedCount += outcome & FAILED;
+        slowCount += (outcome & SLOW) >> 1;
+
+        if (state == State.HALF_OPEN) {
+            if (callCount >= halfOpenCalls) {
+                transitionTo(isAboveThreshold() ? State.OPEN : State.CLOSED);
+            }
+        } else if (callCount >= minimumCalls && isAboveThreshold()) {
+            transitionTo(State.OPEN);
+        }
+    }
+
+    private boolean isAboveThreshold() {
+        return failedCount * 100 >= failureRateThreshold * callCount ||
+                slowCount * 100 >= slowCallRateThreshold * callCount;
+    }
+
+    private void transitionTo(State newState) {
+        if (newState == State.OPEN) {
+            logger.error("Circuit for " + serviceId + " is OPEN | Failed: " + failedCount + "/" + callCount +
+                    " | Slow: " + slowCount + "/" + callCount + " | Failing fast for " +
+                    TimeUnit.NANOSECONDS.toSeconds(openNanos) + " seconds");
+            openedAt = System.nanoTime();
+        } else {
+            logger.info("Circuit for " + serviceId + " is " + newState.name());
+        }
+        state = newState;
+        halfOpenPermits = newState == State.HALF_OPEN ? halfOpenCalls : 0;
+        windowIndex = 0;
+        callCount = 0;
+        failedCount = 0;
+        slowCount = 0;
+    }
+
+    public String getServiceId() {
+        return serviceId;
+    }
+
+    /**
+     * The current state. An open circuit whose open period has passed is reported as half open.
+     */
+    public synchronized State getState() {
+        if (state == State.OPEN && System.nanoTime() - openedAt >= openNanos) {
+            return State.HALF_OPEN;
+        }
+        return state;
+    }
+
+    /**
+     * Percentage of failed calls in the window, or -1 if too few calls have been made
+     */
+    public synchronized int getFailureRate() {
+        return callCount < minimumCalls ? -1 : failedCount * 100 / callCount;
+    }
+
+    /**
+     * Percentage of slow calls in the window, or -1 if too few calls have been made
+     */
+    public synchronized int getSlowCallRate() {
+        return callCount < minimumCalls ? -1 : slowCount * 100 / callCount;
+    }
+
+    /**
+     * Number of calls that failed fast because the circuit was open
+     */
+    public synchronized long getNotPermittedCount() {
+        return notPermittedCount;
+    }
+
+    /**
+     * Closes the circuit and forgets every recorded call
+     */
+    public synchronized void reset() {
+        transitionTo(State.CLOSED);
+    }
+}
@@ -0,0 +1,154 @@
+package com.paypal.merchant.retail.tools.client;
+
+import com.paypal.merchant.retail.tools.util.LatencyHistogram;
+import com.paypal.merchant.retail.tools.util.MBeans;
+import com.paypal.merchant.retail.tools.util.PropertyManager;
+import com.paypal.merchant.retail.tools.util.SharedTimerService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+/**
+ * Latency histograms and result counters of every SDK command, by command type and by store.
+ *
+ * <p>Command type histograms keep 7 bits of precision (under 2% error). Store histograms keep 4 bits
+ * (under 13%) so thousands of stores stay small; past sdk.metrics.max.stores, new stores are counted
+ * together as "other". Values are cumulative until {@link #reset()}.
+ *
+ * <p>Exposed through JMX ({@link CommandMetricsMXBean}) and logged every
+ * sdk.metrics.dump.interval.seconds to the com.paypal.merchant.retail.tools.metrics logger (0 disables).
+ */
+public enum CommandMetrics implements CommandMetricsMXBean {
+    INSTANCE;
+    public static final String OBJECT_NAME = MBeans.DOMAIN + ":type=CommandMetrics";
+    static final String OTHER_STORES = "other";
+    private Logger logger = LoggerFactory.getLogger(this.getClass());
+    private Logger metricsLogger = LoggerFactory.getLogger("com.paypal.merchant.retail.tools.metrics");
+
+    private final int MAX_STORES = PropertyManager.INSTANCE.getProperty("sdk.metrics.max.stores", 10000);
+    private final long DUMP_INTERVAL_SECONDS = PropertyManager.INSTANCE.getProperty("sdk.metrics.dump.interval.seconds", 60L);
+
+    private final ConcurrentMap<String, Recorder> commands = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Recorder> stores = new ConcurrentHashMap<>();
+
+    private CommandMetrics() {
+        MBeans.register("CommandMetrics", null, this, CommandMetricsMXBean.class);
+        if (DUMP_INTERVAL_SECONDS > 0) {
+            SharedTimerService.INSTANCE.scheduleAtFixedRate(this::logDump, DUMP_INTERVAL_SECONDS, DUMP_INTERVAL_SECONDS,
+                    TimeUnit.SECONDS);
+        }
+    }
+
+    /**
+     * Records one SDK command
+     *
+     * @param commandType - e.g. GetLocation
+     * @param storeId - The store the command was sent for
+     * @param elapsedNanos - Time spent in Command.execute
+     * @param result - The CommandResult name, or "Exception" if execute threw
+     * @param errorCode - The ErrorInfo code of a failed command, or null
+     */
+    public void record(String commandType, String storeId, long elapsedNanos, String result, String errorCode) {
+        commands.computeIfAbsent(commandType, key -> new Recorder(7)).record(elapsedNanos, result, errorCode);
+        getStoreRecorder(storeId).record(elapsedNanos, result, errorCode);
+    }
+
+    private Recorder getStoreRecorder(String storeId) {
+        Recorder recorder = stores.get(storeId);
+        if (recorder != null) {
+            return recorder;
+        }
+        String key = stores.size() < MAX_STORES ? storeId : OTHER_STORES;
+        return stores.computeIfAbsent(key, k -> new Recorder(4));
+    }
+
+    @Override
+    public List<CommandStats> getCommands() {
+        return new TreeMap<>(commands).entrySet().stream()
+                .map(entry -> entry.getValue().toStats(entry.getKey()))
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public CommandStats getStore(String storeId) {
+        Recorder recorder = stores.get(storeId);
+        return recorder != null ? recorder.toStats(storeId) : null;
+    }
+
+    @Override
+    public List<CommandStats> getSlowestStores(int count) {
+        return stores.entrySet().stream()
+                .map(entry -> entry.getValue().toStats(entry.getKey()))
+                .sorted(Comparator.comparingLong(CommandStats::getP99Millis).reversed())
+                .limit(Math.max(0, count))
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public String dump() {
+        StringBuilder text = new StringBuilder();
+        for (CommandStats stats : getCommands()) {
+            text.append(stats).append(System.lineSeparator());
+        }
+        return text.toString();
+    }
+
+    private void logDump() {
+        if (!commands.isEmpty()) {
+            metricsLogger.info("SDK command metrics since start or reset:" + System.lineSeparator() + dump());
+        }
+    }
+
+    @Override
+    public void reset() {
+        commands.clear();
+        stores.clear();
+    }
+
+    /**
+     * Histogram and counters of one command type or store
+     */
+    private static class Recorder {
+        private final LatencyHistogram histogram;
+        private final ConcurrentMap<String, LongAdder> results = new ConcurrentHashMap<>();
+        private final ConcurrentMap<String, LongAdder> errorCodes = new ConcurrentHashMap<>();
+
+        Recorder(int precisionBits) {
+            this.histogram = new LatencyHistogram(precisionBits);
+        }
+
+        void record(long elapsedNanos, String result, String errorCode) {
+            histogram.record(elapsedNanos, TimeUnit.NANOSECONDS);
+            results.computeIfAbsent(result, key -> new LongAdder()).increment();
+            if (errorCode != null) {
+                errorCodes.computeIfAbsent(errorCode, key -> new LongAdder()).increment();
+            }
+        }
+
+        CommandStats toStats(String name) {
+            return new CommandStats(name, histogram.getCount(),
+                    histogram.getPercentile(50, TimeUnit.MILLISECONDS),
+                    histogram.getPercentile(90, TimeUnit.MILLISECONDS),
+                    histogram.getPercentile(99, TimeUnit.MILLISECONDS),
+                    histogram.getMax(TimeUnit.MILLISECONDS),
+                    histogram.getMean(TimeUnit.MILLISECONDS),
+                    sum(results), sum(errorCodes));
+        }
+
+        private static Map<String, Long> sum(Map<String, LongAdder> counters) {
+            Map<String, Long> sums = new TreeMap<>();
+            counters.forEach((key, counter) -> sums.put(key, counter.sum()));
+            return sums;
+        }
+    }
+}
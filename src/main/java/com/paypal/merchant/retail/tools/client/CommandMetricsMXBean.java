@@ -0,0 +1,22 @@
+package com.paypal.merchant.retail.tools.client;
+
+import java.util.List;
+
+/**
+ * JMX view of {@link CommandMetrics}, registered as com.paypal.merchant.retail.tools:type=CommandMetrics
+ */
+public interface CommandMetricsMXBean {
+    /** Latency and result counts of each command type */
+    List<CommandStats> getCommands();
+
+    /** Latency and result counts of every command sent for one store, or null if none was */
+    CommandStats getStore(String storeId);
+
+    /** The stores with the highest 99th percentile latency */
+    List<CommandStats> getSlowestStores(int count);
+
+    /** The same text as the periodic metrics dump */
+    String dump();
+
+    void reset();
+}
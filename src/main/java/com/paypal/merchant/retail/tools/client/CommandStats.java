@@ -0,0 +1,78 @@
+package com.paypal.merchant.retail.tools.client;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * Latency percentiles and result counts of the SDK commands of one command type or one store
+ */
+public class CommandStats {
+    private final String name;
+    private final long count;
+    private final long p50Millis;
+    private final long p90Millis;
+    private final long p99Millis;
+    private final long maxMillis;
+    private final double meanMillis;
+    private final Map<String, Long> results;
+    private final Map<String, Long> errorCodes;
+
+    public CommandStats(String name, long count, long p50Millis, long p90Millis, long p99Millis, long maxMillis,
+                        double meanMillis, Map<String, Long> results, Map<String, Long> errorCodes) {
+        this.name = name;
+        this.count = count;
+        this.p50Millis = p50Millis;
+        this.p90Millis = p90Millis;
+        this.p99Millis = p99Millis;
+        this.maxMillis = maxMillis;
+        this.meanMillis = meanMillis;
+        this.results = Collections.unmodifiableMap(results);
+        this.errorCodes = Collections.unmodifiableMap(errorCodes);
+    }
+
+    /** The command type or store id */
+    public String getName() {
+        return name;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public long getP50Millis() {
+        return p50Millis;
+    }
+
+    public long getP90Millis() {
+        return p90Millis;
+    }
+
+    public long getP99Millis() {
+        return p99Millis;
+    }
+
+    public long getMaxMillis() {
+        return maxMillis;
+    }
+
+    public double getMeanMillis() {
+        return meanMillis;
+    }
+
+    /** Number of commands by CommandResult (or "Exception" if the command threw) */
+    public Map<String, Long> getResults() {
+        return results;
+    }
+
+    /** Number of failed commands by ErrorInfo code */
+    public Map<String, Long> getErrorCodes() {
+        return errorCodes;
+    }
+
+    @Override
+    public String toString() {
+        return name + " | count=" + count + " | p50=" + p50Millis + "ms p90=" + p90Millis + "ms p99=" + p99Millis +
+                "ms max=" + maxMillis + "ms mean=" + String.format("%.1f", meanMillis) + "ms | results=" + results +
+                (errorCodes.isEmpty() ? "" : " | errors=" + errorCodes);
+    }
+}
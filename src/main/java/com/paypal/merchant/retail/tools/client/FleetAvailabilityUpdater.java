@@ -0,0 +1,542 @@
+package com.paypal.merchant.retail.tools.client;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.paypal.merchant.retail.sdk.contract.entities.Location;
+import com.paypal.merchant.retail.tools.exception.ClientException;
+import com.paypal.merchant.retail.tools.util.MBeans;
+import com.paypal.merchant.retail.tools.util.PropertyManager;
+import com.paypal.merchant.retail.tools.util.RetryPolicy;
+import com.paypal.merchant.retail.tools.util.SharedTimerService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.beans.ConstructorProperties;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Sets the availability (Open or Closed) of many stores at once.
+ *
+ * <p>One call is made per store through the non-blocking {@link SdkClient} API (or another
+ * {@link AvailabilitySender}), with at most
+ * sdk.fleet.max.concurrent calls in flight. A single dispatcher thread hands out the calls;
+ * no thread waits on an individual store. Every store result and the running totals are
+ * reported to a {@link ProgressListener} as they complete. Every store is reported exactly once, even if
+ * its call fails unexpectedly, so the listener is always told when the update has finished.
+ *
+ * <p>When sdk.service.retry.enabled.flag is set, a failed store is retried after the delay given by the
+ * SetLocationAvailability {@link RetryPolicy}. With the jitter policy, stores that failed together
+ * retry at different times.
+ *
+ * <p>Each updater is registered with JMX as type=FleetAvailabilityUpdater,name=fleet-N, where the state of
+ * every store in the latest update can be read and stores waiting for a retry can be retried at once.
+ *
+ * <p>The stores of an update are recorded in the {@link AvailabilityJournal} before the first call, and each
+ * is marked done once it succeeds, fails for good or is canceled, so an update cut short by a restart is resumed.
+ */
+public class FleetAvailabilityUpdater implements FleetAvailabilityUpdaterMXBean {
+    private static Logger logger = LoggerFactory.getLogger(FleetAvailabilityUpdater.class);
+    private static final AtomicInteger instanceCount = new AtomicInteger();
+
+    private final String mbeanName = "fleet-" + instanceCount.incrementAndGet();
+    private final AvailabilitySender sender;
+    private final ExecutorService dispatcher;
+    private final Semaphore permits;
+    private final int maxConcurrent;
+    private final Supplier<RetryPolicy> retryPolicySupplier;
+    private final AvailabilityJournal journal;
+    //Updates with stores not reported yet, which cancel() stops
+    private final Set<Progress> running = ConcurrentHashMap.newKeySet();
+    private volatile Progress current = new Progress(null, Collections.emptyList(), false, null);
+
+    /**
+     * The SetLocationAvailability retry policy if sdk.service.retry.enabled.flag is set, otherwise null
+     */
+    public static RetryPolicy configuredRetryPolicy() {
+        return PropertyManager.INSTANCE.getProperty("sdk.service.retry.enabled.flag", false) ?
+                RetryPolicy.forCommand("SetLocationAvailability") : null;
+    }
+
+    /**
+     * @param sender - Makes the call for each store, e.g. SdkClient.INSTANCE::setLocationAvailabilityAsync
+     * @param maxConcurrent - Maximum number of calls in flight
+     * @param retryPolicySupplier - Called at the start of each update for how failed stores are retried,
+     *                            e.g. {@link #configuredRetryPolicy()}; a null policy does not retry
+     * @param journal - Where pending stores are recorded, or null to not record them
+     */
+    public FleetAvailabilityUpdater(AvailabilitySender sender, int maxConcurrent, Supplier<RetryPolicy> retryPolicySupplier,
+                                    AvailabilityJournal journal) {
+        this.sender = sender;
+        this.journal = journal;
+        this.maxConcurrent = Math.max(1, maxConcurrent);
+        this.retryPolicySupplier = retryPolicySupplier;
+        this.permits = new Semaphore(this.maxConcurrent);
+        this.dispatcher = Executors.newSingleThreadExecutor(
+                new ThreadFactoryBuilder().setNameFormat("fleet-availability-%d").setDaemon(true).build());
+        MBeans.register("FleetAvailabilityUpdater", mbeanName, this, FleetAvailabilityUpdaterMXBean.class);
+    }
+
+    @Override
+    public int getMaxConcurrent() {
+        return maxConcurrent;
+    }
+
+    /**
+     * Sets every given store to the desired state. Returns immediately; results are reported to the listener.
+     *
+     * @param storeIds - The stores to update; a store given twice is updated once
+     * @param isOpen - The desired state (true=Open, false=Closed)
+     * @param listener - Receives per-store results and aggregate progress
+     */
+    public void update(Collection<String> storeIds, boolean isOpen, ProgressListener listener) {
+        final List<String> stores = new ArrayList<>(new LinkedHashSet<>(storeIds));
+        final int total = stores.size();
+
+        logger.info("Setting availability to " + (isOpen ? "OPEN" : "CLOSED") + " for " + total +
+                " stores with " + maxConcurrent + " concurrent calls");
+        final Progress progress = new Progress(listener, stores, isOpen, retryPolicySupplier.get());
+        current = progress;
+        if (total == 0) {
+            listener.onFinished(0, 0, 0);
+            return;
+        }
+        if (journal != null) {
+            journal.recordPending(stores, isOpen);
+        }
+        running.add(progress);
+
+        dispatcher.execute(() -> {
+            for (String storeId : stores) {
+                if (!attempt(storeId, isOpen, 0, 0, progress.start, progress)) {
+                    return;
+                }
+            }
+        });
+    }
+
+    /**
+     * Starts one call for a store once a permit is free. Runs on the dispatcher thread.
+     *
+     * @return false if the dispatcher was interrupted
+     */
+    private boolean attempt(String storeId, boolean isOpen, int retry, long previousDelay, long start, Progress progress) {
+        final Tracker tracker = progress.trackers.get(storeId);
+        if (progress.cancelled) {
+            report(new StoreResult(storeId, false, null, "Canceled", System.currentTimeMillis() - start),
+                    State.CANCELED, progress);
+            return true;
+        }
+        try {
+            permits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+        if (progress.cancelled) {
+            // canceled while waiting for a permit
+            permits.release();
+            report(new StoreResult(storeId, false, null, "Canceled", System.currentTimeMillis() - start),
+                    State.CANCELED, progress);
+            return true;
+        }
+        tracker.update(State.IN_FLIGHT, retry + 1, tracker.message);
+        CompletableFuture<Location> call;
+        try {
+            call = sender.setAvailability(storeId, isOpen);
+        } catch (RuntimeException e) {
+            call = new CompletableFuture<>();
+            call.completeExceptionally(e);
+        }
+        call.whenComplete((location, e) -> {
+            permits.release();
+            try {
+                onCallComplete(storeId, isOpen, retry, previousDelay, start, progress, location, e);
+            } catch (RuntimeException unexpected) {
+                logger.error("Failed to handle the result of a call | StoreId: " + storeId, unexpected);
+                report(new StoreResult(storeId, false, null, "Unexpected error: " + unexpected,
+                        System.currentTimeMillis() - start), State.FAILED, progress);
+            }
+        });
+        return true;
+    }
+
+    /**
+     * Reports the store, or schedules its retry. Runs on the thread that completed the call.
+     */
+    private void onCallComplete(String storeId, boolean isOpen, int retry, long previousDelay, long start, Progress progress,
+                                Location location, Throwable e) {
+        final Tracker tracker = progress.trackers.get(storeId);
+        if (e == null && location == null) {
+            e = new ClientException("The PayPal Merchant SDK returned no Location");
+        }
+        if (e == null) {
+            report(new StoreResult(storeId, true, location, location.isOpen() ? "Open" : "Closed",
+                    System.currentTimeMillis() - start), State.SUCCEEDED, progress);
+        } else if (progress.retryPolicy != null && retry < progress.retryPolicy.getMaxRetries() && !progress.cancelled) {
+            long delay = progress.retryPolicy.getDelay(retry + 1, previousDelay);
+            logger.info("Failed to set availability | StoreId: " + storeId + " | Retry #" + (retry + 1) +
+                    " in " + delay + " seconds");
+            tracker.scheduleRetry(getMessage(e), () -> {
+                try {
+                    dispatcher.execute(() -> attempt(storeId, isOpen, retry + 1, delay, start, progress));
+                } catch (RejectedExecutionException rejected) {
+                    report(new StoreResult(storeId, false, null, "Canceled", System.currentTimeMillis() - start),
+                            State.CANCELED, progress);
+                }
+            }, delay);
+            if (progress.cancelled) {
+                // canceled after the check above; cancel() may have missed this retry
+                cancelRetry(tracker, progress);
+            }
+        } else {
+            logger.error("Failed to set availability | StoreId: " + storeId);
+            report(new StoreResult(storeId, false, null, getMessage(e), System.currentTimeMillis() - start),
+                    State.FAILED, progress);
+        }
+    }
+
+    /**
+     * Reports the final result of a store. A store that was already reported is ignored.
+     */
+    private void report(StoreResult result, State state, Progress progress) {
+        Tracker tracker = progress.trackers.get(result.getStoreId());
+        if (!tracker.finish(state, result.getMessage())) {
+            return;
+        }
+        if (journal != null) {
+            journal.recordDone(result.getStoreId(), progress.isOpen);
+        }
+        if (!result.isSuccessful()) {
+            progress.failed.incrementAndGet();
+        }
+        int done = progress.completed.incrementAndGet();
+        if (done == progress.total) {
+            running.remove(progress);
+        }
+        try {
+            progress.listener.onStoreResult(result);
+            progress.listener.onProgress(done, progress.failed.get(), progress.total);
+            if (done == progress.total) {
+                progress.listener.onFinished(done, progress.failed.get(), progress.total);
+            }
+        } catch (Exception e) {
+            logger.error("ProgressListener failed", e);
+        }
+    }
+
+    private static String getMessage(Throwable e) {
+        while (!(e instanceof ClientException) && e.getCause() != null) {
+            e = e.getCause();
+        }
+        return e.getMessage();
+    }
+
+    /**
+     * Stores that have not been started yet, or are waiting for a retry, are reported as canceled at once.
+     * Calls in flight complete and are reported.
+     */
+    @Override
+    public void cancel() {
+        logger.info("Canceling fleet availability update");
+        for (Progress progress : running) {
+            progress.cancelled = true;
+            for (Tracker tracker : progress.trackers.values()) {
+                cancelRetry(tracker, progress);
+            }
+        }
+    }
+
+    private void cancelRetry(Tracker tracker, Progress progress) {
+        if (tracker.cancelRetry()) {
+            report(new StoreResult(tracker.storeId, false, null, "Canceled", System.currentTimeMillis() - progress.start),
+                    State.CANCELED, progress);
+        }
+    }
+
+    @Override
+    public boolean retryNow(String storeId) {
+        Tracker tracker = current.trackers.get(storeId);
+        if (tracker != null && tracker.retryNow()) {
+            logger.info("Retrying now | StoreId: " + storeId);
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    public int retryAllNow() {
+        int retried = 0;
+        for (Tracker tracker : current.trackers.values()) {
+            if (tracker.retryNow()) {
+                retried++;
+            }
+        }
+        logger.info("Retrying " + retried + " stores now");
+        return retried;
+    }
+
+    @Override
+    public int getTotal() {
+        return current.total;
+    }
+
+    @Override
+    public int getCompleted() {
+        return current.completed.get();
+    }
+
+    @Override
+    public int getFailed() {
+        return current.failed.get();
+    }
+
+    @Override
+    public int getPendingRetryCount() {
+        return getStoreStateCounts().getOrDefault(State.RETRY_WAIT.name(), 0);
+    }
+
+    @Override
+    public Map<String, Integer> getStoreStateCounts() {
+        Map<String, Integer> counts = new TreeMap<>();
+        for (Tracker tracker : current.trackers.values()) {
+            counts.merge(tracker.state.name(), 1, Integer::sum);
+        }
+        return counts;
+    }
+
+    @Override
+    public List<StoreState> getStores() {
+        List<StoreState> stores = new ArrayList<>();
+        for (Tracker tracker : current.trackers.values()) {
+            stores.add(tracker.toStoreState());
+        }
+        return stores;
+    }
+
+    @Override
+    public StoreState getStore(String storeId) {
+        Tracker tracker = current.trackers.get(storeId);
+        return tracker != null ? tracker.toStoreState() : null;
+    }
+
+    /**
+     * Stops the dispatcher thread. The updater cannot be used afterwards.
+     */
+    public void shutdown() {
+        cancel();
+        dispatcher.shutdownNow();
+        MBeans.unregister("FleetAvailabilityUpdater", mbeanName);
+    }
+
+    /**
+     * Running totals of one fleet update
+     */
+    private static class Progress {
+        private final ProgressListener listener;
+        private final int total;
+        private final boolean isOpen;
+        private final RetryPolicy retryPolicy;
+        private final Map<String, Tracker> trackers = new LinkedHashMap<>();
+        private final AtomicInteger completed = new AtomicInteger();
+        private final AtomicInteger failed = new AtomicInteger();
+        private final long start = System.currentTimeMillis();
+        private volatile boolean cancelled;
+
+        Progress(ProgressListener listener, List<String> storeIds, boolean isOpen, RetryPolicy retryPolicy) {
+            this.listener = listener;
+            this.total = storeIds.size();
+            this.isOpen = isOpen;
+            this.retryPolicy = retryPolicy;
+            for (String storeId : storeIds) {
+                trackers.put(storeId, new Tracker(storeId));
+            }
+        }
+    }
+
+    /**
+     * The state of one store in a fleet update, and its pending retry if any
+     */
+    private static class Tracker {
+        private final String storeId;
+        private volatile State state = State.PENDING;
+        private volatile int attempts;
+        private volatile String message;
+        private ScheduledFuture<?> retryFuture;
+        private Runnable retry;
+
+        Tracker(String storeId) {
+            this.storeId = storeId;
+        }
+
+        synchronized void update(State state, int attempts, String message) {
+            this.state = state;
+            this.attempts = attempts;
+            this.message = message;
+            this.retry = null;
+            this.retryFuture = null;
+        }
+
+        /**
+         * Sets the final state of the store
+         *
+         * @return false if the store already has a final state
+         */
+        synchronized boolean finish(State state, String message) {
+            if (this.state == State.SUCCEEDED || this.state == State.FAILED || this.state == State.CANCELED) {
+                return false;
+            }
+            update(state, attempts, message);
+            return true;
+        }
+
+        synchronized void scheduleRetry(String message, Runnable retry, long delaySeconds) {
+            update(State.RETRY_WAIT, attempts, message);
+            this.retry = retry;
+            this.retryFuture = SharedTimerService.INSTANCE.schedule(retry, delaySeconds, TimeUnit.SECONDS);
+        }
+
+        /**
+         * Drops the pending retry if its timer has not fired yet
+         *
+         * @return false if there was no retry to drop
+         */
+        synchronized boolean cancelRetry() {
+            if (state != State.RETRY_WAIT || retryFuture == null || !retryFuture.cancel(false)) {
+                return false;
+            }
+            retry = null;
+            retryFuture = null;
+            return true;
+        }
+
+        /**
+         * Runs the pending retry now if its timer has not fired yet
+         */
+        boolean retryNow() {
+            Runnable toRun;
+            synchronized (this) {
+                if (state != State.RETRY_WAIT || retryFuture == null || !retryFuture.cancel(false)) {
+                    return false;
+                }
+                toRun = retry;
+                retry = null;
+                retryFuture = null;
+            }
+            toRun.run();
+            return true;
+        }
+
+        StoreState toStoreState() {
+            return new StoreState(storeId, state.name(), attempts, message);
+        }
+    }
+
+    /**
+     * Where a store is in a fleet update
+     */
+    public enum State {
+        PENDING, IN_FLIGHT, RETRY_WAIT, SUCCEEDED, FAILED, CANCELED
+    }
+
+    /**
+     * Snapshot of one store in a fleet update, as shown over JMX
+     */
+    public static class StoreState {
+        private final String storeId;
+        private final String state;
+        private final int attempts;
+        private final String message;
+
+        @ConstructorProperties({"storeId", "state", "attempts", "message"})
+        public StoreState(String storeId, String state, int attempts, String message) {
+            this.storeId = storeId;
+            this.state = state;
+            this.attempts = attempts;
+            this.message = message;
+        }
+
+        public String getStoreId() {
+            return storeId;
+        }
+
+        /** One of the {@link State} names */
+        public String getState() {
+            return state;
+        }
+
+        /** Number of calls made for the store, including retries */
+        public int getAttempts() {
+            return attempts;
+        }
+
+        /** The result or the last error */
+        public String getMessage() {
+            return message;
+        }
+    }
+
+    /**
+     * Receives the results of a fleet update. Methods are called from SDK worker threads.
+     */
+    public interface ProgressListener {
+        public void onStoreResult(StoreResult result);
+        public void onProgress(int completed, int failed, int total);
+        public void onFinished(int completed, int failed, int total);
+    }
+
+    /**
+     * The outcome of setting the availability of a single store
+     */
+    public static class StoreResult {
+        private final String storeId;
+        private final boolean successful;
+        private final Location location;
+        private final String message;
+        private final long elapsedMillis;
+
+        public StoreResult(String storeId, boolean successful, Location location, String message, long elapsedMillis) {
+            this.storeId = storeId;
+            this.successful = successful;
+            this.location = location;
+            this.message = message;
+            this.elapsedMillis = elapsedMillis;
+        }
+
+        public String getStoreId() {
+            return storeId;
+        }
+
+        public boolean isSuccessful() {
+            return successful;
+        }
+
+        public Location getLocation() {
+            return location;
+        }
+
+        public String getMessage() {
+            return message;
+        }
+
+        public long getElapsedMillis() {
+            return elapsedMillis;
+        }
+    }
+}
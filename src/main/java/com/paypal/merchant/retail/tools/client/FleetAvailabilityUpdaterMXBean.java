@@ -0,0 +1,46 @@
+package com.paypal.merchant.retail.tools.client;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * JMX view of the latest update of a {@link FleetAvailabilityUpdater}, with the operations to steer it
+ */
+public interface FleetAvailabilityUpdaterMXBean {
+    public int getMaxConcurrent();
+
+    /** Number of stores in the latest update */
+    public int getTotal();
+
+    public int getCompleted();
+
+    public int getFailed();
+
+    /** Number of stores waiting for an automatic retry */
+    public int getPendingRetryCount();
+
+    /** Number of stores of the latest update in each state */
+    public Map<String, Integer> getStoreStateCounts();
+
+    public List<FleetAvailabilityUpdater.StoreState> getStores();
+
+    /** @return The store's state in the latest update, or null if it is not part of it */
+    public FleetAvailabilityUpdater.StoreState getStore(String storeId);
+
+    /** Stores that have not been started yet, or are waiting for a retry, are reported as canceled */
+    public void cancel();
+
+    /**
+     * Retries a store now instead of waiting for the rest of its retry delay
+     *
+     * @return false if the store is not waiting for a retry
+     */
+    public boolean retryNow(String storeId);
+
+    /**
+     * Retries every store waiting for a retry now
+     *
+     * @return The number of stores retried
+     */
+    public int retryAllNow();
+}
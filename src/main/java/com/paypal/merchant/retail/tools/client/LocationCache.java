@@ -0,0 +1,99 @@
+package com.paypal.merchant.retail.tools.client;
+
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import com.paypal.merchant.retail.sdk.contract.entities.Location;
+import com.paypal.merchant.retail.tools.exception.ClientException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Caches the SDK Location of each store.
+ *
+ * <p>An entry older than the TTL is still returned while a GetLocation refresh runs in the
+ * background. Only entries older than the max stale time (or never loaded) block the caller.
+ * A Location returned by SetLocationAvailability replaces the cached entry.
+ */
+class LocationCache {
+    private static Logger logger = LoggerFactory.getLogger(LocationCache.class);
+
+    private final LoadingCache<String, Location> cache;
+
+    LocationCache(long ttlSeconds, long maxStaleSeconds, long maxEntries, final LocationLoader loader) {
+        CacheLoader<String, Location> cacheLoader = new CacheLoader<String, Location>() {
+            @Override
+            public Location load(String storeId) throws Exception {
+                logger.debug("Loading Location into cache | StoreId: " + storeId);
+                return loader.load(storeId);
+            }
+        };
+
+        cache = CacheBuilder.newBuilder()
+                .maximumSize(maxEntries)
+                .refreshAfterWrite(ttlSeconds, TimeUnit.SECONDS)
+                .expireAfterWrite(Math.max(ttlSeconds, maxStaleSeconds), TimeUnit.SECONDS)
+                .build(CacheLoader.asyncReloading(cacheLoader, Executors.newFixedThreadPool(2,
+                        new ThreadFactoryBuilder().setNameFormat("location-cache-refresh-%d").setDaemon(true).build())));
+    }
+
+    /**
+     * Returns the cached Location, loading it if it is missing or too stale to serve
+     *
+     * @param storeId - The store to look up
+     * @return Location
+     * @throws ClientException
+     */
+    Location get(String storeId) throws ClientException {
+        try {
+            return cache.get(storeId);
+        } catch (ExecutionException | UncheckedExecutionException e) {
+            if (e.getCause() instanceof ClientException) {
+                throw (ClientException) e.getCause();
+            }
+            throw new ClientException(e.getCause() != null ? e.getCause().getMessage() : e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Returns the cached Location without loading it. A stale entry is still returned and
+     * a background refresh is started for it.
+     *
+     * @return Location or null if the store is not cached
+     */
+    Location getIfPresent(String storeId) {
+        return cache.getIfPresent(storeId);
+    }
+
+    /**
+     * Replaces the cached Location with a fresher one
+     */
+    void put(String storeId, Location location) {
+        if (location != null) {
+            cache.put(storeId, location);
+        } else {
+            cache.invalidate(storeId);
+        }
+    }
+
+    void invalidate(String storeId) {
+        cache.invalidate(storeId);
+    }
+
+    void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    /**
+     * Loads the Location of a store from the SDK
+     */
+    interface LocationLoader {
+        Location load(String storeId) throws ClientException;
+    }
+}
@@ -1,33 +1,61 @@
 package com.paypal.merchant.retail.tools.client;
 
-import com.paypal.merchant.retail.log4jLogger.LogManager;
-import com.paypal.merchant.retail.sdk.contract.PayPalMerchantRetailSDK;
 import com.paypal.merchant.retail.sdk.contract.commands.*;
 import com.paypal.merchant.retail.sdk.contract.entities.Location;
-import com.paypal.merchant.retail.sdk.internal.commands.PayPalMerchantRetailSDKImpl;
 import com.paypal.merchant.retail.tools.exception.ClientException;
+import com.paypal.merchant.retail.tools.exception.RequestRejectedException;
 import com.paypal.merchant.retail.tools.util.CallableWithTimeout;
 import com.paypal.merchant.retail.tools.util.PropertyManager;
+import com.paypal.merchant.retail.tools.util.SingleFlight;
+import org.apache.commons.io.IOUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import javax.xml.transform.Source;
-import javax.xml.transform.stream.StreamSource;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
 
 /**
  * Created by Paolo on 7/23/2014.
  *
+ * <p>A single SDK instance is created from Config.xml and shared by every store. The CommandBuilder
+ * for each &lt;Store&gt; is built lazily the first time that store is used and then cached,
+ * so one console can manage every store in Config.xml.
+ *
+ * <p>Every call goes through the {@link CircuitBreaker} of the Config.xml service it uses
+ * (sdk.circuit.service.[command], hereAPIService by default), so a service that is down fails fast
+ * instead of holding a thread for the full timeout. A store that is not in Config.xml fails before the
+ * circuit is asked, and an error the service answers with is a {@link RequestRejectedException} unless its
+ * code is listed in sdk.circuit.failure.error.codes, so the errors of a few stores do not open the circuit.
+ *
+ * <p>Concurrent GetLocation calls for the same store share a single SDK call.
+ *
+ * <p>{@link #reloadConfig()} swaps in a new SDK instance when Config.xml changes. The timeout and the
+ * default store id are read from the properties on every call, so they follow a properties reload.
  */
 public enum SdkClient {
     INSTANCE;
     private Logger logger = LoggerFactory.getLogger(this.getClass());
-    private CommandBuilder commandBuilder;
-    private String locationId;
-    private final String STORE_ID = PropertyManager.INSTANCE.getProperty("sdk.store.id");
-    private final long TIMEOUT_INTERVAL = PropertyManager.INSTANCE.getProperty("sdk.service.timeout.seconds", 30);
+    private volatile StoreRegistry storeRegistry;
+    private LocationCache locationCache;
+    private final ConcurrentMap<String, CircuitBreaker> circuitBreakers = new ConcurrentHashMap<>();
+    private final SingleFlight<String, Location> locationReads = new SingleFlight<>();
+    public static final String CONFIG_FILE = "Config.xml";  //on the classpath, or -DConfig.xml=/path/to/Config.xml
     private final TimeUnit TIMEOUT_UNIT = TimeUnit.SECONDS;
+    private final long CACHE_TTL_SECONDS = PropertyManager.INSTANCE.getProperty("sdk.location.cache.ttl.seconds", 60L);
+    private final long CACHE_MAX_STALE_SECONDS = PropertyManager.INSTANCE.getProperty("sdk.location.cache.max.stale.seconds", 600L);
+    private final long CACHE_MAX_ENTRIES = PropertyManager.INSTANCE.getProperty("sdk.location.cache.max.entries", 1000L);
 
     private SdkClient() {
         try {
@@ -39,20 +67,13 @@ public enum SdkClient {
 
     private boolean initialize() throws ClientException {
         try {
-            logger.debug("Loading Config.xml for PayPal Merchant SDK");
-            Source sdkConfig = new StreamSource(this.getClass().getClassLoader().getResourceAsStream("Config.xml"));
-
-            logger.info("Creating new instance of PayPalMerchantRetailSDKImpl | StoreId: " + STORE_ID);
-            PayPalMerchantRetailSDKImpl sdkImpl =(PayPalMerchantRetailSDKImpl) PayPalMerchantRetailSDK.newInstance(sdkConfig);
+            if (CACHE_TTL_SECONDS > 0) {
+                locationCache = new LocationCache(CACHE_TTL_SECONDS, CACHE_MAX_STALE_SECONDS, CACHE_MAX_ENTRIES,
+                        this::fetchSdkLocation);
+            }
 
-            sdkImpl.registerLogManager(LogManager.newInstance());
-            logger.info("Successfully created a new instance of PayPalMerchantRetailSDKImpl | StoreId: " + STORE_ID);
-
-            locationId = sdkImpl.getSdkConfig().getStoreConfig(STORE_ID).getLocationId();
-
-            CommandBuilderContext builderContext = CommandBuilderContext.newInstance();
-            builderContext.setStoreId(STORE_ID);
-            commandBuilder = sdkImpl.newCommandBuilder(builderContext);
+            logger.debug("Loading Config.xml for PayPal Merchant SDK");
+            storeRegistry = new StoreRegistry(readConfig());
 
             logger.debug("Finished initializing SdkClient");
             return true;
@@ -62,91 +83,414 @@ public enum SdkClient {
         }
     }
 
+    private byte[] readConfig() throws ClientException, IOException {
+        // Allow the definition of the Config.xml via command line (-DConfig.xml=/path/to/Config.xml)
+        if (System.getProperty(CONFIG_FILE) != null) {
+            return Files.readAllBytes(Paths.get(System.getProperty(CONFIG_FILE)));
+        }
+        try (InputStream inputStream = this.getClass().getClassLoader().getResourceAsStream(CONFIG_FILE)) {
+            if (inputStream == null) {
+                throw new ClientException("Config.xml could not be found on the classpath.");
+            }
+            return IOUtils.toByteArray(inputStream);
+        }
+    }
+
     /**
-     * Returns SDK Merchant Location object
+     * Reads Config.xml again and swaps in a new SDK instance and store list if it is valid.
+     * Calls already in flight finish with the store state they started with; cached Locations are discarded.
+     *
+     * @throws ClientException if the new Config.xml is invalid; the previous SDK instance stays in use
+     */
+    public void reloadConfig() throws ClientException {
+        StoreRegistry newRegistry;
+        try {
+            newRegistry = new StoreRegistry(readConfig());
+        } catch (IOException e) {
+            throw new ClientException("Failed to read Config.xml: " + e.getMessage(), e);
+        }
+        if (newRegistry.getStoreIds().isEmpty()) {
+            throw new ClientException("Config.xml defines no <Store>");
+        }
+        if (!newRegistry.getStoreIds().contains(getDefaultStoreId())) {
+            logger.warn("Config.xml has no <Store> for the default store id: " + getDefaultStoreId());
+        }
+        storeRegistry = newRegistry;
+        if (locationCache != null) {
+            locationCache.invalidateAll();
+        }
+        logger.info("Reloaded Config.xml | Stores: " + newRegistry.getStoreIds().size());
+    }
+
+    /**
+     * Returns the Config.xml file in use, or null if it is not a file on disk (e.g. inside a jar)
+     */
+    public Path getConfigPath() {
+        return PropertyManager.getFilePath(CONFIG_FILE);
+    }
+
+    /**
+     * Forgets the circuit breakers so they are rebuilt with the current properties.
+     * Called after the properties are reloaded; the recorded calls are lost.
+     */
+    public void resetCircuitBreakers() {
+        circuitBreakers.clear();
+    }
+
+    /**
+     * Returns the store id configured by sdk.store.id, used when no store id is given
+     */
+    public String getDefaultStoreId() {
+        return PropertyManager.INSTANCE.getProperty("sdk.store.id");
+    }
+
+    /**
+     * Number of seconds before an SDK call times out (sdk.service.timeout.seconds)
+     */
+    private long getTimeout() {
+        return PropertyManager.INSTANCE.getProperty("sdk.service.timeout.seconds", 30L);
+    }
+
+    /**
+     * Returns every store id defined in Config.xml
+     *
+     * @return List of store ids
+     * @throws ClientException
+     */
+    public List<String> getStoreIds() throws ClientException {
+        return getStoreRegistry().getStoreIds();
+    }
+
+    /**
+     * Returns the SDK state for a store, building its CommandBuilder on first use
+     *
+     * @param storeId - Must match a &lt;Store id="XXXX"&gt; entry in the Config.xml
+     * @return StoreContext
+     * @throws ClientException
+     */
+    public StoreContext getStore(String storeId) throws ClientException {
+        return getStoreRegistry().getStore(storeId);
+    }
+
+    /**
+     * Returns the circuit breaker of the Config.xml service used by a command
+     *
+     * @param commandType - The command name, e.g. GetLocation
+     * @return CircuitBreaker
+     */
+    public CircuitBreaker getCircuitBreaker(String commandType) {
+        String serviceId = PropertyManager.INSTANCE.getProperty("sdk.circuit.service." + commandType, "hereAPIService");
+        return circuitBreakers.computeIfAbsent(serviceId, CircuitBreaker::forService);
+    }
+
+    /**
+     * Returns the circuit breakers of every service that has been called
+     */
+    public List<CircuitBreaker> getCircuitBreakers() {
+        return new ArrayList<>(circuitBreakers.values());
+    }
+
+    /**
+     * Returns SDK Merchant Location object for the default store
      *
      * @return Location Object
      * @throws ClientException
      */
     public Location getSdkLocation() throws ClientException {
+        return getSdkLocation(getDefaultStoreId());
+    }
+
+    /**
+     * Returns SDK Merchant Location object. A cached Location is returned when one is available;
+     * a stale one is returned while it is refreshed in the background.
+     *
+     * @param storeId - The store to look up
+     * @return Location Object
+     * @throws ClientException
+     */
+    public Location getSdkLocation(String storeId) throws ClientException {
+        if (locationCache == null) {
+            return fetchSdkLocation(storeId);
+        }
+        return locationCache.get(storeId);
+    }
+
+    /**
+     * Non-blocking form of {@link #getSdkLocation(String)}. A cached Location completes the future
+     * immediately; otherwise the GetLocation call runs on the shared timeout executor.
+     *
+     * @param storeId - The store to look up
+     * @return Future completed with the Location, or exceptionally with a ClientException
+     */
+    public CompletableFuture<Location> getSdkLocationAsync(String storeId) {
+        if (locationCache != null) {
+            Location location = locationCache.getIfPresent(storeId);
+            if (location != null) {
+                return CompletableFuture.completedFuture(location);
+            }
+        }
+        return fetchSdkLocationAsync(storeId)
+                .whenComplete((location, e) -> {
+                    if (e == null && locationCache != null) {
+                        locationCache.put(storeId, location);
+                    }
+                });
+    }
+
+    /**
+     * Discards any cached Location and gets the current one from the SDK
+     *
+     * @param storeId - The store to look up
+     * @return Location Object
+     * @throws ClientException
+     */
+    public Location refreshSdkLocation(String storeId) throws ClientException {
+        if (locationCache != null) {
+            locationCache.invalidate(storeId);
+        }
+        return getSdkLocation(storeId);
+    }
+
+    /**
+     * Calls out to the SDK for the Location, bypassing the cache
+     */
+    private Location fetchSdkLocation(String storeId) throws ClientException {
         try {
-            Callable<Location> callable = () -> {
-                logger.info("Calling out to the PayPal Merchant SDK: GetLocationRequest");
-                GetLocationRequest request = GetLocationRequest.newInstance();
-                request.setLookUpType(GetLocationRequest.IdLookUpType.LocationId);
-                request.setId(locationId);
-                GetLocationCommand command = commandBuilder.build(request);
-                executeCommand(command);
-                GetLocationResponse response = command.getResponse();
-                return response.getLocation();
-            };
-
-            CallableWithTimeout<Location> callableWithTimeout = new CallableWithTimeout<>(callable,
-                    TIMEOUT_INTERVAL,
-                    TIMEOUT_UNIT);
-            return callableWithTimeout.call();
-        } catch (Exception e) {
-            logger.error("Unknown exception: ", e);
+            return fetchSdkLocationAsync(storeId).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
             throw new ClientException("Failed PayPal Merchant SDK: GetLocationRequest: " + e.getMessage(), e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause() != null ? e.getCause() : e;
+            throw new ClientException("Failed PayPal Merchant SDK: GetLocationRequest: " + cause.getMessage(),
+                    cause instanceof Exception ? (Exception) cause : e);
         }
     }
 
     /**
-     * Sets the Location to the desired state (Open or Closed)
+     * Calls out to the SDK for the Location, bypassing the cache. Joins the GetLocation call
+     * already in flight for the store if there is one.
+     */
+    private CompletableFuture<Location> fetchSdkLocationAsync(String storeId) {
+        return locationReads.execute("GetLocation:" + storeId, () -> callAsync("GetLocation", storeId, this::newGetLocationCallable)
+                .whenComplete((location, e) -> {
+                    if (e != null) {
+                        logger.error("Failed PayPal Merchant SDK: GetLocationRequest | StoreId: " + storeId + ": " + e.getMessage());
+                    }
+                }));
+    }
+
+    /**
+     * Sets the Location of the default store to the desired state (Open or Closed)
      *
      * @param sdkLocation - The Location to update
      * @param isOpen - The desired state (true=Open, false=Closed)
      * @throws ClientException
      */
     public Location setLocationAvailability(Location sdkLocation, boolean isOpen) throws ClientException {
+        return setLocationAvailability(getDefaultStoreId(), sdkLocation, isOpen);
+    }
+
+    /**
+     * Sets the Location to the desired state (Open or Closed)
+     *
+     * @param storeId - The store that owns the Location
+     * @param sdkLocation - The Location to update
+     * @param isOpen - The desired state (true=Open, false=Closed)
+     * @throws ClientException
+     */
+    public Location setLocationAvailability(String storeId, Location sdkLocation, boolean isOpen) throws ClientException {
         try {
-            Callable<Location> callable = () -> {
-
-                boolean test = true;
-                while(test) {
-                    // do nothing
-                }
-                logger.info("Calling out to the PayPal Merchant SDK: SetLocationAvailabilityRequest");
-                logger.info("Setting isOpen to: " + isOpen);
-
-                SetLocationAvailabilityRequest request = SetLocationAvailabilityRequest.newInstance();
-                request.setOpen(isOpen);
-                request.setId(sdkLocation.getId());
-                SetLocationAvailabilityCommand command = commandBuilder.build(request);
-                executeCommand(command);
-
-                logger.info("Successfully set location availability to " + (isOpen ? "OPEN" : "CLOSED") + " for " + sdkLocation.getId());
-                SetLocationAvailabilityResponse response = command.getResponse();
-                return response.getLocation();
-            };
-
-            CallableWithTimeout<Location> callableWithTimeout = new CallableWithTimeout<>(callable,
-                    TIMEOUT_INTERVAL,
-                    TIMEOUT_UNIT);
-            return callableWithTimeout.call();
+            Location location = call("SetLocationAvailability", storeId,
+                    store -> newSetLocationAvailabilityCallable(store, sdkLocation, isOpen));
+            if (locationCache != null) {
+                locationCache.put(storeId, location);
+            }
+            return location;
 
         } catch (Exception e) {
+            // the call may still have reached the service, so the cached availability can no longer be trusted
+            if (locationCache != null) {
+                locationCache.invalidate(storeId);
+            }
             logger.error("Failed PayPal Merchant SDK: SetLocationAvailabilityRequest: ", e);
             throw new ClientException("Failed PayPal Merchant SDK: SetLocationAvailabilityRequest: " + e.getMessage(), e);
         }
     }
 
     /**
-     * Method that generically executes a command and throws an exception if error info is present
+     * Non-blocking form of {@link #setLocationAvailability(String, Location, boolean)}
+     *
+     * @param storeId - The store that owns the Location
+     * @param sdkLocation - The Location to update
+     * @param isOpen - The desired state (true=Open, false=Closed)
+     * @return Future completed with the updated Location, or exceptionally with a ClientException
+     */
+    public CompletableFuture<Location> setLocationAvailabilityAsync(String storeId, Location sdkLocation, boolean isOpen) {
+        return callAsync("SetLocationAvailability", storeId, store -> newSetLocationAvailabilityCallable(store, sdkLocation, isOpen))
+                .whenComplete((location, e) -> {
+                    if (e != null) {
+                        logger.error("Failed PayPal Merchant SDK: SetLocationAvailabilityRequest | StoreId: " + storeId + ": " + e.getMessage());
+                    }
+                    if (locationCache != null) {
+                        locationCache.put(storeId, e == null ? location : null);
+                    }
+                });
+    }
+
+    /**
+     * Sets the Location of a store to the desired state, getting the Location first if needed
      *
+     * @param storeId - The store to update
+     * @param isOpen - The desired state (true=Open, false=Closed)
+     * @return Future completed with the updated Location, or exceptionally with a ClientException
+     */
+    public CompletableFuture<Location> setLocationAvailabilityAsync(String storeId, boolean isOpen) {
+        return getSdkLocationAsync(storeId)
+                .thenCompose(location -> setLocationAvailabilityAsync(storeId, location, isOpen));
+    }
+
+    private Callable<Location> newGetLocationCallable(StoreContext store) {
+        String storeId = store.getStoreId();
+        return () -> {
+            logger.info("Calling out to the PayPal Merchant SDK: GetLocationRequest | StoreId: " + storeId);
+            GetLocationRequest request = GetLocationRequest.newInstance();
+            request.setLookUpType(GetLocationRequest.IdLookUpType.LocationId);
+            request.setId(store.getLocationId());
+            GetLocationCommand command = store.getCommandBuilder().build(request);
+            executeCommand("GetLocation", storeId, command);
+            GetLocationResponse response = command.getResponse();
+            return response.getLocation();
+        };
+    }
+
+    private Callable<Location> newSetLocationAvailabilityCallable(StoreContext store, Location sdkLocation, boolean isOpen) {
+        String storeId = store.getStoreId();
+        return () -> {
+            logger.info("Calling out to the PayPal Merchant SDK: SetLocationAvailabilityRequest | StoreId: " + storeId);
+            logger.info("Setting isOpen to: " + isOpen);
+
+            SetLocationAvailabilityRequest request = SetLocationAvailabilityRequest.newInstance();
+            request.setOpen(isOpen);
+            request.setId(sdkLocation.getId());
+            SetLocationAvailabilityCommand command = store.getCommandBuilder().build(request);
+            executeCommand("SetLocationAvailability", storeId, command);
+
+            logger.info("Successfully set location availability to " + (isOpen ? "OPEN" : "CLOSED") + " for " + sdkLocation.getId());
+            SetLocationAvailabilityResponse response = command.getResponse();
+            return response.getLocation();
+        };
+    }
+
+    /**
+     * Runs the callable for a store with the SDK timeout, unless the circuit of the command's service is open.
+     * The store is looked up first; an unknown store says nothing about the service and is not recorded.
+     *
+     * @param callableFor - Builds the call for the store
+     */
+    private <T> T call(String commandType, String storeId, Function<StoreContext, Callable<T>> callableFor) throws ClientException {
+        Callable<T> callable = callableFor.apply(getStore(storeId));
+        CircuitBreaker circuitBreaker = getCircuitBreaker(commandType);
+        circuitBreaker.acquirePermission();
+        long start = System.nanoTime();
+        try {
+            T result = new CallableWithTimeout<>(callable, getTimeout(), TIMEOUT_UNIT).call();
+            circuitBreaker.onSuccess(System.nanoTime() - start);
+            return result;
+        } catch (ClientException e) {
+            circuitBreaker.onError(System.nanoTime() - start, e);
+            throw e;
+        }
+    }
+
+    /**
+     * Non-blocking form of {@link #call(String, String, Function)}
+     */
+    private <T> CompletableFuture<T> callAsync(String commandType, String storeId, Function<StoreContext, Callable<T>> callableFor) {
+        CircuitBreaker circuitBreaker = getCircuitBreaker(commandType);
+        Callable<T> callable;
+        try {
+            callable = callableFor.apply(getStore(storeId));
+            circuitBreaker.acquirePermission();
+        } catch (ClientException e) {
+            CompletableFuture<T> failed = new CompletableFuture<>();
+            failed.completeExceptionally(e);
+            return failed;
+        }
+        long start = System.nanoTime();
+        return new CallableWithTimeout<>(callable, getTimeout(), TIMEOUT_UNIT)
+                .callAsync()
+                .whenComplete((result, e) -> {
+                    if (e == null) {
+                        circuitBreaker.onSuccess(System.nanoTime() - start);
+                    } else {
+                        circuitBreaker.onError(System.nanoTime() - start, e);
+                    }
+                });
+    }
+
+    private StoreRegistry getStoreRegistry() throws ClientException {
+        StoreRegistry registry = storeRegistry;
+        if (registry == null) {
+            throw new ClientException("SdkClient is not initialized. Check Config.xml");
+        }
+        return registry;
+    }
+
+    /**
+     * Method that generically executes a command and throws an exception if it did not succeed.
+     * The time spent and the result are recorded in the {@link CommandMetrics}.
+     *
+     * @param commandType The command type the metrics are kept under, e.g. GetLocation
+     * @param storeId The store the command is sent for
      * @param command The command to execute
      * @throws ClientException
      */
-    private void executeCommand(Command command) throws ClientException {
-        CommandResult result = command.execute();
+    void executeCommand(String commandType, String storeId, Command command) throws ClientException {
+        long start = System.nanoTime();
+        CommandResult result;
+        try {
+            result = command.execute();
+        } catch (RuntimeException e) {
+            CommandMetrics.INSTANCE.record(commandType, storeId, System.nanoTime() - start, "Exception", e.getClass().getSimpleName());
+            throw e;
+        }
+        long elapsedNanos = System.nanoTime() - start;
         ErrorInfo errorInfo = command.getErrorInfo();
-        logger.info(command.getClass().getSimpleName() + " Result: " + result.name());
+        String errorCode = result != CommandResult.Success && errorInfo != null && errorInfo.getCode() != null ?
+                errorInfo.getCode().name() : null;
+        CommandMetrics.INSTANCE.record(commandType, storeId, elapsedNanos, result.name(), errorCode);
+        logger.info(command.getClass().getSimpleName() + " Result: " + result.name() + " | StoreId: " + storeId +
+                " | " + TimeUnit.NANOSECONDS.toMillis(elapsedNanos) + " ms");
         if (result != CommandResult.Success && errorInfo != null && errorInfo.getData().size() > 0) {
             logger.error(command.getClass().getSimpleName() + ": Error Code: " + errorInfo.getCode().name());
             logger.error(command.getClass().getSimpleName() + ": Error ID: " + errorInfo.getData().get(0).getErrorId());
             logger.error(command.getClass().getSimpleName() + ": Error Msg: " + errorInfo.getData().get(0).getMessage());
-            throw new ClientException(errorInfo.getData().get(0).getMessage());
+            if (isServiceFailure(errorCode)) {
+                throw new ClientException(errorInfo.getData().get(0).getMessage());
+            }
+            throw new RequestRejectedException(errorInfo.getData().get(0).getMessage());
+        }
+        if (result != CommandResult.Success) {
+            // without error details the response has no result either
+            throw new ClientException(command.getClass().getSimpleName() + " returned " + result.name() + " without error details");
+        }
+    }
+
+    /**
+     * Whether an error code the service answered with means the service itself failed
+     * (sdk.circuit.failure.error.codes) rather than that it rejected the request
+     */
+    private static boolean isServiceFailure(String errorCode) {
+        if (errorCode == null) {
+            return false;
+        }
+        for (String code : PropertyManager.INSTANCE.getProperty("sdk.circuit.failure.error.codes", "ServiceError").split(",")) {
+            if (code.trim().equals(errorCode)) {
+                return true;
+            }
         }
+        return false;
     }
 
 //    /**
@@ -0,0 +1,31 @@
+package com.paypal.merchant.retail.tools.client;
+
+import com.paypal.merchant.retail.sdk.contract.commands.CommandBuilder;
+
+/**
+ * Per-store SDK state: the Store id from Config.xml, its Location id and the
+ * CommandBuilder that was built for it.
+ */
+public class StoreContext {
+    private final String storeId;
+    private final String locationId;
+    private final CommandBuilder commandBuilder;
+
+    StoreContext(String storeId, String locationId, CommandBuilder commandBuilder) {
+        this.storeId = storeId;
+        this.locationId = locationId;
+        this.commandBuilder = commandBuilder;
+    }
+
+    public String getStoreId() {
+        return storeId;
+    }
+
+    public String getLocationId() {
+        return locationId;
+    }
+
+    public CommandBuilder getCommandBuilder() {
+        return commandBuilder;
+    }
+}
@@ -0,0 +1,109 @@
+package com.paypal.merchant.retail.tools.client;
+
+import com.paypal.merchant.retail.log4jLogger.LogManager;
+import com.paypal.merchant.retail.sdk.contract.PayPalMerchantRetailSDK;
+import com.paypal.merchant.retail.sdk.contract.commands.CommandBuilder;
+import com.paypal.merchant.retail.sdk.contract.commands.CommandBuilderContext;
+import com.paypal.merchant.retail.sdk.internal.commands.PayPalMerchantRetailSDKImpl;
+import com.paypal.merchant.retail.tools.exception.ClientException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NodeList;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.transform.stream.StreamSource;
+import java.io.ByteArrayInputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Holds the single PayPal Merchant SDK instance created from Config.xml and a cache of
+ * StoreContext objects, one per &lt;Store&gt; entry.
+ *
+ * <p>Creating the SDK instance is expensive (~2s) so it is done once. The CommandBuilder for a
+ * store is only built the first time that store is used and is then reused for every call.
+ */
+class StoreRegistry {
+    private static Logger logger = LoggerFactory.getLogger(StoreRegistry.class);
+
+    private final PayPalMerchantRetailSDKImpl sdkImpl;
+    private final List<String> storeIds;
+    private final ConcurrentMap<String, StoreContext> stores = new ConcurrentHashMap<>();
+
+    StoreRegistry(byte[] sdkConfig) throws ClientException {
+        try {
+            storeIds = Collections.unmodifiableList(parseStoreIds(sdkConfig));
+
+            logger.info("Creating new instance of PayPalMerchantRetailSDKImpl | Stores: " + storeIds.size());
+            sdkImpl = (PayPalMerchantRetailSDKImpl) PayPalMerchantRetailSDK.newInstance(
+                    new StreamSource(new ByteArrayInputStream(sdkConfig)));
+            sdkImpl.registerLogManager(LogManager.newInstance());
+            logger.info("Successfully created a new instance of PayPalMerchantRetailSDKImpl");
+        } catch (ClientException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new ClientException("Failed to create PayPal Merchant SDK instance: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Returns the store ids defined in Config.xml, in document order
+     */
+    List<String> getStoreIds() {
+        return storeIds;
+    }
+
+    /**
+     * Returns the StoreContext for the given store id, building its CommandBuilder on first use
+     *
+     * @param storeId - Must match a &lt;Store id="XXXX"&gt; entry in the Config.xml
+     * @return StoreContext
+     * @throws ClientException
+     */
+    StoreContext getStore(String storeId) throws ClientException {
+        StoreContext store = stores.get(storeId);
+        if (store != null) {
+            return store;
+        }
+        try {
+            return stores.computeIfAbsent(storeId, this::newStoreContext);
+        } catch (IllegalStateException e) {
+            throw new ClientException(e.getMessage(), e);
+        }
+    }
+
+    private StoreContext newStoreContext(String storeId) {
+        try {
+            logger.info("Creating CommandBuilder | StoreId: " + storeId);
+            String locationId = sdkImpl.getSdkConfig().getStoreConfig(storeId).getLocationId();
+
+            CommandBuilderContext builderContext = CommandBuilderContext.newInstance();
+            builderContext.setStoreId(storeId);
+            CommandBuilder commandBuilder = sdkImpl.newCommandBuilder(builderContext);
+            return new StoreContext(storeId, locationId, commandBuilder);
+        } catch (Exception e) {
+            logger.error("Failed to create CommandBuilder | StoreId: " + storeId, e);
+            throw new IllegalStateException("Failed to create CommandBuilder for store " + storeId + ": " + e.getMessage(), e);
+        }
+    }
+
+    private static List<String> parseStoreIds(byte[] sdkConfig) throws ClientException {
+        try {
+            Document document = DocumentBuilderFactory.newInstance().newDocumentBuilder()
+                    .parse(new ByteArrayInputStream(sdkConfig));
+            NodeList storeNodes = document.getElementsByTagName("Store");
+            List<String> ids = new ArrayList<>(storeNodes.getLength());
+            for (int i = 0; i < storeNodes.getLength(); i++) {
+                ids.add(((Element) storeNodes.item(i)).getAttribute("id"));
+            }
+            return ids;
+        } catch (Exception e) {
+            throw new ClientException("Failed to read store ids from Config.xml: " + e.getMessage(), e);
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package com.paypal.merchant.retail.tools.controller;
+
+import com.paypal.merchant.retail.tools.util.RingBuffer;
+import javafx.collections.ObservableListBase;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The activity log shown on a pane: the latest entries, oldest first, as an observable list for a ListView.
+ *
+ * <p>Entries may be appended from any thread. They are queued and added to the list once per JavaFX pulse
+ * by the {@link UiUpdateDispatcher}, in a single change, so a burst of results from a fleet update is laid out once. The list holds at most
+ * capacity entries; the oldest are dropped to make room.
+ */
+public class ActivityLog extends ObservableListBase<ActivityLog.Entry> {
+    private static final DateTimeFormatter TIMESTAMP_FORMAT =
+            DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss").withZone(ZoneId.systemDefault());
+
+    private final RingBuffer<Entry> entries;
+    private final Queue<Entry> pending = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pendingCount = new AtomicInteger();
+    private final Runnable flush = this::flush;
+
+    public ActivityLog(int capacity) {
+        this.entries = new RingBuffer<>(capacity);
+    }
+
+    public void info(String storeId, String message) {
+        append(Level.INFO, storeId, message);
+    }
+
+    public void warn(String storeId, String message) {
+        append(Level.WARN, storeId, message);
+    }
+
+    public void error(String storeId, String message) {
+        append(Level.ERROR, storeId, message);
+    }
+
+    /**
+     * Queues an entry for the next pulse. May be called from any thread. No more than capacity
+     * entries are queued; if the FX thread falls behind, the oldest are dropped.
+     *
+     * @param storeId - The store the entry is about, or null
+     */
+    public void append(Level level, String storeId, String message) {
+        pending.add(new Entry(System.currentTimeMillis(), level, storeId, message));
+        if (pendingCount.incrementAndGet() > entries.capacity() && pending.poll() != null) {
+            pendingCount.decrementAndGet();
+        }
+        UiUpdateDispatcher.INSTANCE.submit(this, flush);
+    }
+
+    /**
+     * Adds the queued entries to the list as one change. Runs on the FX thread.
+     */
+    void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+        beginChange();
+        try {
+            Entry entry;
+            while ((entry = pending.poll()) != null) {
+                pendingCount.decrementAndGet();
+                Entry evicted = entries.add(entry);
+                if (evicted != null) {
+                    nextRemove(0, evicted);
+                }
+                nextAdd(entries.size() - 1, entries.size());
+            }
+        } finally {
+            endChange();
+        }
+    }
+
+    @Override
+    public Entry get(int index) {
+        return entries.get(index);
+    }
+
+    @Override
+    public int size() {
+        return entries.size();
+    }
+
+    public int getCapacity() {
+        return entries.capacity();
+    }
+
+    public enum Level {
+        INFO, WARN, ERROR
+    }
+
+    /**
+     * One line of the activity log
+     */
+    public static class Entry {
+        private final long timestamp;
+        private final Level level;
+        private final String storeId;
+        private final String message;
+
+        public Entry(long timestamp, Level level, String storeId, String message) {
+            this.timestamp = timestamp;
+            this.level = level;
+            this.storeId = storeId;
+            this.message = message;
+        }
+
+        public long getTimestamp() {
+            return timestamp;
+        }
+
+        public Level getLevel() {
+            return level;
+        }
+
+        public String getStoreId() {
+            return storeId;
+        }
+
+        public String getMessage() {
+            return message;
+        }
+
+        @Override
+        public String toString() {
+            return TIMESTAMP_FORMAT.format(Instant.ofEpochMilli(timestamp)) + " - " +
+                    (storeId != null ? storeId + ": " : "") + message;
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package com.paypal.merchant.retail.tools.controller;
+
+import javafx.scene.control.ListCell;
+
+/**
+ * Shows an {@link ActivityLog} entry, with warnings and errors in their own colors
+ */
+class ActivityLogCell extends ListCell<ActivityLog.Entry> {
+    @Override
+    protected void updateItem(ActivityLog.Entry entry, boolean empty) {
+        super.updateItem(entry, empty);
+        getStyleClass().removeAll("log-warn", "log-error");
+        if (empty || entry == null) {
+            setText(null);
+            return;
+        }
+        setText(entry.toString());
+        if (entry.getLevel() == ActivityLog.Level.WARN) {
+            getStyleClass().add("log-warn");
+        } else if (entry.getLevel() == ActivityLog.Level.ERROR) {
+            getStyleClass().add("log-error");
+        }
+    }
+}
@@ -5,6 +5,7 @@ import com.paypal.merchant.retail.tools.util.PropertyManager;
 import javafx.animation.Animation;
 import javafx.animation.KeyFrame;
 import javafx.animation.Timeline;
+import javafx.application.Platform;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
 import javafx.fxml.Initializable;
@@ -62,10 +63,13 @@ public class MainController implements Initializable, ManagedPane {
 
             paneManager = new PaneManager();
             paneManager.setId("rootPaneManager");
-            paneManager.loadPane(STORE_AVAILABILITY, STORE_AVAILABILITY_FXML);
-            paneManager.loadPane(PROCESS_REFUND, PROCESS_REFUND_FXML);
-            paneManager.setPane(STORE_AVAILABILITY);
             mainHBox.getChildren().add(paneManager);
+            // main.fxml may be loaded on a startup thread; the PaneManager is only used on the FX thread
+            if (Platform.isFxApplicationThread()) {
+                showFirstPane();
+            } else {
+                Platform.runLater(this::showFirstPane);
+            }
 
             final Image processing = new Image(Main.class.getResourceAsStream("/images/LoadingWheel.gif"));
             img_processing.setImage(processing);
@@ -76,6 +80,26 @@ public class MainController implements Initializable, ManagedPane {
         }
     }
 
+    private void showFirstPane() {
+        paneManager.registerPane(STORE_AVAILABILITY, STORE_AVAILABILITY_FXML);
+        paneManager.registerPane(PROCESS_REFUND, PROCESS_REFUND_FXML);
+        paneManager.setPane(STORE_AVAILABILITY);
+    }
+
+    /**
+     * Called on the FX thread once the main window is shown. Resumes the store availability changes that
+     * were pending when the tool stopped and starts loading the other panes in the background.
+     */
+    public void onMainStageShown() {
+        ManagedPane storeAvailability = paneManager.getController(STORE_AVAILABILITY);
+        if (storeAvailability instanceof StoreAvailabilityController) {
+            ((StoreAvailabilityController) storeAvailability).resumePendingChanges();
+        }
+        if (PropertyManager.INSTANCE.getProperty("ui.panes.preload.enabled", true)) {
+            paneManager.preloadPane(PROCESS_REFUND);
+        }
+    }
+
     @Override
     public void setParent(PaneManager paneManager) {
         this.paneManager = paneManager;
@@ -147,7 +171,12 @@ public class MainController implements Initializable, ManagedPane {
                 new KeyFrame(Duration.seconds(1))
         );
         timeline.setCycleCount(Animation.INDEFINITE);
-        timeline.play();
+        // the pane may be loaded on a startup thread; animations must start on the FX thread
+        if (Platform.isFxApplicationThread()) {
+            timeline.play();
+        } else {
+            Platform.runLater(timeline::play);
+        }
     }
 
     public void showProcessing() {
@@ -1,8 +1,10 @@
 package com.paypal.merchant.retail.tools.controller;
 
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import javafx.animation.KeyFrame;
 import javafx.animation.KeyValue;
 import javafx.animation.Timeline;
+import javafx.application.Platform;
 import javafx.beans.property.DoubleProperty;
 import javafx.event.ActionEvent;
 import javafx.event.EventHandler;
@@ -14,19 +16,46 @@ import javafx.util.Duration;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 /**
  * Created by pderoxas on 2/26/14.
  * This class will manage the panes in our application using a StackPane
+ *
+ * <p>Panes may be registered by name and fxml file instead of loaded up front. A registered pane is
+ * loaded off the FX thread, either in the background with {@link #preloadPane(String)} or when it is
+ * first shown with {@link #setPane(String)}, and the loaded pane and its controller are kept for later.
+ * The time each fxml file takes to load is logged.
  */
 public class PaneManager extends StackPane {
-    private Logger logger = LoggerFactory.getLogger(this.getClass());
+    private static Logger logger = LoggerFactory.getLogger(PaneManager.class);
     private static final double fadeTime = 100;
 
+    //Panes loaded before a PaneManager registered them, by fxml file
+    private static final Map<String, CompletableFuture<LoadedPane>> preloadedPanes = new ConcurrentHashMap<>();
+    private static final ExecutorService paneLoader = Executors.newSingleThreadExecutor(
+            new ThreadFactoryBuilder().setNameFormat("pane-loader-%d").setDaemon(true).build());
+
     //Collection of the panes available
     private HashMap<String, Node> panes = new HashMap<String, Node>();
 
+    //Controllers of the panes loaded from fxml, by pane name
+    private final Map<String, ManagedPane> controllers = new HashMap<>();
+
+    //Registered panes and their loads; only used on the FX thread
+    private final Map<String, String> paneResources = new HashMap<>();
+    private final Map<String, CompletableFuture<LoadedPane>> paneLoads = new HashMap<>();
+    private String requestedPane;
+
     public PaneManager() {
         super();
     }
@@ -46,11 +75,7 @@ public class PaneManager extends StackPane {
     //Injects the screenPane to the controller.
     public boolean loadPane(String name, String resource) {
         try {
-            FXMLLoader myLoader = new FXMLLoader(getClass().getResource(resource));
-            Parent loadScreen = myLoader.load();
-            ManagedPane myManagedPane = myLoader.getController();
-            myManagedPane.setParent(this);
-            addPane(name, loadScreen);
+            addPane(name, loadFxml(resource));
             return true;
         } catch (Exception e) {
             logger.error(e.getMessage());
@@ -58,10 +83,123 @@ public class PaneManager extends StackPane {
         }
     }
 
+    //Add a pane loaded by loadFxml to the collection
+    //Injects the screenPane to the controller.
+    public void addPane(String name, LoadedPane loadedPane) {
+        loadedPane.getController().setParent(this);
+        controllers.put(name, loadedPane.getController());
+        addPane(name, loadedPane.getRoot());
+    }
+
+    /**
+     * @return The controller of a pane added from fxml, or null if it is not loaded yet
+     */
+    public ManagedPane getController(String name) {
+        return controllers.get(name);
+    }
+
+    /**
+     * Loads an fxml file without adding it to a PaneManager. The pane is not attached to a scene yet,
+     * so this may run on a background thread.
+     *
+     * @param resource - The fxml file on the classpath
+     * @return The loaded pane and its controller
+     * @throws IOException
+     */
+    public static LoadedPane loadFxml(String resource) throws IOException {
+        long start = System.nanoTime();
+        FXMLLoader myLoader = new FXMLLoader(PaneManager.class.getResource(resource));
+        Parent loadScreen = myLoader.load();
+        long loadMillis = (System.nanoTime() - start) / 1000000;
+        logger.info("Loaded " + resource + " in " + loadMillis + " ms on " + Thread.currentThread().getName());
+        return new LoadedPane(loadScreen, myLoader.getController(), loadMillis);
+    }
+
+    /**
+     * Starts loading an fxml file for the next PaneManager that registers it
+     *
+     * @param resource - The fxml file on the classpath
+     * @param executor - Runs the load; not the FX thread
+     * @return The load, which fails with an UncheckedIOException if the file cannot be loaded
+     */
+    public static CompletableFuture<LoadedPane> preload(String resource, Executor executor) {
+        return preloadedPanes.computeIfAbsent(resource, r -> loadAsync(r, executor));
+    }
+
+    private static CompletableFuture<LoadedPane> loadAsync(String resource, Executor executor) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return loadFxml(resource);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }, executor);
+    }
+
+    /**
+     * Registers a pane to be loaded when it is first shown. Picks up the pane if it was preloaded.
+     *
+     * @param name - The name used with {@link #setPane(String)}
+     * @param resource - The fxml file on the classpath
+     */
+    public void registerPane(String name, String resource) {
+        paneResources.put(name, resource);
+        CompletableFuture<LoadedPane> preloaded = preloadedPanes.remove(resource);
+        if (preloaded != null) {
+            paneLoads.put(name, preloaded);
+        }
+    }
+
+    /**
+     * Starts loading a registered pane in the background, so it is ready when it is first shown
+     */
+    public void preloadPane(String name) {
+        if (getPane(name) == null && paneResources.containsKey(name)) {
+            startLoading(name);
+        }
+    }
+
+    private CompletableFuture<LoadedPane> startLoading(String name) {
+        return paneLoads.computeIfAbsent(name, n -> loadAsync(paneResources.get(n), paneLoader));
+    }
 
+    /**
+     * Adds a registered pane once its load is done
+     *
+     * @return false if the pane is still loading or failed to load
+     */
+    private boolean addLoadedPane(String name) {
+        CompletableFuture<LoadedPane> load = startLoading(name);
+        if (!load.isDone()) {
+            return false;
+        }
+        paneLoads.remove(name);
+        try {
+            addPane(name, load.join());
+            return true;
+        } catch (CompletionException e) {
+            // the next setPane tries again
+            logger.error("Failed to load the " + name + " pane", e.getCause());
+            return false;
+        }
+    }
 
     //Set the current pane.  If one already exists, transition from old to new
+    //A registered pane that is still loading is shown once it is loaded, unless another pane was set since
     public boolean setPane(final String name) {
+        requestedPane = name;
+        if (getPane(name) == null && paneResources.containsKey(name) && !addLoadedPane(name)) {
+            CompletableFuture<LoadedPane> load = paneLoads.get(name);
+            if (load == null) {
+                return false;
+            }
+            load.whenComplete((loaded, e) -> Platform.runLater(() -> {
+                if (name.equals(requestedPane)) {
+                    setPane(name);
+                }
+            }));
+            return true;
+        }
         if (getPane(name) != null) {   //screen loaded
             final DoubleProperty opacity = opacityProperty();
 
@@ -98,6 +236,36 @@ public class PaneManager extends StackPane {
         }
     }
 
+    /**
+     * A pane loaded from fxml and its controller
+     */
+    public static class LoadedPane {
+        private final Parent root;
+        private final ManagedPane controller;
+        private final long loadMillis;
+
+        public LoadedPane(Parent root, ManagedPane controller, long loadMillis) {
+            this.root = root;
+            this.controller = controller;
+            this.loadMillis = loadMillis;
+        }
+
+        /**
+         * Number of milliseconds the fxml file took to load
+         */
+        public long getLoadMillis() {
+            return loadMillis;
+        }
+
+        public Parent getRoot() {
+            return root;
+        }
+
+        public ManagedPane getController() {
+            return controller;
+        }
+    }
+
     //Remove pane from the collection by name
 //    public boolean removePane(String name) {
 //        if (panes.remove(name) == null) {
@@ -1,32 +1,50 @@
 package com.paypal.merchant.retail.tools.controller;
 
 import com.paypal.merchant.retail.tools.Main;
+import com.paypal.merchant.retail.tools.client.AvailabilityJournal;
+import com.paypal.merchant.retail.tools.client.FleetAvailabilityUpdater;
 import com.paypal.merchant.retail.tools.client.SdkClient;
 import com.paypal.merchant.retail.tools.exception.ClientException;
+import com.paypal.merchant.retail.tools.util.BackoffTaskScheduler;
+import com.paypal.merchant.retail.tools.util.MBeans;
 import com.paypal.merchant.retail.tools.util.OneTimeTaskScheduler;
 import com.paypal.merchant.retail.tools.util.PropertyManager;
-import com.paypal.merchant.retail.tools.util.RepeatingTaskScheduler;
+import com.paypal.merchant.retail.tools.util.RetryPolicy;
 import com.paypal.merchant.retail.tools.util.TaskScheduler;
+import com.paypal.merchant.retail.tools.util.TaskSchedulerMXBean;
 import javafx.animation.Animation;
 import javafx.animation.KeyFrame;
 import javafx.animation.Timeline;
 import javafx.application.Platform;
+import javafx.collections.ListChangeListener;
+import javafx.collections.transformation.FilteredList;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
 import javafx.fxml.Initializable;
 import javafx.scene.control.Button;
+import javafx.scene.control.ComboBox;
 import javafx.scene.control.Label;
 import javafx.scene.control.Labeled;
-import javafx.scene.control.TextArea;
+import javafx.scene.control.ListView;
+import javafx.scene.control.ProgressBar;
+import javafx.scene.control.TextField;
 import javafx.util.Duration;
+import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.net.URL;
-import java.text.SimpleDateFormat;
-import java.util.Date;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.ResourceBundle;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+import java.util.stream.Collectors;
 
 /**
  * Created by Paolo on 7/21/2014.
@@ -34,34 +52,50 @@ import java.util.concurrent.TimeUnit;
  */
 public class StoreAvailabilityController implements Initializable, ManagedPane {
     private final Logger logger = LoggerFactory.getLogger(this.getClass());
-    private final long RETRY_INTERVAL = PropertyManager.INSTANCE.getProperty("sdk.service.retry.interval.seconds", 60);
-    private final boolean IS_RETRY_ENABLED = PropertyManager.INSTANCE.getProperty("sdk.service.retry.enabled.flag", false);
-    private final int RETRY_MAX_ATTEMPTS = PropertyManager.INSTANCE.getProperty("sdk.service.retry.max.attempts", 5);
+    private static final Map<String, ActivityLog.Level> LOG_LEVEL_FILTERS = new LinkedHashMap<>();
+    static {
+        LOG_LEVEL_FILTERS.put("All messages", ActivityLog.Level.INFO);
+        LOG_LEVEL_FILTERS.put("Warnings and errors", ActivityLog.Level.WARN);
+        LOG_LEVEL_FILTERS.put("Errors only", ActivityLog.Level.ERROR);
+    }
 
     private PaneManager paneManager;
-    private TaskScheduler locationAvailabilityUpdater;
-    private SimpleDateFormat logDateFormat = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
-    private LocationAvailability currentLocationAvailability = LocationAvailability.UNKNOWN;
-    private int openCloseAttemptCount = 0;
+    private volatile TaskScheduler locationAvailabilityUpdater;
+    private volatile RetryPolicy retryPolicy;
+    private FleetAvailabilityUpdater fleetAvailabilityUpdater;
+    private AvailabilityJournal availabilityJournal;
+    private ActivityLog activityLog;
+    private volatile LocationAvailability currentLocationAvailability = LocationAvailability.UNKNOWN;
+    private volatile int openCloseAttemptCount = 0;
+
+    @FXML
+    private Label lbl_currentLocationStatus, lbl_countdown, lbl_fleetProgress;
+
+    @FXML
+    private Button btn_openLocation, btn_closeLocation, btn_cancel, btn_openAll, btn_closeAll, btn_cancelAll;
 
     @FXML
-    private Label lbl_currentLocationStatus, lbl_countdown;
+    private ListView<ActivityLog.Entry> lst_log;
 
     @FXML
-    private Button btn_openLocation, btn_closeLocation, btn_cancel;
+    private ComboBox<String> cmb_logLevel;
 
     @FXML
-    private TextArea txt_log;
+    private TextField txt_storeFilter, txt_logStoreFilter;
+
+    @FXML
+    private ProgressBar prg_fleet;
 
     @Override
     public void initialize(URL url, ResourceBundle rb) {
         logger.debug("initializing storeAvailabilityPane...");
-        txt_log.setEditable(false);
+        initializeActivityLog();
+        availabilityJournal = AvailabilityJournal.getDefault();
 
         try {
             if (Main.getLocation() == null) {
                 currentLocationAvailability = LocationAvailability.UNKNOWN;
-                appendToLog("FAILED to initialize. Unable to get store location information!" );
+                appendToLog(ActivityLog.Level.ERROR, "FAILED to initialize. Unable to get store location information!" );
             } else {
                 if (Main.getLocation().isOpen()) {
                     currentLocationAvailability = LocationAvailability.OPEN;
@@ -71,20 +105,15 @@ public class StoreAvailabilityController implements Initializable, ManagedPane {
             }
 
             // Initialize the task scheduler
-
-            if(IS_RETRY_ENABLED) {
-                bindCountdownTimer(lbl_countdown);
-                locationAvailabilityUpdater = new RepeatingTaskScheduler(updateLocationAvailability, 0, RETRY_INTERVAL, 1, TimeUnit.SECONDS);
-            } else {
-                locationAvailabilityUpdater = new OneTimeTaskScheduler(updateLocationAvailability, 0, 1, TimeUnit.SECONDS);
-            }
-
+            bindCountdownTimer(lbl_countdown);
+            locationAvailabilityUpdater = newLocationAvailabilityUpdater();
+            MBeans.register("StoreAvailability", null, new StoreAvailability(), StoreAvailabilityMXBean.class);
 
             updatePane();
             btn_openLocation.setDisable(false);
             btn_closeLocation.setDisable(false);
 
-            appendToLog("Initial store location availability: " + currentLocationAvailability.name());
+            appendToLog(ActivityLog.Level.INFO, "Initial store location availability: " + currentLocationAvailability.name());
         } catch (Exception e) {
             logger.error("Failed to initialize SDK Tool! ", e);
         }
@@ -123,11 +152,207 @@ public class StoreAvailabilityController implements Initializable, ManagedPane {
         logger.debug("Setting location availability to: " + desiredAvailability.name());
         try {
             currentLocationAvailability = desiredAvailability;
+            recordPending(desiredAvailability == LocationAvailability.OPEN_PENDING);
+            locationAvailabilityUpdater = newLocationAvailabilityUpdater();
             locationAvailabilityUpdater.start();
         } catch (Exception e) {
             logger.error("Setting location availability to: " + desiredAvailability.name(), e);
-            appendToLog("Failed to set Store Location Availability to:" + desiredAvailability.toString());
+            appendToLog(ActivityLog.Level.ERROR, "Failed to set Store Location Availability to:" + desiredAvailability.toString());
+        }
+    }
+
+    /**
+     * Makes the availability changes that were pending when the tool last stopped. Changes older than
+     * availability.journal.max.age.minutes are dropped. Called on the FX thread once the main window is
+     * shown, as the changes update the main window.
+     */
+    public void resumePendingChanges() {
+        if (availabilityJournal == null) {
+            return;
+        }
+        Map<String, Boolean> pending = availabilityJournal.getPending(TimeUnit.MINUTES.toMillis(
+                PropertyManager.INSTANCE.getProperty("availability.journal.max.age.minutes", 60L)));
+        Boolean defaultStoreIsOpen = pending.remove(SdkClient.INSTANCE.getDefaultStoreId());
+        if (defaultStoreIsOpen != null) {
+            appendToLog(ActivityLog.Level.WARN, "Resuming the change to " + (defaultStoreIsOpen ? "OPEN" : "CLOSED") +
+                    " that was pending when the tool stopped");
+            openCloseLocation(defaultStoreIsOpen ? LocationAvailability.OPEN_PENDING : LocationAvailability.CLOSE_PENDING);
+        }
+        if (pending.isEmpty()) {
+            return;
+        }
+
+        List<String> toOpen = new ArrayList<>();
+        List<String> toClose = new ArrayList<>();
+        pending.forEach((storeId, isOpen) -> (isOpen ? toOpen : toClose).add(storeId));
+        activityLog.warn(null, "Resuming the changes to " + pending.size() + " Store Locations that were pending when the tool stopped");
+        if (toOpen.isEmpty()) {
+            updateFleet(toClose, false, null);
+        } else {
+            updateFleet(toOpen, true, toClose.isEmpty() ? null : () -> updateFleet(toClose, false, null));
+        }
+    }
+
+    private void recordPending(boolean isOpen) {
+        if (availabilityJournal != null) {
+            availabilityJournal.recordPending(Collections.singletonList(SdkClient.INSTANCE.getDefaultStoreId()), isOpen);
+        }
+    }
+
+    private void recordDone(boolean isOpen) {
+        if (availabilityJournal != null) {
+            availabilityJournal.recordDone(SdkClient.INSTANCE.getDefaultStoreId(), isOpen);
+        }
+    }
+
+    /**
+     * Builds the scheduler for the next open/close from the current retry properties,
+     * so a reload of the properties file applies to the next attempt. The new scheduler replaces
+     * the previous one in JMX.
+     */
+    private TaskScheduler newLocationAvailabilityUpdater() {
+        TaskScheduler scheduler;
+        if(PropertyManager.INSTANCE.getProperty("sdk.service.retry.enabled.flag", false)) {
+            retryPolicy = RetryPolicy.forCommand("SetLocationAvailability");
+            scheduler = new BackoffTaskScheduler(updateLocationAvailability, 0, retryPolicy, TimeUnit.SECONDS);
+        } else {
+            retryPolicy = null;
+            scheduler = new OneTimeTaskScheduler(updateLocationAvailability, 0, TimeUnit.SECONDS);
+        }
+        MBeans.register("TaskScheduler", "StoreAvailability", scheduler, TaskSchedulerMXBean.class);
+        return scheduler;
+    }
+
+    /**
+     * Handles open all locations button
+     *
+     * @param event ActionEvent
+     */
+    @FXML
+    protected void handleOpenAllLocations(ActionEvent event) {
+        openCloseFleet(true);
+        event.consume();
+    }
+
+    /**
+     * Handles close all locations button
+     *
+     * @param event ActionEvent
+     */
+    @FXML
+    protected void handleCloseAllLocations(ActionEvent event) {
+        openCloseFleet(false);
+        event.consume();
+    }
+
+    /**
+     * Handles cancel all locations button. Calls already in flight will still complete.
+     *
+     * @param event ActionEvent
+     */
+    @FXML
+    protected void handleCancelAllLocations(ActionEvent event) {
+        if(fleetAvailabilityUpdater != null) {
+            fleetAvailabilityUpdater.cancel();
+            activityLog.info(null, "Fleet update canceled by user. Calls already in flight will complete.");
+        }
+        btn_cancelAll.setDisable(true);
+        event.consume();
+    }
+
+    /**
+     * Sets every store in the Config.xml that matches the store filter to the desired state
+     * @param isOpen - The desired state (true=Open, false=Closed)
+     */
+    private void openCloseFleet(boolean isOpen) {
+        List<String> storeIds;
+        try {
+            storeIds = getFilteredStoreIds();
+        } catch (ClientException | PatternSyntaxException e) {
+            logger.error("Failed to get the list of stores", e);
+            activityLog.error(null, "Failed to get the list of stores: " + e.getMessage());
+            return;
+        }
+        updateFleet(storeIds, isOpen, null);
+    }
+
+    /**
+     * Sets the given stores to the desired state
+     * @param isOpen - The desired state (true=Open, false=Closed)
+     * @param then - Run on the FX thread once every store has a result, or null
+     */
+    private void updateFleet(List<String> storeIds, boolean isOpen, Runnable then) {
+        if(fleetAvailabilityUpdater == null) {
+            fleetAvailabilityUpdater = new FleetAvailabilityUpdater(SdkClient.INSTANCE::setLocationAvailabilityAsync,
+                    PropertyManager.INSTANCE.getProperty("sdk.fleet.max.concurrent", 10),
+                    FleetAvailabilityUpdater::configuredRetryPolicy, AvailabilityJournal.getDefault());
+        }
+
+        setFleetButtonsDisabled(true);
+        prg_fleet.setProgress(0);
+        lbl_fleetProgress.setText("0/" + storeIds.size() + " complete");
+        activityLog.info(null, "Attempting to set " + storeIds.size() + " Store Locations to: " + (isOpen ? "OPEN" : "CLOSED") +
+                " (" + fleetAvailabilityUpdater.getMaxConcurrent() + " at a time)");
+
+        fleetAvailabilityUpdater.update(storeIds, isOpen, new FleetAvailabilityUpdater.ProgressListener() {
+            @Override
+            public void onStoreResult(FleetAvailabilityUpdater.StoreResult result) {
+                activityLog.append(result.isSuccessful() ? ActivityLog.Level.INFO : ActivityLog.Level.ERROR,
+                        result.getStoreId(), (result.isSuccessful() ? "" : "FAILED - ") +
+                        result.getMessage() + " (" + result.getElapsedMillis() + " ms)");
+                if(result.isSuccessful() && result.getStoreId().equals(SdkClient.INSTANCE.getDefaultStoreId())) {
+                    UiUpdateDispatcher.INSTANCE.submit(result.getStoreId(), () -> {
+                        Main.setLocation(result.getLocation());
+                        currentLocationAvailability = result.getLocation().isOpen() ?
+                                LocationAvailability.OPEN : LocationAvailability.CLOSED;
+                        updatePane();
+                    });
+                }
+            }
+
+            /**
+             * Only the latest progress of a pulse is shown
+             */
+            @Override
+            public void onProgress(int completed, int failed, int total) {
+                UiUpdateDispatcher.INSTANCE.submit(prg_fleet, () -> showFleetProgress(completed, failed, total));
+            }
+
+            @Override
+            public void onFinished(int completed, int failed, int total) {
+                activityLog.append(failed > 0 ? ActivityLog.Level.WARN : ActivityLog.Level.INFO, null,
+                        "Finished setting " + total + " Store Locations to " + (isOpen ? "OPEN" : "CLOSED") +
+                        ": " + (completed - failed) + " succeeded, " + failed + " failed");
+                UiUpdateDispatcher.INSTANCE.submit(prg_fleet, () -> showFleetProgress(completed, failed, total));
+                UiUpdateDispatcher.INSTANCE.submit(() -> setFleetButtonsDisabled(false));
+                if (then != null) {
+                    UiUpdateDispatcher.INSTANCE.submit(then);
+                }
+            }
+        });
+    }
+
+    private void showFleetProgress(int completed, int failed, int total) {
+        prg_fleet.setProgress(total == 0 ? 1 : (double) completed / total);
+        lbl_fleetProgress.setText(completed + "/" + total + " complete, " + failed + " failed");
+    }
+
+    /**
+     * Returns the store ids from the Config.xml that match the regex in the store filter field
+     */
+    private List<String> getFilteredStoreIds() throws ClientException {
+        List<String> storeIds = SdkClient.INSTANCE.getStoreIds();
+        if(StringUtils.isBlank(txt_storeFilter.getText())) {
+            return storeIds;
         }
+        Pattern filter = Pattern.compile(txt_storeFilter.getText().trim());
+        return storeIds.stream().filter(storeId -> filter.matcher(storeId).matches()).collect(Collectors.toList());
+    }
+
+    private void setFleetButtonsDisabled(boolean isRunning) {
+        btn_openAll.setDisable(isRunning);
+        btn_closeAll.setDisable(isRunning);
+        btn_cancelAll.setDisable(!isRunning);
     }
 
     /**
@@ -138,6 +363,14 @@ public class StoreAvailabilityController implements Initializable, ManagedPane {
     @FXML
     protected void handleCancel(ActionEvent event) {
         logger.debug("Handling Cancel button");
+        cancel();
+        event.consume();
+    }
+
+    /**
+     * Stops the current open/close and reverts to the last known availability. Runs on the FX thread.
+     */
+    private void cancel() {
         // stop the current action
         locationAvailabilityUpdater.stop();
 
@@ -145,6 +378,10 @@ public class StoreAvailabilityController implements Initializable, ManagedPane {
         btn_openLocation.setDisable(false);
         btn_closeLocation.setDisable(false);
 
+        if (currentLocationAvailability == LocationAvailability.OPEN_PENDING ||
+                currentLocationAvailability == LocationAvailability.CLOSE_PENDING) {
+            recordDone(currentLocationAvailability == LocationAvailability.OPEN_PENDING);
+        }
 
         // Show the right action button based on current location availability
         switch (currentLocationAvailability) {
@@ -165,10 +402,9 @@ public class StoreAvailabilityController implements Initializable, ManagedPane {
                 break;
         }
 
-        appendToLog("Previous action canceled by user. Store Location is: " + currentLocationAvailability.toString());
+        appendToLog(ActivityLog.Level.INFO, "Previous action canceled by user. Store Location is: " + currentLocationAvailability.toString());
 
         updatePane();
-        event.consume();
     }
 
     private void updatePane() {
@@ -198,19 +434,17 @@ public class StoreAvailabilityController implements Initializable, ManagedPane {
      */
     public final Runnable updateLocationAvailability = () -> {
         boolean isSuccessful = false;
+        // if either open or open pending, set desiredState to true
+        boolean desiredIsOpen = currentLocationAvailability.equals(LocationAvailability.OPEN_PENDING) ||
+                currentLocationAvailability.equals(LocationAvailability.OPEN);
         try {
-            // if either open or open pending, set desiredState to true
-            boolean desiredIsOpen = currentLocationAvailability.equals(LocationAvailability.OPEN_PENDING) ||
-                    currentLocationAvailability.equals(LocationAvailability.OPEN);
-
-            Platform.runLater(() -> {
-                Main.getController().showProcessing();
-                updatePane();
-                lbl_countdown.setText("");
-                appendToLog((openCloseAttemptCount > 0 ? "Retry #" + openCloseAttemptCount + ": " : "") +
-                        "Attempting to set Store Location Availability to: " + (desiredIsOpen ? "OPEN" : "CLOSED"));
-                // hide the glass pane
-            });
+
+            appendToLog(ActivityLog.Level.INFO, (openCloseAttemptCount > 0 ? "Retry #" + openCloseAttemptCount + ": " : "") +
+                    "Attempting to set Store Location Availability to: " + (desiredIsOpen ? "OPEN" : "CLOSED"));
+            // show the glass pane
+            UiUpdateDispatcher.INSTANCE.submit(Main.getController(), () -> Main.getController().showProcessing());
+            UiUpdateDispatcher.INSTANCE.submit(lbl_currentLocationStatus, this::updatePane);
+            UiUpdateDispatcher.INSTANCE.submit(lbl_countdown, () -> lbl_countdown.setText(""));
 
             if(Main.getLocation() == null) {
                 logger.debug("SDK Location is null so retrieve it before trying to set the desired availability");
@@ -219,6 +453,7 @@ public class StoreAvailabilityController implements Initializable, ManagedPane {
 
             logger.debug("Call out to SDK to set the location isOpen to: " + desiredIsOpen);
             Main.setLocation(SdkClient.INSTANCE.setLocationAvailability(Main.getLocation(), desiredIsOpen));
+            recordDone(desiredIsOpen);
 
             if(Main.getLocation().isOpen()) {
                 currentLocationAvailability = LocationAvailability.OPEN;
@@ -230,58 +465,56 @@ public class StoreAvailabilityController implements Initializable, ManagedPane {
             locationAvailabilityUpdater.stop();
             openCloseAttemptCount = 0;
 
-            Platform.runLater(() -> {
-                btn_openLocation.setDisable(false);
-                btn_closeLocation.setDisable(false);
-            });
+            UiUpdateDispatcher.INSTANCE.submit(btn_openLocation, this::enableOpenCloseButtons);
         } catch (ClientException e) {
             logger.error("Failed to set Store Location Availability");
 
-            if(IS_RETRY_ENABLED) {
-                if(openCloseAttemptCount >= RETRY_MAX_ATTEMPTS){
+            if(retryPolicy != null) {
+                if(openCloseAttemptCount >= retryPolicy.getMaxRetries()){
                     openCloseAttemptCount = 0;
                     logger.debug("Maximum number of retry attempts. Stopping the scheduler.");
-                    Platform.runLater(() -> {
-                        appendToLog(e.getMessage());
-                        appendToLog("Maximum number of retry attempts have been reached.");
-                        handleCancel(null);
-                    });
+                    appendToLog(ActivityLog.Level.ERROR, e.getMessage());
+                    appendToLog(ActivityLog.Level.WARN, "Maximum number of retry attempts have been reached.");
+                    UiUpdateDispatcher.INSTANCE.submit(this::cancel);
                 } else {
                     openCloseAttemptCount++;
-                    Platform.runLater(() -> {
-                        appendToLog(e.getMessage());
-                        appendToLog("Automatic retry in " + getCountdownString(RETRY_INTERVAL));
-                    });
+                    final long retryDelay = locationAvailabilityUpdater.getDelayTime();
+                    appendToLog(ActivityLog.Level.ERROR, e.getMessage());
+                    appendToLog(ActivityLog.Level.WARN, "Automatic retry in " + getCountdownString(retryDelay));
                 }
             } else {
                 locationAvailabilityUpdater.stop();
-                Platform.runLater(() -> {
-                    appendToLog(e.getMessage());
-                    appendToLog("Manual retry is required.");
-                    //re-enable the buttons
-                    btn_openLocation.setDisable(false);
-                    btn_closeLocation.setDisable(false);
-
-                    // Set the current location availability to the last known value
-                    if(currentLocationAvailability.equals(LocationAvailability.OPEN_PENDING)){
-                        currentLocationAvailability = LocationAvailability.CLOSED;
-                        lbl_countdown.setText("Last attempt to Open the store location failed. Manual retry is required.");
-                    } else if(currentLocationAvailability.equals(LocationAvailability.CLOSE_PENDING)){
-                        currentLocationAvailability = LocationAvailability.OPEN;
-                        lbl_countdown.setText("Last attempt to Close the store location failed. Manual retry is required.");
-                    }
-                });
+                recordDone(desiredIsOpen);
+                appendToLog(ActivityLog.Level.ERROR, e.getMessage());
+                appendToLog(ActivityLog.Level.WARN, "Manual retry is required.");
+                UiUpdateDispatcher.INSTANCE.submit(btn_openLocation, this::enableOpenCloseButtons);
+
+                // Set the current location availability to the last known value
+                if(currentLocationAvailability.equals(LocationAvailability.OPEN_PENDING)){
+                    currentLocationAvailability = LocationAvailability.CLOSED;
+                    UiUpdateDispatcher.INSTANCE.submit(lbl_countdown, () ->
+                            lbl_countdown.setText("Last attempt to Open the store location failed. Manual retry is required."));
+                } else if(currentLocationAvailability.equals(LocationAvailability.CLOSE_PENDING)){
+                    currentLocationAvailability = LocationAvailability.OPEN;
+                    UiUpdateDispatcher.INSTANCE.submit(lbl_countdown, () ->
+                            lbl_countdown.setText("Last attempt to Close the store location failed. Manual retry is required."));
+                }
             }
         } finally {
-            Platform.runLater(() -> {
-                updatePane();
-                appendToLog("Store Location is: " + currentLocationAvailability.toString());
-                // hide the glass pane
-                Main.getController().hideProcessing();
-            });
+            UiUpdateDispatcher.INSTANCE.submit(lbl_currentLocationStatus, this::updatePane);
+            // after a cancel queued above has reverted the availability
+            UiUpdateDispatcher.INSTANCE.submit(() ->
+                    appendToLog(ActivityLog.Level.INFO, "Store Location is: " + currentLocationAvailability.toString()));
+            // hide the glass pane
+            UiUpdateDispatcher.INSTANCE.submit(Main.getController(), () -> Main.getController().hideProcessing());
         }
     };
 
+    private void enableOpenCloseButtons() {
+        btn_openLocation.setDisable(false);
+        btn_closeLocation.setDisable(false);
+    }
+
     /**
      * Binds the status message label to the number or remaining seconds until the next time
      * call to set location availability is made
@@ -291,6 +524,10 @@ public class StoreAvailabilityController implements Initializable, ManagedPane {
         Timeline timeline = new Timeline(
                 new KeyFrame(Duration.millis(500),
                         actionEvent -> {
+                            if(retryPolicy == null) {
+                                // retries are off; the label shows the manual retry message
+                                return;
+                            }
                             if(locationAvailabilityUpdater.getDelayTime() > 0 &&
                                 (currentLocationAvailability.equals(LocationAvailability.OPEN_PENDING) ||
                                 currentLocationAvailability.equals(LocationAvailability.CLOSE_PENDING)) ) {
@@ -305,7 +542,12 @@ public class StoreAvailabilityController implements Initializable, ManagedPane {
                 new KeyFrame(Duration.seconds(1))
         );
         timeline.setCycleCount(Animation.INDEFINITE);
-        timeline.play();
+        // the pane may be loaded on a startup thread; animations must start on the FX thread
+        if (Platform.isFxApplicationThread()) {
+            timeline.play();
+        } else {
+            Platform.runLater(timeline::play);
+        }
     }
 
     /**
@@ -321,11 +563,92 @@ public class StoreAvailabilityController implements Initializable, ManagedPane {
     }
 
     /**
-     * Appends text to the log textarea with a timestamp
+     * Shows the activity log in the list view, newest entry in view, filtered by the level and store filters
+     */
+    private void initializeActivityLog() {
+        activityLog = new ActivityLog(PropertyManager.INSTANCE.getProperty("ui.activity.log.capacity", 5000));
+        FilteredList<ActivityLog.Entry> visibleEntries = new FilteredList<>(activityLog);
+        lst_log.setItems(visibleEntries);
+        lst_log.setCellFactory(listView -> new ActivityLogCell());
+        visibleEntries.addListener((ListChangeListener<ActivityLog.Entry>) change -> {
+            if (!visibleEntries.isEmpty()) {
+                lst_log.scrollTo(visibleEntries.size() - 1);
+            }
+        });
+
+        cmb_logLevel.getItems().setAll(LOG_LEVEL_FILTERS.keySet());
+        cmb_logLevel.setValue(cmb_logLevel.getItems().get(0));
+        cmb_logLevel.valueProperty().addListener((observable, oldValue, newValue) ->
+                visibleEntries.setPredicate(getLogFilter()));
+        txt_logStoreFilter.textProperty().addListener((observable, oldValue, newValue) ->
+                visibleEntries.setPredicate(getLogFilter()));
+    }
+
+    /**
+     * Entries at or above the chosen level whose store id contains the store filter text (any entry if it is blank)
+     */
+    private Predicate<ActivityLog.Entry> getLogFilter() {
+        ActivityLog.Level minimumLevel = LOG_LEVEL_FILTERS.getOrDefault(cmb_logLevel.getValue(), ActivityLog.Level.INFO);
+        String storeFilter = StringUtils.trimToEmpty(txt_logStoreFilter.getText());
+        return entry -> entry.getLevel().compareTo(minimumLevel) >= 0 &&
+                (storeFilter.isEmpty() || StringUtils.containsIgnoreCase(entry.getStoreId(), storeFilter));
+    }
+
+    /**
+     * Adds an entry about the default store to the activity log
+     * @param level - The entry's level
      * @param message - The message to add
      */
-    private void appendToLog(String message) {
-        txt_log.appendText(logDateFormat.format(new Date()) + " - " + message + "\n");
+    private void appendToLog(ActivityLog.Level level, String message) {
+        activityLog.append(level, SdkClient.INSTANCE.getDefaultStoreId(), message);
+    }
+
+
+    /**
+     * Exposes the default store's availability and retry state over JMX
+     */
+    private class StoreAvailability implements StoreAvailabilityMXBean {
+        @Override
+        public String getStoreId() {
+            return SdkClient.INSTANCE.getDefaultStoreId();
+        }
+
+        @Override
+        public String getLocationAvailability() {
+            return currentLocationAvailability.toString();
+        }
+
+        @Override
+        public int getAttemptCount() {
+            return openCloseAttemptCount;
+        }
+
+        @Override
+        public long getDelayTime() {
+            return locationAvailabilityUpdater.getDelayTime();
+        }
+
+        @Override
+        public boolean isRetryEnabled() {
+            return retryPolicy != null;
+        }
+
+        /**
+         * Does nothing unless an open/close is in progress, like the disabled Cancel button
+         */
+        @Override
+        public void cancel() {
+            if(locationAvailabilityUpdater.isRunning()) {
+                logger.info("Canceling the store location update from JMX");
+                UiUpdateDispatcher.INSTANCE.submit(StoreAvailabilityController.this::cancel);
+            }
+        }
+
+        @Override
+        public void retryNow() {
+            logger.info("Retrying the store location update now from JMX");
+            locationAvailabilityUpdater.runNow();
+        }
     }
 
     enum LocationAvailability {
@@ -0,0 +1,25 @@
+package com.paypal.merchant.retail.tools.controller;
+
+/**
+ * JMX view of the default store's availability as tracked by the {@link StoreAvailabilityController}
+ */
+public interface StoreAvailabilityMXBean {
+    public String getStoreId();
+
+    /** The availability shown on the pane, e.g. Open (Pending) */
+    public String getLocationAvailability();
+
+    /** Number of the retry in progress, 0 if the first attempt is in progress or nothing is */
+    public int getAttemptCount();
+
+    /** Number of seconds until the next automatic retry */
+    public long getDelayTime();
+
+    public boolean isRetryEnabled();
+
+    /** Same as the Cancel button */
+    public void cancel();
+
+    /** Skips the rest of the delay before the next automatic retry */
+    public void retryNow();
+}
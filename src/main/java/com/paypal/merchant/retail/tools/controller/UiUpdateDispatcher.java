@@ -0,0 +1,93 @@
+package com.paypal.merchant.retail.tools.controller;
+
+import com.paypal.merchant.retail.tools.util.CoalescingQueue;
+import javafx.animation.AnimationTimer;
+import javafx.application.Platform;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Applies UI updates from worker threads once per JavaFX pulse.
+ *
+ * <p>Updates are queued without locking and run together at the start of the next pulse, so a burst of
+ * results costs one layout instead of one FX event each. An update submitted with a key (the control it
+ * changes, or a store id) replaces the pending update with the same key; only the latest one runs.
+ * The pulse timer runs only while there are updates, so an idle UI is not kept busy.
+ */
+public enum UiUpdateDispatcher {
+    INSTANCE;
+
+    /** Number of empty pulses before the timer is stopped */
+    private static final int IDLE_PULSES = 30;
+
+    private final CoalescingQueue updates = new CoalescingQueue();
+    private final AtomicBoolean running = new AtomicBoolean(false);
+    private AnimationTimer timer;
+    private int idlePulses = 0;
+
+    /**
+     * Runs the update on the FX thread at the next pulse
+     */
+    public void submit(Runnable update) {
+        updates.add(update);
+        wake();
+    }
+
+    /**
+     * Runs the update on the FX thread at the next pulse, unless it is replaced by a later update with the same key
+     *
+     * @param key - What the update changes, e.g. the control; with null the update is never replaced
+     */
+    public void submit(Object key, Runnable update) {
+        updates.add(key, update);
+        wake();
+    }
+
+    /**
+     * Number of updates that were skipped because a later one with the same key replaced them
+     */
+    public long getCoalescedCount() {
+        return updates.getCoalescedCount();
+    }
+
+    private void wake() {
+        if (running.compareAndSet(false, true)) {
+            if (Platform.isFxApplicationThread()) {
+                startTimer();
+            } else {
+                Platform.runLater(this::startTimer);
+            }
+        }
+    }
+
+    /**
+     * Runs on the FX thread; the timer is created here because it needs the FX toolkit
+     */
+    private void startTimer() {
+        if (timer == null) {
+            timer = new AnimationTimer() {
+                @Override
+                public void handle(long now) {
+                    pulse();
+                }
+            };
+        }
+        idlePulses = 0;
+        timer.start();
+    }
+
+    private void pulse() {
+        if (updates.runAll() > 0) {
+            idlePulses = 0;
+            return;
+        }
+        if (++idlePulses >= IDLE_PULSES) {
+            timer.stop();
+            running.set(false);
+            // an update queued after the last pulse would otherwise wait for the next submit
+            if (!updates.isEmpty()) {
+                wake();
+            }
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package com.paypal.merchant.retail.tools.exception;
+
+/**
+ * Thrown when the service answers a request with an error about what it asks rather than because the
+ * service failed, e.g. a validation error for a location id the service does not know
+ */
+public class RequestRejectedException extends ClientException {
+    public RequestRejectedException(String message) {
+        super(message);
+    }
+
+    public RequestRejectedException(String message, Exception e) {
+        super(message, e);
+    }
+}
@@ -0,0 +1,10 @@
+package com.paypal.merchant.retail.tools.exception;
+
+/**
+ * Thrown when an input record is rejected; the message says why
+ */
+public class ValidationException extends Exception {
+    public ValidationException(String message) {
+        super(message);
+    }
+}
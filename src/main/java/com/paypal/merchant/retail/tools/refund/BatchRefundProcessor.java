@@ -0,0 +1,474 @@
+package com.paypal.merchant.retail.tools.refund;
+
+import com.google.common.util.concurrent.RateLimiter;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.paypal.merchant.retail.tools.exception.ClientException;
+import com.paypal.merchant.retail.tools.exception.RequestRejectedException;
+import com.paypal.merchant.retail.tools.exception.ValidationException;
+import com.paypal.merchant.retail.tools.util.PropertyManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Refunds every transaction in a CSV or JSON file.
+ *
+ * <p>A single reader thread streams the file with a {@link RefundFileReader}, validates each record and
+ * hands the refund to a {@link RefundSender} without waiting for it. At most refund.batch.max.concurrent
+ * refunds are in flight, which also bounds the memory used, and no store is sent more than
+ * refund.batch.store.rate.per.second refunds. Refunds are sent in file order, so a store at its rate
+ * holds up the records behind it. Each result is written to the results file as it completes and
+ * reported to a {@link ProgressListener} with the running totals.
+ *
+ * <p>With a {@link RefundJournal}, each refund is recorded and fsynced before it is sent and its
+ * outcome recorded when it completes. A transaction the journal shows as refunded, or as sent by a
+ * run that died before its outcome was known, is skipped, so a file can be run again after a crash.
+ * Refunds the service declined are sent again. A refund that failed any other way, e.g. timed out,
+ * may still have been made, so it is left as sent and skipped too.
+ *
+ * <p>One file is processed at a time; a second file waits for the first.
+ *
+ * <p>The PayPal Merchant SDK this tool is built against has no refund command, so nothing in the tool
+ * sends refunds yet. Once the SDK has one, it is called through SdkClient and passed in as the
+ * {@link RefundSender}.
+ */
+public class BatchRefundProcessor {
+    private static Logger logger = LoggerFactory.getLogger(BatchRefundProcessor.class);
+
+    private final RefundSender sender;
+    private final int maxConcurrent;
+    private final double storeRatePerSecond;
+    private final int flushEvery;
+    private final ExecutorService reader;
+    private final ConcurrentMap<String, RateLimiter> storeRateLimiters = new ConcurrentHashMap<>();
+    private final Path journalDirectory;
+    private final long journalSegmentBytes;
+    private volatile RefundJournal journal;
+    //Runs queued or being read, which cancel() stops
+    private final Set<Run> runs = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Sends refunds with the configured limits, recorded in the configured journal
+     *
+     * @param sender - Makes each refund
+     */
+    public BatchRefundProcessor(RefundSender sender) {
+        this(sender,
+                PropertyManager.INSTANCE.getProperty("refund.batch.max.concurrent", 8),
+                PropertyManager.INSTANCE.getProperty("refund.batch.store.rate.per.second", 5.0),
+                PropertyManager.INSTANCE.getProperty("refund.batch.flush.rows", 100),
+                PropertyManager.INSTANCE.getProperty("refund.journal.enabled", true) ?
+                        Paths.get(PropertyManager.INSTANCE.getProperty("refund.journal.dir", "refund-journal")) : null,
+                PropertyManager.INSTANCE.getProperty("refund.journal.segment.megabytes", 64L) * 1024 * 1024);
+    }
+
+    /**
+     * Does not keep a journal
+     *
+     * @param sender - Makes each refund
+     * @param maxConcurrent - Maximum number of refunds in flight
+     * @param storeRatePerSecond - Maximum number of refunds sent per second for one store
+     * @param flushEvery - Number of results written to the results file between flushes
+     */
+    public BatchRefundProcessor(RefundSender sender, int maxConcurrent, double storeRatePerSecond, int flushEvery) {
+        this(sender, maxConcurrent, storeRatePerSecond, flushEvery, null, 0);
+    }
+
+    /**
+     * @param sender - Makes each refund
+     * @param maxConcurrent - Maximum number of refunds in flight
+     * @param storeRatePerSecond - Maximum number of refunds sent per second for one store
+     * @param flushEvery - Number of results written to the results file between flushes
+     * @param journalDirectory - Where the {@link RefundJournal} is kept, or null to not keep one
+     * @param journalSegmentBytes - Size at which the journal starts a new segment file
+     */
+    public BatchRefundProcessor(RefundSender sender, int maxConcurrent, double storeRatePerSecond, int flushEvery,
+                                Path journalDirectory, long journalSegmentBytes) {
+        this.sender = sender;
+        this.journalDirectory = journalDirectory;
+        this.journalSegmentBytes = journalSegmentBytes;
+        this.maxConcurrent = Math.max(1, maxConcurrent);
+        this.storeRatePerSecond = storeRatePerSecond;
+        this.flushEvery = flushEvery;
+        this.reader = Executors.newSingleThreadExecutor(
+                new ThreadFactoryBuilder().setNameFormat("batch-refund-%d").setDaemon(true).build());
+    }
+
+    public int getMaxConcurrent() {
+        return maxConcurrent;
+    }
+
+    /**
+     * Refunds the transactions in a file. Returns immediately; results are reported to the listener.
+     *
+     * @param input - The CSV or JSON file of transactions
+     * @param output - Where the results are written; replaced if it exists
+     * @param validator - Checks each record
+     * @param listener - Receives each result and the running totals
+     * @return Future completed with the final totals once every refund sent has completed
+     */
+    public CompletableFuture<Progress> process(Path input, Path output, RefundValidator validator, ProgressListener listener) {
+        CompletableFuture<Progress> finished = new CompletableFuture<>();
+        Run run = new Run(listener, maxConcurrent);
+        runs.add(run);
+        reader.execute(() -> {
+            run.start(sizeOf(input));
+            logger.info("Refunding the transactions in " + input + " with " + maxConcurrent + " concurrent refunds");
+            try (RefundFileReader records = RefundFileReader.open(input);
+                 RefundResultWriter results = new RefundResultWriter(output, flushEvery)) {
+                if (journalDirectory != null && journal == null) {
+                    // opened on first use, as replaying a large journal takes a while
+                    journal = RefundJournal.open(journalDirectory, journalSegmentBytes);
+                }
+                try {
+                    RefundRow row;
+                    while (!run.cancelled && (row = records.next()) != null) {
+                        run.bytesRead = records.getBytesRead();
+                        run.read.incrementAndGet();
+                        try {
+                            dispatch(validator.validate(row), results, run);
+                        } catch (ValidationException e) {
+                            report(new RefundResult(row.getLineNumber(), row.get(RefundValidator.STORE_ID),
+                                    row.get(RefundValidator.TRANSACTION_ID), row.get(RefundValidator.AMOUNT),
+                                    row.get(RefundValidator.CURRENCY), RefundResult.Status.INVALID, null,
+                                    e.getMessage(), 0), results, run);
+                        }
+                    }
+                    if (run.cancelled && run.error == null) {
+                        run.error = "Canceled after " + run.read.get() + " records";
+                    }
+                } catch (IOException e) {
+                    logger.error("Failed to read " + input, e);
+                    run.error = e.getMessage();
+                } finally {
+                    // wait for the refunds in flight before the results file is closed
+                    run.permits.acquireUninterruptibly(maxConcurrent);
+                }
+            } catch (IOException e) {
+                logger.error("Failed to refund the transactions in " + input, e);
+                run.error = e.getMessage();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                run.error = "Interrupted";
+            }
+            run.done = true;
+            runs.remove(run);
+            Progress progress = run.snapshot();
+            logger.info("Finished refunding " + input + ": " + progress);
+            try {
+                listener.onFinished(progress);
+            } catch (Exception e) {
+                logger.error("ProgressListener failed", e);
+            }
+            finished.complete(progress);
+        });
+        return finished;
+    }
+
+    /**
+     * Sends one refund once a permit is free and its store is under its rate, unless the journal shows it
+     * was sent before. Runs on the reader thread.
+     */
+    private void dispatch(RefundRequest request, RefundResultWriter results, Run run) throws InterruptedException {
+        RefundJournal journal = this.journal;
+        String key = request.getIdempotencyKey();
+        RefundJournal.State state = journal != null ? journal.getState(key) : null;
+        if (state == RefundJournal.State.REFUNDED || state == RefundJournal.State.SUBMITTED) {
+            report(new RefundResult(request.getLineNumber(), request.getStoreId(), request.getTransactionId(),
+                    request.getAmount().toPlainString(), request.getCurrency(), RefundResult.Status.SKIPPED, null,
+                    state == RefundJournal.State.REFUNDED ? "Already refunded by an earlier run" :
+                            "Sent by an earlier run without a known outcome; check it before refunding again",
+                    0), results, run);
+            return;
+        }
+
+        run.permits.acquire();
+        storeRateLimiters.computeIfAbsent(request.getStoreId(), storeId -> RateLimiter.create(storeRatePerSecond)).acquire();
+        run.inFlight.incrementAndGet();
+        long start = System.nanoTime();
+        CompletableFuture<String> refund;
+        if (journal == null) {
+            refund = send(request);
+        } else {
+            // the refund is only sent once its submission is on disk
+            CompletableFuture<Void> submitted = journal.recordSubmitted(key,
+                    request.getAmount().toPlainString() + " " + request.getCurrency());
+            submitted.whenComplete((durable, e) -> {
+                if (e != null) {
+                    // nothing more can be sent safely
+                    run.error = "Failed to write the refund journal: " + e.getMessage();
+                    run.cancelled = true;
+                }
+            });
+            // sent off the journal's sync thread, so a slow or failing send does not hold up other fsyncs
+            refund = submitted.thenComposeAsync(durable -> send(request)
+                            .whenComplete((refundId, e) -> {
+                                if (e == null || isRejected(e)) {
+                                    journal.recordOutcome(key, e == null, refundId);
+                                }
+                            }));
+        }
+        refund.whenComplete((refundId, e) -> {
+            long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            run.inFlight.decrementAndGet();
+            if (e != null) {
+                logger.error("Failed to refund " + request + ": " + getMessage(e));
+            }
+            report(new RefundResult(request.getLineNumber(), request.getStoreId(), request.getTransactionId(),
+                    request.getAmount().toPlainString(), request.getCurrency(),
+                    e == null ? RefundResult.Status.REFUNDED : RefundResult.Status.FAILED, refundId,
+                    e == null ? null : getMessage(e), elapsedMillis), results, run);
+            run.permits.release();
+        });
+    }
+
+    private CompletableFuture<String> send(RefundRequest request) {
+        try {
+            return sender.refund(request);
+        } catch (RuntimeException e) {
+            CompletableFuture<String> failed = new CompletableFuture<>();
+            failed.completeExceptionally(e);
+            return failed;
+        }
+    }
+
+    private void report(RefundResult result, RefundResultWriter results, Run run) {
+        switch (result.getStatus()) {
+            case REFUNDED: run.refunded.incrementAndGet(); break;
+            case FAILED: run.failed.incrementAndGet(); break;
+            case SKIPPED: run.skipped.incrementAndGet(); break;
+            default: run.invalid.incrementAndGet();
+        }
+        try {
+            results.write(result);
+        } catch (IOException e) {
+            // without the results file there is no record of what was refunded, so stop sending
+            logger.error("Failed to write the result of line " + result.getLineNumber(), e);
+            run.error = "Failed to write the results: " + e.getMessage();
+            run.cancelled = true;
+        }
+        try {
+            run.listener.onResult(result);
+            run.listener.onProgress(run.snapshot());
+        } catch (Exception e) {
+            logger.error("ProgressListener failed", e);
+        }
+    }
+
+    private static long sizeOf(Path file) {
+        try {
+            return Files.size(file);
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    /**
+     * Whether the service declined a refund, so it was certainly not made
+     */
+    private static boolean isRejected(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof RequestRejectedException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String getMessage(Throwable e) {
+        while (!(e instanceof ClientException) && e.getCause() != null) {
+            e = e.getCause();
+        }
+        return e.getMessage();
+    }
+
+    /**
+     * Stops reading the file, and any file queued behind it. Refunds already sent complete and are
+     * written to the results file.
+     */
+    public void cancel() {
+        logger.info("Canceling batch refund");
+        for (Run run : runs) {
+            run.cancelled = true;
+        }
+    }
+
+    /**
+     * Stops the reader thread and closes the journal. The processor cannot be used afterwards.
+     */
+    public void shutdown() {
+        cancel();
+        reader.shutdownNow();
+        RefundJournal journal = this.journal;
+        if (journal != null) {
+            try {
+                journal.close();
+            } catch (IOException e) {
+                logger.error("Failed to close the refund journal", e);
+            }
+        }
+    }
+
+    /**
+     * Running totals of one file
+     */
+    private static class Run {
+        private final ProgressListener listener;
+        private final Semaphore permits;
+        private volatile long totalBytes;
+        private volatile long start = System.nanoTime();
+        private final AtomicInteger read = new AtomicInteger();
+        private final AtomicInteger inFlight = new AtomicInteger();
+        private final AtomicInteger refunded = new AtomicInteger();
+        private final AtomicInteger failed = new AtomicInteger();
+        private final AtomicInteger invalid = new AtomicInteger();
+        private final AtomicInteger skipped = new AtomicInteger();
+        private volatile long bytesRead;
+        private volatile String error;
+        private volatile boolean done;
+        //Stops reading; set by cancel() or when nothing more can be sent safely
+        private volatile boolean cancelled;
+
+        Run(ProgressListener listener, int maxConcurrent) {
+            this.listener = listener;
+            this.permits = new Semaphore(maxConcurrent);
+        }
+
+        /**
+         * Called once the reader thread picks the file up, so the time waiting behind another file is not counted
+         */
+        void start(long totalBytes) {
+            this.totalBytes = totalBytes;
+            this.start = System.nanoTime();
+        }
+
+        Progress snapshot() {
+            return new Progress(read.get(), inFlight.get(), refunded.get(), failed.get(), invalid.get(), skipped.get(),
+                    done ? totalBytes : bytesRead, totalBytes,
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), done, error);
+        }
+    }
+
+    /**
+     * Totals of one file at a point in time
+     */
+    public static class Progress {
+        private final int read;
+        private final int inFlight;
+        private final int refunded;
+        private final int failed;
+        private final int invalid;
+        private final int skipped;
+        private final long bytesRead;
+        private final long totalBytes;
+        private final long elapsedMillis;
+        private final boolean done;
+        private final String error;
+
+        public Progress(int read, int inFlight, int refunded, int failed, int invalid, int skipped, long bytesRead,
+                        long totalBytes, long elapsedMillis, boolean done, String error) {
+            this.read = read;
+            this.inFlight = inFlight;
+            this.refunded = refunded;
+            this.failed = failed;
+            this.invalid = invalid;
+            this.skipped = skipped;
+            this.bytesRead = bytesRead;
+            this.totalBytes = totalBytes;
+            this.elapsedMillis = elapsedMillis;
+            this.done = done;
+            this.error = error;
+        }
+
+        /** Number of records read from the file */
+        public int getRead() {
+            return read;
+        }
+
+        /** Number of refunds sent that have not completed */
+        public int getInFlight() {
+            return inFlight;
+        }
+
+        public int getRefunded() {
+            return refunded;
+        }
+
+        public int getFailed() {
+            return failed;
+        }
+
+        /** Number of records rejected by the validator */
+        public int getInvalid() {
+            return invalid;
+        }
+
+        /** Number of records skipped because the journal shows an earlier run sent them */
+        public int getSkipped() {
+            return skipped;
+        }
+
+        /** Number of records with a result */
+        public int getCompleted() {
+            return refunded + failed + invalid + skipped;
+        }
+
+        /**
+         * Share of the file read so far, 0 to 1
+         */
+        public double getFraction() {
+            return totalBytes == 0 ? (done ? 1 : 0) : Math.min(1, (double) bytesRead / totalBytes);
+        }
+
+        public long getElapsedMillis() {
+            return elapsedMillis;
+        }
+
+        /**
+         * Number of refunds completed per second since the file was opened
+         */
+        public double getRefundsPerSecond() {
+            return elapsedMillis == 0 ? 0 : (refunded + failed) * 1000.0 / elapsedMillis;
+        }
+
+        public boolean isDone() {
+            return done;
+        }
+
+        /** Why the file was not read to the end, or null */
+        public String getError() {
+            return error;
+        }
+
+        @Override
+        public String toString() {
+            return read + " read, " + refunded + " refunded, " + failed + " failed, " + invalid + " invalid" +
+                    (skipped > 0 ? ", " + skipped + " skipped" : "") +
+                    (inFlight > 0 ? ", " + inFlight + " in flight" : "") +
+                    String.format(" | %.1f refunds/s", getRefundsPerSecond()) +
+                    (error != null ? " | " + error : "");
+        }
+    }
+
+    /**
+     * Receives the results of a file. Methods are called from the reader thread and from SDK worker threads.
+     */
+    public interface ProgressListener {
+        public void onResult(RefundResult result);
+        public void onProgress(Progress progress);
+        public void onFinished(Progress progress);
+    }
+}
@@ -0,0 +1,84 @@
+package com.paypal.merchant.retail.tools.refund;
+
+/**
+ * Open addressing hash map from 64-bit fingerprints to a small state, for millions of entries.
+ *
+ * <p>Each entry costs about 13 bytes (under 20 with free slots), where a HashMap of String keys
+ * costs over 100, and lookups do not allocate. Fingerprint 0 marks a free slot, so it is stored as 1.
+ * Not thread safe.
+ */
+class FingerprintIndex {
+    private static final double MAX_LOAD = 0.7;
+
+    private long[] fingerprints;
+    private byte[] states;
+    private int size;
+
+    FingerprintIndex(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(16, (int) (expectedSize / MAX_LOAD)) - 1) << 1;
+        fingerprints = new long[capacity];
+        states = new byte[capacity];
+    }
+
+    /**
+     * @return The state of the fingerprint, or 0 if it is not in the index
+     */
+    byte get(long fingerprint) {
+        fingerprint = fingerprint == 0 ? 1 : fingerprint;
+        int mask = fingerprints.length - 1;
+        for (int i = slot(fingerprint, mask); fingerprints[i] != 0; i = (i + 1) & mask) {
+            if (fingerprints[i] == fingerprint) {
+                return states[i];
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * @param state - The new state, not 0
+     */
+    void put(long fingerprint, byte state) {
+        fingerprint = fingerprint == 0 ? 1 : fingerprint;
+        int mask = fingerprints.length - 1;
+        int i = slot(fingerprint, mask);
+        while (fingerprints[i] != 0) {
+            if (fingerprints[i] == fingerprint) {
+                states[i] = state;
+                return;
+            }
+            i = (i + 1) & mask;
+        }
+        fingerprints[i] = fingerprint;
+        states[i] = state;
+        if (++size > fingerprints.length * MAX_LOAD) {
+            resize();
+        }
+    }
+
+    int size() {
+        return size;
+    }
+
+    private static int slot(long fingerprint, int mask) {
+        // the fingerprints are already hashes; fold the high bits in so every bit picks the slot
+        return (int) (fingerprint ^ (fingerprint >>> 32)) & mask;
+    }
+
+    private void resize() {
+        long[] oldFingerprints = fingerprints;
+        byte[] oldStates = states;
+        fingerprints = new long[oldFingerprints.length * 2];
+        states = new byte[oldStates.length * 2];
+        int mask = fingerprints.length - 1;
+        for (int j = 0; j < oldFingerprints.length; j++) {
+            if (oldFingerprints[j] != 0) {
+                int i = slot(oldFingerprints[j], mask);
+                while (fingerprints[i] != 0) {
+                    i = (i + 1) & mask;
+                }
+                fingerprints[i] = oldFingerprints[j];
+                states[i] = oldStates[j];
+            }
+        }
+    }
+}
@@ -0,0 +1,344 @@
+package com.paypal.merchant.retail.tools.refund;
+
+import org.apache.commons.io.input.CountingInputStream;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Reads the records of a refund file one at a time, so a file of any size is never held in memory.
+ *
+ * <p>Files ending in .json, .jsonl or .ndjson are read as JSON: either an array of flat objects or one
+ * object per line. Any other file is read as CSV with a header row; quoted values may contain commas,
+ * doubled quotes and line breaks. Field names are matched in lower case, with spaces and dashes read
+ * as underscores, so "Transaction ID" and "transaction_id" are the same field.
+ *
+ * <p>A CSV record with more values than the header, or a JSON record with a nested value, is returned
+ * with an error. Malformed JSON cannot be resynchronized and stops the file with an IOException.
+ */
+public abstract class RefundFileReader implements Closeable {
+    private final CountingInputStream counter;
+    protected final BufferedReader reader;
+
+    protected RefundFileReader(InputStream in) {
+        this.counter = new CountingInputStream(in);
+        this.reader = new BufferedReader(new InputStreamReader(counter, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Opens a CSV or JSON refund file, chosen by its extension
+     */
+    public static RefundFileReader open(Path file) throws IOException {
+        String name = file.getFileName().toString().toLowerCase(Locale.ROOT);
+        InputStream in = Files.newInputStream(file);
+        if (name.endsWith(".json") || name.endsWith(".jsonl") || name.endsWith(".ndjson")) {
+            return new JsonReader(in);
+        }
+        return new CsvReader(in);
+    }
+
+    /**
+     * Reads the next record
+     *
+     * @return The record, or null at the end of the file
+     * @throws IOException if the file cannot be read or its structure is broken
+     */
+    public abstract RefundRow next() throws IOException;
+
+    /**
+     * Number of bytes of the file read so far, including read-ahead
+     */
+    public long getBytesRead() {
+        return counter.getByteCount();
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    static String normalizeName(String name) {
+        return name.replace("\uFEFF", "").trim().toLowerCase(Locale.ROOT).replaceAll("[\\s-]+", "_");
+    }
+
+    private static class CsvReader extends RefundFileReader {
+        private List<String> header;
+        private long lineNumber;
+
+        CsvReader(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public RefundRow next() throws IOException {
+            if (header == null) {
+                List<String> names = readRecord();
+                if (names == null) {
+                    return null;
+                }
+                header = new ArrayList<>();
+                for (String name : names) {
+                    header.add(normalizeName(name));
+                }
+            }
+            List<String> values = readRecord();
+            if (values == null) {
+                return null;
+            }
+            long start = lineNumber - countLineBreaks(values);
+            Map<String, String> fields = new LinkedHashMap<>();
+            for (int i = 0; i < Math.min(values.size(), header.size()); i++) {
+                fields.put(header.get(i), values.get(i));
+            }
+            String error = values.size() > header.size() ?
+                    "Has " + values.size() + " values but the header has " + header.size() : null;
+            return new RefundRow(start, fields, error);
+        }
+
+        private static int countLineBreaks(List<String> values) {
+            int count = 0;
+            for (String value : values) {
+                for (int i = 0; i < value.length(); i++) {
+                    if (value.charAt(i) == '\n') {
+                        count++;
+                    }
+                }
+            }
+            return count;
+        }
+
+        /**
+         * Reads the values of the next non-blank record, which spans several lines if a quoted value has line breaks
+         */
+        private List<String> readRecord() throws IOException {
+            String line;
+            do {
+                line = reader.readLine();
+                lineNumber++;
+                if (line == null) {
+                    return null;
+                }
+            } while (line.trim().isEmpty());
+
+            List<String> values = new ArrayList<>();
+            StringBuilder value = new StringBuilder();
+            boolean quoted = false;
+            int i = 0;
+            while (true) {
+                if (i == line.length()) {
+                    if (!quoted) {
+                        break;
+                    }
+                    line = reader.readLine();
+                    if (line == null) {
+                        break;
+                    }
+                    lineNumber++;
+                    value.append('\n');
+                    i = 0;
+                    continue;
+                }
+                char c = line.charAt(i++);
+                if (quoted) {
+                    if (c != '"') {
+                        value.append(c);
+                    } else if (i < line.length() && line.charAt(i) == '"') {
+                        value.append('"');
+                        i++;
+                    } else {
+                        quoted = false;
+                    }
+                } else if (c == '"') {
+                    quoted = true;
+                } else if (c == ',') {
+                    values.add(value.toString());
+                    value.setLength(0);
+                } else {
+                    value.append(c);
+                }
+            }
+            values.add(value.toString());
+            return values;
+        }
+    }
+
+    private static class JsonReader extends RefundFileReader {
+        private long lineNumber = 1;
+        private int peeked = -2;
+
+        JsonReader(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public RefundRow next() throws IOException {
+            int c;
+            // records may be in a top level array, or one after another
+            while ((c = skipWhitespace()) == '[' || c == ']' || c == ',') {
+                read();
+            }
+            if (c == -1) {
+                return null;
+            }
+            if (c != '{') {
+                throw syntaxError("Expected an object");
+            }
+            long start = lineNumber;
+            read();
+            Map<String, String> fields = new LinkedHashMap<>();
+            String error = null;
+            if (skipWhitespace() == '}') {
+                read();
+                return new RefundRow(start, fields, null);
+            }
+            while (true) {
+                if (skipWhitespace() != '"') {
+                    throw syntaxError("Expected a field name");
+                }
+                read();
+                String name = readString();
+                if (skipWhitespace() != ':') {
+                    throw syntaxError("Expected ':'");
+                }
+                read();
+                c = skipWhitespace();
+                if (c == '{' || c == '[') {
+                    skipNested();
+                    error = "Field " + name + " is not a single value";
+                } else {
+                    fields.put(normalizeName(name), readValue());
+                }
+                c = skipWhitespace();
+                read();
+                if (c == '}') {
+                    return new RefundRow(start, fields, error);
+                }
+                if (c != ',') {
+                    throw syntaxError("Expected ',' or '}'");
+                }
+            }
+        }
+
+        /**
+         * Reads a string, number, true, false or null; null is returned as an empty value
+         */
+        private String readValue() throws IOException {
+            if (peek() == '"') {
+                read();
+                return readString();
+            }
+            StringBuilder value = new StringBuilder();
+            int c;
+            while ((c = peek()) != -1 && c != ',' && c != '}' && !Character.isWhitespace(c)) {
+                value.append((char) read());
+            }
+            String literal = value.toString();
+            if (literal.equals("null")) {
+                return "";
+            }
+            if (!literal.equals("true") && !literal.equals("false") && !literal.matches("-?\\d+(\\.\\d+)?([eE][-+]?\\d+)?")) {
+                throw syntaxError("Unexpected value '" + literal + "'");
+            }
+            return literal;
+        }
+
+        /**
+         * Reads the rest of a string after its opening quote
+         */
+        private String readString() throws IOException {
+            StringBuilder value = new StringBuilder();
+            while (true) {
+                int c = read();
+                if (c == -1 || c == '\n') {
+                    throw syntaxError("Unterminated string");
+                }
+                if (c == '"') {
+                    return value.toString();
+                }
+                if (c != '\\') {
+                    value.append((char) c);
+                    continue;
+                }
+                c = read();
+                switch (c) {
+                    case 'n': value.append('\n'); break;
+                    case 't': value.append('\t'); break;
+                    case 'r': value.append('\r'); break;
+                    case 'b': value.append('\b'); break;
+                    case 'f': value.append('\f'); break;
+                    case 'u':
+                        char[] hex = new char[4];
+                        for (int i = 0; i < hex.length; i++) {
+                            hex[i] = (char) read();
+                        }
+                        try {
+                            value.append((char) Integer.parseInt(new String(hex), 16));
+                        } catch (NumberFormatException e) {
+                            throw syntaxError("Bad unicode escape");
+                        }
+                        break;
+                    case -1: throw syntaxError("Unterminated string");
+                    default: value.append((char) c);
+                }
+            }
+        }
+
+        /**
+         * Skips a nested object or array, including any strings in it
+         */
+        private void skipNested() throws IOException {
+            int depth = 0;
+            do {
+                int c = read();
+                if (c == -1) {
+                    throw syntaxError("Unexpected end of file");
+                } else if (c == '"') {
+                    readString();
+                } else if (c == '{' || c == '[') {
+                    depth++;
+                } else if (c == '}' || c == ']') {
+                    depth--;
+                }
+            } while (depth > 0);
+        }
+
+        private int skipWhitespace() throws IOException {
+            int c;
+            while ((c = peek()) != -1 && Character.isWhitespace(c)) {
+                read();
+            }
+            return c;
+        }
+
+        private int peek() throws IOException {
+            if (peeked == -2) {
+                peeked = reader.read();
+            }
+            return peeked;
+        }
+
+        private int read() throws IOException {
+            int c = peek();
+            peeked = -2;
+            if (c == '\n') {
+                lineNumber++;
+            }
+            return c;
+        }
+
+        private IOException syntaxError(String message) {
+            return new IOException("Line " + lineNumber + ": " + message);
+        }
+    }
+}
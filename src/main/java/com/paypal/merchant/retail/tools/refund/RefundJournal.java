@@ -0,0 +1,410 @@
+package com.paypal.merchant.retail.tools.refund;
+
+import com.google.common.hash.Hashing;
+import com.paypal.merchant.retail.tools.util.JournalRecords;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Append-only record of the refunds sent and their outcomes, so a batch that dies part way can be run
+ * again without refunding anything twice.
+ *
+ * <p>Every refund is recorded under an idempotency key before it is sent, and its outcome once it
+ * completes. The journal is a directory of segment files, refunds-000001.journal and on, each rolled
+ * at segmentBytes. Records are in the {@link JournalRecords} format, so a line torn by a crash is
+ * detected; the torn tail of the last segment is cut off when the journal is opened.
+ *
+ * <p>A submission is only durable once it is fsynced. A single sync thread fsyncs everything written
+ * since its last sync, so concurrent refunds share one fsync instead of each paying for their own.
+ * The sync thread completes the submissions without holding the journal's lock, so what runs next
+ * may record to the journal again.
+ * Outcomes are not waited for; one lost in a crash leaves its refund as submitted.
+ *
+ * <p>On open every segment is replayed into an index of 64-bit key fingerprints, so
+ * {@link #getState(String)} is O(1) and the index of millions of refunds fits in tens of megabytes.
+ * Two keys with the same fingerprint (about one chance in 10^7 for a million keys) make the second
+ * refund look already sent; it is then skipped, never sent twice.
+ */
+public class RefundJournal implements Closeable {
+    private static Logger logger = LoggerFactory.getLogger(RefundJournal.class);
+    private static final String SEGMENT_PREFIX = "refunds-";
+    private static final String SEGMENT_SUFFIX = ".journal";
+    private static final char SUBMITTED = 'S';
+    private static final char REFUNDED = 'R';
+    private static final char FAILED = 'F';
+
+    private final Path directory;
+    private final long segmentBytes;
+    private final Object lock = new Object();
+    private final FingerprintIndex index = new FingerprintIndex(1024);
+    private final Queue<Waiter> waiters = new ArrayDeque<>();
+    private final Thread syncThread;
+    private FileChannel channel;
+    private int segmentNumber;
+    private long segmentSize;
+    private long written;
+    private long synced;
+    private IOException failure;
+    private boolean closed;
+
+    private RefundJournal(Path directory, long segmentBytes) {
+        this.directory = directory;
+        this.segmentBytes = segmentBytes;
+        this.syncThread = new Thread(this::syncLoop, "refund-journal-sync");
+        this.syncThread.setDaemon(true);
+    }
+
+    /**
+     * Opens the journal in a directory, creating it if needed, and replays every segment
+     *
+     * @param segmentBytes - Size at which a new segment file is started
+     */
+    public static RefundJournal open(Path directory, long segmentBytes) throws IOException {
+        RefundJournal journal = new RefundJournal(directory, segmentBytes);
+        journal.replay();
+        journal.syncThread.start();
+        // outcomes still unsynced are written when the JVM exits
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            try {
+                journal.close();
+            } catch (IOException e) {
+                logger.error("Failed to close the refund journal", e);
+            }
+        }, "refund-journal-close"));
+        return journal;
+    }
+
+    private void replay() throws IOException {
+        Files.createDirectories(directory);
+        List<Path> segments = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, SEGMENT_PREFIX + "*" + SEGMENT_SUFFIX)) {
+            for (Path file : files) {
+                segments.add(file);
+            }
+        }
+        Collections.sort(segments);
+
+        long start = System.currentTimeMillis();
+        long records = 0;
+        long validLength = 0;
+        for (int i = 0; i < segments.size(); i++) {
+            boolean last = i == segments.size() - 1;
+            long[] result = replaySegment(segments.get(i), last);
+            records += result[0];
+            validLength = result[1];
+        }
+
+        if (segments.isEmpty()) {
+            openSegment(1);
+        } else {
+            Path last = segments.get(segments.size() - 1);
+            segmentNumber = parseSegmentNumber(last);
+            channel = FileChannel.open(last, StandardOpenOption.WRITE);
+            if (channel.size() > validLength) {
+                logger.warn("Cutting off " + (channel.size() - validLength) + " torn bytes at the end of " + last);
+                channel.truncate(validLength);
+                channel.force(false);
+            }
+            channel.position(validLength);
+            segmentSize = validLength;
+        }
+        logger.info("Replayed " + records + " records of " + index.size() + " refunds from " + segments.size() +
+                " journal segments in " + directory + " in " + (System.currentTimeMillis() - start) + " ms");
+    }
+
+    /**
+     * Adds the records of a segment to the index
+     *
+     * @param last - Whether this is the segment that was being written; a bad record there ends it
+     * @return The number of records read, and the length of the segment up to the first bad record
+     */
+    private long[] replaySegment(Path segment, boolean last) throws IOException {
+        long[] records = new long[1];
+        long length = JournalRecords.read(segment, last, record -> {
+            index.put(fingerprint(record[1]), (byte) record[0].charAt(0));
+            records[0]++;
+        });
+        return new long[]{records[0], length};
+    }
+
+    /**
+     * Returns what is known of the refund with this key
+     *
+     * @return The state, or null if it was never submitted
+     */
+    public State getState(String key) {
+        byte state;
+        synchronized (lock) {
+            state = index.get(fingerprint(key));
+        }
+        switch (state) {
+            case SUBMITTED: return State.SUBMITTED;
+            case REFUNDED: return State.REFUNDED;
+            case FAILED: return State.FAILED;
+            default: return null;
+        }
+    }
+
+    /**
+     * Records that a refund is about to be sent. The refund must not be sent until the future completes.
+     *
+     * @param detail - What is refunded, for people reading the journal
+     * @return Future completed once the record is fsynced, or exceptionally if the journal cannot be written
+     */
+    public CompletableFuture<Void> recordSubmitted(String key, String detail) {
+        CompletableFuture<Void> durable = new CompletableFuture<>();
+        IOException error = null;
+        synchronized (lock) {
+            try {
+                long position = append(SUBMITTED, key, detail);
+                waiters.add(new Waiter(position, durable));
+                lock.notifyAll();
+            } catch (IOException e) {
+                error = e;
+            }
+        }
+        if (error != null) {
+            durable.completeExceptionally(error);
+        }
+        return durable;
+    }
+
+    /**
+     * Records the outcome of a refund. Does not wait for the record to be fsynced.
+     *
+     * @param refunded - true if it was refunded, false only if the service declined it
+     * @param refundId - The id of the refund, or null if it was declined
+     */
+    public void recordOutcome(String key, boolean refunded, String refundId) {
+        synchronized (lock) {
+            try {
+                append(refunded ? REFUNDED : FAILED, key, refundId);
+                lock.notifyAll();
+            } catch (IOException e) {
+                logger.error("Failed to record the outcome of refund " + key + " in the journal", e);
+            }
+        }
+    }
+
+    /**
+     * Writes one record to the current segment. Called with the lock held.
+     *
+     * @return The position in the journal after the record
+     */
+    private long append(char type, String key, String detail) throws IOException {
+        if (failure != null) {
+            throw new IOException("The refund journal failed earlier", failure);
+        }
+        if (closed) {
+            throw new IOException("The refund journal is closed");
+        }
+        if (segmentSize >= segmentBytes) {
+            rollSegment();
+        }
+        ByteBuffer record = ByteBuffer.wrap(JournalRecords.encode(type, key, detail));
+        int length = record.remaining();
+        try {
+            while (record.hasRemaining()) {
+                channel.write(record);
+            }
+        } catch (IOException e) {
+            failure = e;
+            throw e;
+        }
+        index.put(fingerprint(key), (byte) type);
+        segmentSize += length;
+        written += length;
+        return written;
+    }
+
+    /**
+     * Fsyncs whatever was written since the last fsync and completes the submissions it covers
+     */
+    private void syncLoop() {
+        while (true) {
+            long target;
+            FileChannel toSync;
+            List<Waiter> failed = null;
+            IOException failedWith = null;
+            synchronized (lock) {
+                while (written == synced && !closed && failure == null && !hasDurableWaiters()) {
+                    try {
+                        lock.wait();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                }
+                if (failure != null) {
+                    failed = takeWaiters(Long.MAX_VALUE);
+                    failedWith = failure;
+                    target = 0;
+                    toSync = null;
+                } else if (written == synced && !hasDurableWaiters()) {
+                    return;
+                } else {
+                    target = written;
+                    // a rolled segment was fsynced when it was closed; only its submissions are left to complete
+                    toSync = written == synced ? null : channel;
+                }
+            }
+            if (failed != null) {
+                for (Waiter waiter : failed) {
+                    waiter.durable.completeExceptionally(failedWith);
+                }
+                return;
+            }
+            IOException error = null;
+            if (toSync != null) {
+                try {
+                    toSync.force(false);
+                } catch (IOException e) {
+                    error = e;
+                }
+            }
+            List<Waiter> durable;
+            synchronized (lock) {
+                if (error != null && toSync == channel) {
+                    logger.error("Failed to fsync the refund journal", error);
+                    failure = error;
+                    continue;
+                }
+                // a segment rolled while this fsync ran has already synced everything it held
+                synced = Math.max(synced, target);
+                durable = takeWaiters(synced);
+            }
+            for (Waiter waiter : durable) {
+                waiter.durable.complete(null);
+            }
+        }
+    }
+
+    /**
+     * Fsyncs and closes the current segment and starts the next one. The submissions the closed segment
+     * holds are left for the sync thread to complete. Called with the lock held.
+     */
+    private void rollSegment() throws IOException {
+        try {
+            channel.force(false);
+            channel.close();
+            openSegment(segmentNumber + 1);
+            synced = written;
+            lock.notifyAll();
+        } catch (IOException e) {
+            logger.error("Failed to start a new refund journal segment", e);
+            failure = e;
+            lock.notifyAll();
+            throw e;
+        }
+    }
+
+    private void openSegment(int number) throws IOException {
+        segmentNumber = number;
+        segmentSize = 0;
+        channel = FileChannel.open(directory.resolve(String.format(SEGMENT_PREFIX + "%06d" + SEGMENT_SUFFIX, number)),
+                StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+    }
+
+    private boolean hasDurableWaiters() {
+        return !waiters.isEmpty() && waiters.peek().position <= synced;
+    }
+
+    /**
+     * Removes the waiters for records up to a position. Called with the lock held; the waiters are
+     * completed once it is released.
+     */
+    private List<Waiter> takeWaiters(long position) {
+        List<Waiter> taken = new ArrayList<>();
+        while (!waiters.isEmpty() && waiters.peek().position <= position) {
+            taken.add(waiters.poll());
+        }
+        return taken;
+    }
+
+    /**
+     * Number of refunds in the journal
+     */
+    public int size() {
+        synchronized (lock) {
+            return index.size();
+        }
+    }
+
+    /**
+     * Fsyncs every record and closes the journal
+     */
+    @Override
+    public void close() throws IOException {
+        synchronized (lock) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            lock.notifyAll();
+        }
+        try {
+            syncThread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        List<Waiter> durable;
+        synchronized (lock) {
+            if (failure == null) {
+                channel.force(false);
+                synced = written;
+            }
+            durable = takeWaiters(synced);
+            channel.close();
+        }
+        for (Waiter waiter : durable) {
+            waiter.durable.complete(null);
+        }
+    }
+
+    private static int parseSegmentNumber(Path segment) {
+        String name = segment.getFileName().toString();
+        return Integer.parseInt(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+    }
+
+    private static long fingerprint(String key) {
+        return Hashing.murmur3_128().hashString(JournalRecords.clean(key), StandardCharsets.UTF_8).asLong();
+    }
+
+    /**
+     * What the journal knows of a refund
+     */
+    public enum State {
+        /** Sent, with no outcome recorded; it may or may not have been refunded */
+        SUBMITTED,
+        /** Refunded */
+        REFUNDED,
+        /** Declined by the service; it may be sent again */
+        FAILED
+    }
+
+    private static class Waiter {
+        private final long position;
+        private final CompletableFuture<Void> durable;
+
+        Waiter(long position, CompletableFuture<Void> durable) {
+            this.position = position;
+            this.durable = durable;
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.paypal.merchant.retail.tools.refund;
+
+import java.math.BigDecimal;
+
+/**
+ * A validated refund of one transaction
+ */
+public class RefundRequest {
+    private final long lineNumber;
+    private final String storeId;
+    private final String transactionId;
+    private final BigDecimal amount;
+    private final String currency;
+    private final String reason;
+
+    public RefundRequest(long lineNumber, String storeId, String transactionId, BigDecimal amount, String currency, String reason) {
+        this.lineNumber = lineNumber;
+        this.storeId = storeId;
+        this.transactionId = transactionId;
+        this.amount = amount;
+        this.currency = currency;
+        this.reason = reason;
+    }
+
+    /** The line of the refund file the request was read from */
+    public long getLineNumber() {
+        return lineNumber;
+    }
+
+    public String getStoreId() {
+        return storeId;
+    }
+
+    public String getTransactionId() {
+        return transactionId;
+    }
+
+    public BigDecimal getAmount() {
+        return amount;
+    }
+
+    public String getCurrency() {
+        return currency;
+    }
+
+    /**
+     * Identifies the refund across runs, so the same transaction of a store is never refunded twice
+     */
+    public String getIdempotencyKey() {
+        return storeId + ":" + transactionId;
+    }
+
+    /** The reason given for the refund, or null */
+    public String getReason() {
+        return reason;
+    }
+
+    @Override
+    public String toString() {
+        return transactionId + " (" + amount.toPlainString() + " " + currency + ") | StoreId: " + storeId;
+    }
+}
@@ -0,0 +1,81 @@
+package com.paypal.merchant.retail.tools.refund;
+
+/**
+ * The outcome of one record of a refund file
+ */
+public class RefundResult {
+    private final long lineNumber;
+    private final String storeId;
+    private final String transactionId;
+    private final String amount;
+    private final String currency;
+    private final Status status;
+    private final String refundId;
+    private final String message;
+    private final long elapsedMillis;
+
+    /**
+     * @param amount - The amount as given in the file
+     * @param refundId - The id of the refund, or null if it was not made
+     * @param elapsedMillis - Time spent refunding, 0 if nothing was sent
+     */
+    public RefundResult(long lineNumber, String storeId, String transactionId, String amount, String currency,
+                        Status status, String refundId, String message, long elapsedMillis) {
+        this.lineNumber = lineNumber;
+        this.storeId = storeId;
+        this.transactionId = transactionId;
+        this.amount = amount;
+        this.currency = currency;
+        this.status = status;
+        this.refundId = refundId;
+        this.message = message;
+        this.elapsedMillis = elapsedMillis;
+    }
+
+    public long getLineNumber() {
+        return lineNumber;
+    }
+
+    public String getStoreId() {
+        return storeId;
+    }
+
+    public String getTransactionId() {
+        return transactionId;
+    }
+
+    public String getAmount() {
+        return amount;
+    }
+
+    public String getCurrency() {
+        return currency;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public String getRefundId() {
+        return refundId;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    public enum Status {
+        /** The refund was made */
+        REFUNDED,
+        /** The refund was sent and failed */
+        FAILED,
+        /** The record was rejected and nothing was sent */
+        INVALID,
+        /** The refund was sent by an earlier run and was not sent again */
+        SKIPPED
+    }
+}
@@ -0,0 +1,76 @@
+package com.paypal.merchant.retail.tools.refund;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Writes the result of every record of a refund file to a CSV file as it completes.
+ *
+ * <p>Results are in the order they complete, not the order of the input; the line column gives the
+ * input line. The file is flushed every flushEvery results, so a crash loses at most that many.
+ */
+public class RefundResultWriter implements Closeable {
+    private static final String HEADER = "line,store_id,transaction_id,amount,currency,status,refund_id,message,elapsed_ms";
+
+    private final BufferedWriter writer;
+    private final int flushEvery;
+    private int unflushed;
+
+    /**
+     * Creates or replaces the file
+     *
+     * @param flushEvery - Number of results written between flushes
+     */
+    public RefundResultWriter(Path file, int flushEvery) throws IOException {
+        this.writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8);
+        this.flushEvery = Math.max(1, flushEvery);
+        writer.write(HEADER);
+        writer.newLine();
+    }
+
+    /**
+     * Returns where the results of a refund file are written: next to it, as [name].results.csv
+     */
+    public static Path resultsPathFor(Path refundFile) {
+        String name = refundFile.getFileName().toString();
+        int extension = name.lastIndexOf('.');
+        return refundFile.resolveSibling((extension > 0 ? name.substring(0, extension) : name) + ".results.csv");
+    }
+
+    /**
+     * May be called from any thread
+     */
+    public synchronized void write(RefundResult result) throws IOException {
+        writer.write(String.valueOf(result.getLineNumber()));
+        for (String value : new String[]{result.getStoreId(), result.getTransactionId(), result.getAmount(),
+                result.getCurrency(), result.getStatus().name(), result.getRefundId(), result.getMessage(),
+                String.valueOf(result.getElapsedMillis())}) {
+            writer.write(',');
+            writer.write(escape(value));
+        }
+        writer.newLine();
+        if (++unflushed >= flushEvery) {
+            writer.flush();
+            unflushed = 0;
+        }
+    }
+
+    private static String escape(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        writer.close();
+    }
+}
@@ -0,0 +1,47 @@
+package com.paypal.merchant.retail.tools.refund;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * One record read from a refund file, before it is validated
+ */
+public class RefundRow {
+    private final long lineNumber;
+    private final Map<String, String> fields;
+    private final String error;
+
+    /**
+     * @param lineNumber - The line of the file the record starts on
+     * @param fields - The values by lower case field name
+     * @param error - Why the record could not be read, or null
+     */
+    public RefundRow(long lineNumber, Map<String, String> fields, String error) {
+        this.lineNumber = lineNumber;
+        this.fields = Collections.unmodifiableMap(fields);
+        this.error = error;
+    }
+
+    public long getLineNumber() {
+        return lineNumber;
+    }
+
+    /**
+     * Returns the trimmed value of a field, or null if it is missing or blank
+     */
+    public String get(String field) {
+        String value = fields.get(field);
+        if (value == null || value.trim().isEmpty()) {
+            return null;
+        }
+        return value.trim();
+    }
+
+    public Map<String, String> getFields() {
+        return fields;
+    }
+
+    public String getError() {
+        return error;
+    }
+}
@@ -0,0 +1,15 @@
+package com.paypal.merchant.retail.tools.refund;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Makes a single refund without blocking
+ */
+public interface RefundSender {
+    /**
+     * @return Future completed with the id of the refund, or exceptionally if the refund failed. A
+     * {@link com.paypal.merchant.retail.tools.exception.RequestRejectedException} means the service
+     * declined it; any other exception leaves it unknown whether the refund was made.
+     */
+    public CompletableFuture<String> refund(RefundRequest request);
+}
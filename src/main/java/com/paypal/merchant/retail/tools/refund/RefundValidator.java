@@ -0,0 +1,101 @@
+package com.paypal.merchant.retail.tools.refund;
+
+import com.paypal.merchant.retail.tools.exception.ValidationException;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Checks the records of a refund file and turns them into {@link RefundRequest}s.
+ *
+ * <p>Every record needs a transaction_id and a positive amount with at most two decimals. A missing
+ * store_id or currency falls back to the defaults, and the store must be one of the known stores.
+ * A transaction that appears twice for the same store is rejected the second time, so it cannot be
+ * refunded twice from one file.
+ *
+ * <p>Not thread safe; a validator remembers the transactions of one file.
+ */
+public class RefundValidator {
+    public static final String STORE_ID = "store_id";
+    public static final String TRANSACTION_ID = "transaction_id";
+    public static final String AMOUNT = "amount";
+    public static final String CURRENCY = "currency";
+    public static final String REASON = "reason";
+
+    private static final Pattern TRANSACTION_ID_PATTERN = Pattern.compile("[A-Za-z0-9_-]{1,64}");
+    private static final Pattern CURRENCY_PATTERN = Pattern.compile("[A-Z]{3}");
+
+    private final Set<String> storeIds;
+    private final String defaultStoreId;
+    private final String defaultCurrency;
+    private final Set<String> seen = new HashSet<>();
+
+    /**
+     * @param storeIds - The stores refunds may be made for
+     * @param defaultStoreId - The store of records without a store_id, or null to require one
+     * @param defaultCurrency - The currency of records without one, or null to require one
+     */
+    public RefundValidator(Collection<String> storeIds, String defaultStoreId, String defaultCurrency) {
+        this.storeIds = new HashSet<>(storeIds);
+        this.defaultStoreId = defaultStoreId;
+        this.defaultCurrency = defaultCurrency;
+    }
+
+    /**
+     * @throws ValidationException if the record cannot be refunded
+     */
+    public RefundRequest validate(RefundRow row) throws ValidationException {
+        if (row.getError() != null) {
+            throw new ValidationException(row.getError());
+        }
+        String storeId = row.get(STORE_ID) != null ? row.get(STORE_ID) : defaultStoreId;
+        if (storeId == null) {
+            throw new ValidationException("Missing " + STORE_ID);
+        }
+        if (!storeIds.contains(storeId)) {
+            throw new ValidationException("Unknown store " + storeId);
+        }
+
+        String transactionId = row.get(TRANSACTION_ID);
+        if (transactionId == null) {
+            throw new ValidationException("Missing " + TRANSACTION_ID);
+        }
+        if (!TRANSACTION_ID_PATTERN.matcher(transactionId).matches()) {
+            throw new ValidationException("Invalid " + TRANSACTION_ID + " " + transactionId);
+        }
+
+        String amountValue = row.get(AMOUNT);
+        if (amountValue == null) {
+            throw new ValidationException("Missing " + AMOUNT);
+        }
+        BigDecimal amount;
+        try {
+            amount = new BigDecimal(amountValue);
+        } catch (NumberFormatException e) {
+            throw new ValidationException("Invalid " + AMOUNT + " " + amountValue);
+        }
+        if (amount.signum() <= 0) {
+            throw new ValidationException("The " + AMOUNT + " must be more than 0");
+        }
+        if (amount.stripTrailingZeros().scale() > 2) {
+            throw new ValidationException("The " + AMOUNT + " " + amountValue + " has more than 2 decimals");
+        }
+
+        String currency = row.get(CURRENCY) != null ? row.get(CURRENCY).toUpperCase(Locale.ROOT) : defaultCurrency;
+        if (currency == null) {
+            throw new ValidationException("Missing " + CURRENCY);
+        }
+        if (!CURRENCY_PATTERN.matcher(currency).matches()) {
+            throw new ValidationException("Invalid " + CURRENCY + " " + currency);
+        }
+
+        if (!seen.add(storeId + ":" + transactionId)) {
+            throw new ValidationException("Duplicate of an earlier refund of " + transactionId);
+        }
+        return new RefundRequest(row.getLineNumber(), storeId, transactionId, amount.setScale(2), currency, row.get(REASON));
+    }
+}
@@ -0,0 +1,52 @@
+package com.paypal.merchant.retail.tools.standin;
+
+import java.util.Random;
+
+/**
+ * Response time of a simulated SDK service call, in milliseconds.
+ *
+ * <pre>
+ * fixed:50            always 50 ms
+ * uniform:20:200      between 20 and 200 ms
+ * exponential:100     100 ms on average
+ * lognormal:80:1500   80 ms median with a 99th percentile of 1500 ms (a long tail)
+ * </pre>
+ */
+public interface LatencyDistribution {
+    /** z-score of the 99th percentile of the standard normal distribution */
+    double Z_99 = 2.326;
+
+    long nextMillis(Random random);
+
+    /**
+     * @throws IllegalArgumentException if the spec is not one of the forms above
+     */
+    static LatencyDistribution parse(String spec) {
+        String[] parts = spec.trim().split(":");
+        try {
+            switch (parts[0]) {
+                case "fixed":
+                    long fixed = Long.parseLong(parts[1]);
+                    return random -> fixed;
+                case "uniform":
+                    long min = Long.parseLong(parts[1]);
+                    long max = Long.parseLong(parts[2]);
+                    if (max < min) {
+                        throw new IllegalArgumentException("uniform max is below min: " + spec);
+                    }
+                    return random -> min + (long) (random.nextDouble() * (max - min + 1));
+                case "exponential":
+                    double mean = Double.parseDouble(parts[1]);
+                    return random -> (long) (-mean * Math.log(1 - random.nextDouble()));
+                case "lognormal":
+                    double mu = Math.log(Double.parseDouble(parts[1]));
+                    double sigma = Math.max(0, (Math.log(Double.parseDouble(parts[2])) - mu) / Z_99);
+                    return random -> (long) Math.exp(mu + sigma * random.nextGaussian());
+                default:
+                    throw new IllegalArgumentException("Unknown latency distribution: " + spec);
+            }
+        } catch (NumberFormatException | ArrayIndexOutOfBoundsException e) {
+            throw new IllegalArgumentException("Invalid latency distribution: " + spec, e);
+        }
+    }
+}
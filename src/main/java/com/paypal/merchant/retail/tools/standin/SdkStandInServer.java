@@ -0,0 +1,387 @@
+package com.paypal.merchant.retail.tools.standin;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.paypal.merchant.retail.tools.client.SdkClient;
+import com.paypal.merchant.retail.tools.util.PropertyManager;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.apache.commons.io.IOUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.TimeZone;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Loopback HTTP stand-in for the openId, here, pos and ec services of Config.xml, for load testing
+ * the tool with thousands of simulated stores and no network.
+ *
+ * <p>The server generates N stores and writes a Config.xml that points every service at
+ * http://127.0.0.1:[port]/[service]/. Each request is answered after a delay drawn from a
+ * {@link LatencyDistribution}; a share of requests fails with HTTP 500 and another share is never
+ * answered and is dropped after the timeout. Responses are sent from a timer, so thousands of
+ * delayed responses do not hold a thread each.
+ *
+ * <p>Routing follows the responses recorded in the debug logs rather than a published API:
+ * any openId request gets a Bearer token; a here request that names a simulated location id
+ * anywhere in its path or query gets that Location, and a PUT, POST or PATCH first applies
+ * "availability" (or an "open" boolean) from its body; pos and ec requests get an empty object.
+ *
+ * <p>Started in-process by {@link #startIfEnabled()} when sdk.standin.enabled is true, or on its own:
+ * <pre>
+ * java -cp paypal-retail-tools.jar com.paypal.merchant.retail.tools.standin.SdkStandInServer
+ *      [--stores N] [--port P] [--latency spec] [--error-rate R] [--timeout-rate R] [--config path]
+ * </pre>
+ * and then the tool with -DConfig.xml=path.
+ */
+public class SdkStandInServer implements Closeable {
+    private static Logger logger = LoggerFactory.getLogger(SdkStandInServer.class);
+
+    static final String OPENID_PATH = "/openid/";
+    static final String HERE_PATH = "/here/";
+    static final String POS_PATH = "/pos/";
+    static final String EC_PATH = "/ec/";
+    private static final Pattern AVAILABILITY = Pattern.compile("\"availability\"\\s*:\\s*\"(\\w+)\"");
+    private static final Pattern OPEN = Pattern.compile("\"(?:is)?[oO]pen\"\\s*:\\s*(true|false)");
+    private static final Pattern ID = Pattern.compile("[A-Za-z0-9]+");
+
+    private final LatencyDistribution latency;
+    private final double errorRate;
+    private final double timeoutRate;
+    private final long timeoutMillis;
+    private final List<String> storeIds;
+    private final Map<String, SimulatedLocation> locations = new ConcurrentHashMap<>();
+    private final AtomicLong requestCount = new AtomicLong();
+    private final AtomicLong errorCount = new AtomicLong();
+    private final AtomicLong timeoutCount = new AtomicLong();
+    private ScheduledExecutorService responder;
+    private ExecutorService httpExecutor;
+    private HttpServer server;
+
+    /**
+     * @param storeCount - Number of stores to simulate
+     * @param latency - Delay before each response
+     * @param errorRate - Share of requests (0-1) answered with HTTP 500
+     * @param timeoutRate - Share of requests (0-1) never answered
+     * @param timeoutMillis - Time after which an unanswered request is dropped
+     */
+    public SdkStandInServer(int storeCount, LatencyDistribution latency, double errorRate, double timeoutRate, long timeoutMillis) {
+        this.latency = latency;
+        this.errorRate = errorRate;
+        this.timeoutRate = timeoutRate;
+        this.timeoutMillis = timeoutMillis;
+
+        List<String> ids = new ArrayList<>(storeCount);
+        for (int i = 1; i <= storeCount; i++) {
+            SimulatedLocation location = new SimulatedLocation(i);
+            locations.put(location.id, location);
+            ids.add(location.storeId);
+        }
+        this.storeIds = Collections.unmodifiableList(ids);
+    }
+
+    /**
+     * Creates a stand-in from the sdk.standin.* properties
+     */
+    public static SdkStandInServer fromProperties() {
+        return new SdkStandInServer(
+                PropertyManager.INSTANCE.getProperty("sdk.standin.stores", 1000),
+                LatencyDistribution.parse(PropertyManager.INSTANCE.getProperty("sdk.standin.latency", "lognormal:80:1500")),
+                PropertyManager.INSTANCE.getProperty("sdk.standin.error.rate", 0.01),
+                PropertyManager.INSTANCE.getProperty("sdk.standin.timeout.rate", 0.001),
+                PropertyManager.INSTANCE.getProperty("sdk.standin.timeout.millis", 60000L));
+    }
+
+    /**
+     * When sdk.standin.enabled is true, starts a stand-in and points the {@link SdkClient} at it:
+     * its Config.xml is used instead of the configured one and its first store becomes the default store.
+     * Must be called before the SdkClient is first used.
+     *
+     * @return The running stand-in, or null if it is not enabled
+     */
+    public static SdkStandInServer startIfEnabled() throws IOException {
+        if (!PropertyManager.INSTANCE.getProperty("sdk.standin.enabled", false)) {
+            return null;
+        }
+        SdkStandInServer standIn = fromProperties();
+        standIn.start(PropertyManager.INSTANCE.getProperty("sdk.standin.port", 0));
+
+        String configFile = PropertyManager.INSTANCE.getProperty("sdk.standin.config.file");
+        Path config = configFile != null ? Paths.get(configFile) : Files.createTempFile("standin-", "-Config.xml");
+        standIn.writeConfig(config);
+        System.setProperty(SdkClient.CONFIG_FILE, config.toString());
+        // a set property survives reloads of the watched properties file
+        PropertyManager.INSTANCE.setProperty("sdk.store.id", standIn.getStoreIds().get(0));
+        logger.warn("Using the SDK stand-in instead of the PayPal services | Config.xml: " + config);
+        return standIn;
+    }
+
+    /**
+     * Starts listening on the loopback address
+     *
+     * @param port - The port, or 0 for any free port
+     */
+    public synchronized void start(int port) throws IOException {
+        responder = Executors.newScheduledThreadPool(2,
+                new ThreadFactoryBuilder().setNameFormat("standin-responder-%d").setDaemon(true).build());
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 1024);
+        httpExecutor = Executors.newFixedThreadPool(4,
+                new ThreadFactoryBuilder().setNameFormat("standin-http-%d").setDaemon(true).build());
+        server.setExecutor(httpExecutor);
+        server.createContext("/", this::handle);
+        server.start();
+        logger.info("SDK stand-in listening on port " + getPort() + " | Stores: " + storeIds.size());
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * Returns the simulated store ids, in the order they are written to Config.xml
+     */
+    public List<String> getStoreIds() {
+        return storeIds;
+    }
+
+    public long getRequestCount() {
+        return requestCount.get();
+    }
+
+    public long getErrorCount() {
+        return errorCount.get();
+    }
+
+    public long getTimeoutCount() {
+        return timeoutCount.get();
+    }
+
+    /**
+     * Writes a Config.xml with every service pointing at this stand-in and a &lt;Store&gt; per simulated store
+     */
+    public void writeConfig(Path file) throws IOException {
+        String baseUri = "http://127.0.0.1:" + getPort();
+        StringBuilder xml = new StringBuilder();
+        xml.append("<?xml version=\"1.0\" encoding=\"utf-8\"?>\n")
+                .append("<Configuration xmlns=\"http://merchantretailsdk.paypal.com/v1.0/\">\n")
+                .append("    <PayPal.Service.Settings>\n");
+        appendService(xml, "openIdService", baseUri + OPENID_PATH);
+        appendService(xml, "hereAPIService", baseUri + HERE_PATH);
+        appendService(xml, "posAPIService", baseUri + POS_PATH);
+        appendService(xml, "ecAPIService", baseUri + EC_PATH);
+        xml.append("    </PayPal.Service.Settings>\n")
+                .append("    <PayPal.Retailer.Stores.Settings>\n");
+        for (String storeId : storeIds) {
+            SimulatedLocation location = locations.get(SimulatedLocation.locationId(storeId));
+            xml.append("        <Store id=\"").append(storeId).append("\">\n")
+                    .append("            <payerId>").append(location.payerId).append("</payerId>\n")
+                    .append("            <locationId>").append(location.id).append("</locationId>\n")
+                    .append("            <userId>").append(storeId).append("_api1.example.com</userId>\n")
+                    .append("            <password>standin</password>\n")
+                    .append("            <signature>standin</signature>\n")
+                    .append("            <refreshToken>standin-").append(storeId).append("</refreshToken>\n")
+                    .append("            <clientId>standin</clientId>\n")
+                    .append("            <clientSecret>standin</clientSecret>\n")
+                    .append("        </Store>\n");
+        }
+        xml.append("    </PayPal.Retailer.Stores.Settings>\n")
+                .append("</Configuration>\n");
+        Files.write(file, xml.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static void appendService(StringBuilder xml, String id, String uri) {
+        xml.append("        <Service id=\"").append(id).append("\">\n")
+                .append("            <uri>").append(uri).append("</uri>\n")
+                .append("            <receiveTimeOut>30000</receiveTimeOut>\n")
+                .append("            <connectionTimeOut>30000</connectionTimeOut>\n")
+                .append("        </Service>\n");
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        requestCount.incrementAndGet();
+        final String body = new String(IOUtils.toByteArray(exchange.getRequestBody()), StandardCharsets.UTF_8);
+        final ThreadLocalRandom random = ThreadLocalRandom.current();
+        final double roll = random.nextDouble();
+
+        if (roll < timeoutRate) {
+            timeoutCount.incrementAndGet();
+            responder.schedule(exchange::close, timeoutMillis, TimeUnit.MILLISECONDS);
+            return;
+        }
+        final boolean fail = roll < timeoutRate + errorRate;
+        responder.schedule(() -> {
+            try {
+                if (fail) {
+                    errorCount.incrementAndGet();
+                    respond(exchange, 500, "{\"name\":\"INTERNAL_SERVICE_ERROR\",\"message\":\"Simulated failure\"," +
+                            "\"debug_id\":\"" + UUID.randomUUID() + "\"}");
+                } else {
+                    route(exchange, body);
+                }
+            } catch (Exception e) {
+                logger.debug("Stand-in failed to respond to " + exchange.getRequestURI(), e);
+                exchange.close();
+            }
+        }, latency.nextMillis(random), TimeUnit.MILLISECONDS);
+    }
+
+    private void route(HttpExchange exchange, String body) throws IOException {
+        String path = exchange.getRequestURI().getPath();
+        if (path.startsWith(OPENID_PATH)) {
+            respond(exchange, 200, "{\"token_type\":\"Bearer\",\"expires_in\":\"28800\",\"access_token\":\"" +
+                    UUID.randomUUID() + "\"}");
+        } else if (path.startsWith(HERE_PATH)) {
+            SimulatedLocation location = findLocation(exchange.getRequestURI().toString());
+            if (location == null) {
+                respond(exchange, 404, "{\"name\":\"RESOURCE_NOT_FOUND\",\"message\":\"Unknown location\"}");
+                return;
+            }
+            String method = exchange.getRequestMethod();
+            if (method.equals("PUT") || method.equals("POST") || method.equals("PATCH")) {
+                location.update(body);
+            }
+            respond(exchange, 200, location.toJson());
+        } else if (path.startsWith(POS_PATH) || path.startsWith(EC_PATH)) {
+            respond(exchange, 200, "{}");
+        } else {
+            respond(exchange, 404, "{\"name\":\"RESOURCE_NOT_FOUND\",\"message\":\"Unknown service\"}");
+        }
+    }
+
+    private SimulatedLocation findLocation(String uri) {
+        Matcher matcher = ID.matcher(uri);
+        while (matcher.find()) {
+            SimulatedLocation location = locations.get(matcher.group());
+            if (location != null) {
+                return location;
+            }
+        }
+        return null;
+    }
+
+    private static void respond(HttpExchange exchange, int status, String json) throws IOException {
+        byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    /**
+     * Stops the server. Requests waiting for their simulated delay are dropped.
+     */
+    @Override
+    public synchronized void close() {
+        if (server != null) {
+            server.stop(0);
+            httpExecutor.shutdownNow();
+            responder.shutdownNow();
+            server = null;
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        int stores = PropertyManager.INSTANCE.getProperty("sdk.standin.stores", 1000);
+        int port = PropertyManager.INSTANCE.getProperty("sdk.standin.port", 0);
+        String latency = PropertyManager.INSTANCE.getProperty("sdk.standin.latency", "lognormal:80:1500");
+        double errorRate = PropertyManager.INSTANCE.getProperty("sdk.standin.error.rate", 0.01);
+        double timeoutRate = PropertyManager.INSTANCE.getProperty("sdk.standin.timeout.rate", 0.001);
+        String config = PropertyManager.INSTANCE.getProperty("sdk.standin.config.file", "standin-Config.xml");
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            switch (args[i]) {
+                case "--stores": stores = Integer.parseInt(args[i + 1]); break;
+                case "--port": port = Integer.parseInt(args[i + 1]); break;
+                case "--latency": latency = args[i + 1]; break;
+                case "--error-rate": errorRate = Double.parseDouble(args[i + 1]); break;
+                case "--timeout-rate": timeoutRate = Double.parseDouble(args[i + 1]); break;
+                case "--config": config = args[i + 1]; break;
+                default: throw new IllegalArgumentException("Unknown option: " + args[i]);
+            }
+        }
+
+        SdkStandInServer standIn = new SdkStandInServer(stores, LatencyDistribution.parse(latency), errorRate, timeoutRate,
+                PropertyManager.INSTANCE.getProperty("sdk.standin.timeout.millis", 60000L));
+        standIn.start(port);
+        standIn.writeConfig(Paths.get(config));
+        System.out.println("SDK stand-in listening on port " + standIn.getPort() + " with " + stores +
+                " stores. Start the tool with -D" + SdkClient.CONFIG_FILE + "=" + Paths.get(config).toAbsolutePath() +
+                " and sdk.store.id=" + standIn.getStoreIds().get(0));
+        Thread.currentThread().join();
+    }
+
+    /**
+     * A simulated store and its Location
+     */
+    private static class SimulatedLocation {
+        private final String storeId;
+        private final String id;
+        private final String payerId;
+        private final String createDate;
+        private volatile boolean open = false;
+        private volatile String updateDate;
+
+        SimulatedLocation(int number) {
+            this.storeId = String.format("SIM%05d", number);
+            this.id = locationId(storeId);
+            this.payerId = String.format("SIMPAYER%05d", number);
+            this.createDate = now();
+            this.updateDate = createDate;
+        }
+
+        static String locationId(String storeId) {
+            return "LOC" + storeId;
+        }
+
+        void update(String body) {
+            Matcher availability = AVAILABILITY.matcher(body);
+            Matcher open = OPEN.matcher(body);
+            if (availability.find()) {
+                this.open = availability.group(1).equalsIgnoreCase("open");
+            } else if (open.find()) {
+                this.open = Boolean.parseBoolean(open.group(1));
+            }
+            this.updateDate = now();
+        }
+
+        String toJson() {
+            return "{\"address\":{\"state\":\"CA\",\"country\":\"US\",\"postalCode\":\"95131\",\"line1\":\"123 Fake St\"," +
+                    "\"city\":\"San Jose\"},\"name\":\"" + storeId + "\",\"id\":\"" + id + "\",\"mobility\":\"fixed\"," +
+                    "\"status\":\"active\",\"createDate\":\"" + createDate + "\",\"payerId\":\"" + payerId + "\"," +
+                    "\"availability\":\"" + (open ? "open" : "closed") + "\",\"internalName\":\"" + storeId + "\"," +
+                    "\"phoneNumber\":\"(650) 123-4567\",\"tabType\":\"standard\",\"gratuityType\":\"standard\"," +
+                    "\"updateDate\":\"" + updateDate + "\",\"correlationId\":\"" + Long.toHexString(ThreadLocalRandom.current().nextLong()) +
+                    "\",\"latitude\":37.377177,\"longitude\":-121.921482}";
+        }
+
+        private static String now() {
+            SimpleDateFormat format = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSSZ");
+            format.setTimeZone(TimeZone.getTimeZone("UTC"));
+            return format.format(new Date());
+        }
+    }
+}
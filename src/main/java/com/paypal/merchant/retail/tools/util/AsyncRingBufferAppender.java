@@ -0,0 +1,327 @@
+package com.paypal.merchant.retail.tools.util;
+
+import org.apache.log4j.Appender;
+import org.apache.log4j.AppenderSkeleton;
+import org.apache.log4j.Level;
+import org.apache.log4j.Logger;
+import org.apache.log4j.helpers.AppenderAttachableImpl;
+import org.apache.log4j.helpers.LogLog;
+import org.apache.log4j.spi.AppenderAttachable;
+import org.apache.log4j.spi.Filter;
+import org.apache.log4j.spi.LoggingEvent;
+
+import java.util.Enumeration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Hands log events to the attached appenders on a single background thread, so the formatting and
+ * the console and file I/O never run on the thread that logged.
+ *
+ * <p>Events are passed through a fixed-size lock-free ring buffer. Unlike other log4j appenders,
+ * {@link #doAppend(LoggingEvent)} takes no lock, so a thread waiting for space does not hold up the
+ * others. The filters must therefore be thread-safe. Only the thread name, NDC and MDC
+ * are captured on the logging thread; the message is rendered by the writer thread, so a message
+ * object whose toString() builds a large payload is only serialized there. Such an object must not
+ * be changed after it is logged.
+ *
+ * <p>When the buffer is full, events below blockingThreshold (WARN by default) are dropped and the
+ * writer logs how many were lost; events at or above it wait for space, so warnings and errors are
+ * never lost. Configured in log4j.xml:
+ * <pre>
+ * &lt;appender name="asyncAppender" class="com.paypal.merchant.retail.tools.util.AsyncRingBufferAppender"&gt;
+ *     &lt;param name="bufferSize" value="8192"/&gt;
+ *     &lt;appender-ref ref="defaultFileAppender"/&gt;
+ * &lt;/appender&gt;
+ * </pre>
+ */
+public class AsyncRingBufferAppender extends AppenderSkeleton implements AppenderAttachable, AsyncRingBufferAppenderMXBean {
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+    private static final long FULL_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+
+    private final AppenderAttachableImpl appenders = new AppenderAttachableImpl();
+    private final AtomicLong tail = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+
+    private int bufferSize = 8192;
+    private Level blockingThreshold = Level.WARN;
+    private boolean locationInfo = false;
+
+    private LoggingEvent[] buffer;
+    private AtomicLongArray sequences;
+    private int mask;
+    private volatile long head;
+    private long droppedReported;
+    private volatile boolean writerIdle;
+    private volatile boolean running;
+    private Thread writer;
+
+    @Override
+    public void activateOptions() {
+        int capacity = Integer.highestOneBit(Math.max(2, bufferSize - 1)) << 1;
+        buffer = new LoggingEvent[capacity];
+        sequences = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; i++) {
+            sequences.set(i, i);
+        }
+        mask = capacity - 1;
+        running = true;
+        writer = new Thread(this::drain, "async-log-writer");
+        writer.setDaemon(true);
+        writer.start();
+        // events still in the buffer are written when the JVM exits
+        Runtime.getRuntime().addShutdownHook(new Thread(this::close, "async-log-flush"));
+        MBeans.register("AsyncRingBufferAppender", getName(), this, AsyncRingBufferAppenderMXBean.class);
+    }
+
+    /**
+     * Applies the threshold and filters like {@link AppenderSkeleton#doAppend(LoggingEvent)}, which is
+     * synchronized: a warning waiting there for space in a full buffer would stall every logger.
+     */
+    @Override
+    public void doAppend(LoggingEvent event) {
+        if (closed) {
+            LogLog.error("Attempted to append to closed appender named [" + name + "].");
+            return;
+        }
+        if (!isAsSevereAsThreshold(event.getLevel())) {
+            return;
+        }
+        for (Filter filter = headFilter; filter != null; filter = filter.getNext()) {
+            int decision = filter.decide(event);
+            if (decision == Filter.DENY) {
+                return;
+            }
+            if (decision == Filter.ACCEPT) {
+                break;
+            }
+        }
+        append(event);
+    }
+
+    @Override
+    protected void append(LoggingEvent event) {
+        if (writer == null) {
+            // not activated; write through so nothing is lost
+            appendToAppenders(event);
+            return;
+        }
+        // capture what depends on the logging thread; the message is rendered later by the writer
+        event.getThreadName();
+        event.getNDC();
+        event.getMDCCopy();
+        if (locationInfo) {
+            event.getLocationInformation();
+        }
+
+        boolean mustKeep = event.getLevel().isGreaterOrEqual(blockingThreshold);
+        while (!offer(event)) {
+            if (!mustKeep || !running) {
+                dropped.incrementAndGet();
+                return;
+            }
+            LockSupport.unpark(writer);
+            LockSupport.parkNanos(FULL_PARK_NANOS);
+        }
+        if (writerIdle) {
+            LockSupport.unpark(writer);
+        }
+    }
+
+    /**
+     * Claims the next slot for the event. Any number of threads may offer at once.
+     *
+     * @return false if the buffer is full
+     */
+    private boolean offer(LoggingEvent event) {
+        while (true) {
+            long position = tail.get();
+            int index = (int) position & mask;
+            long available = sequences.get(index) - position;
+            if (available < 0) {
+                return false;
+            }
+            if (available == 0 && tail.compareAndSet(position, position + 1)) {
+                buffer[index] = event;
+                sequences.set(index, position + 1);
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Takes the next event from the buffer. Only called by the writer thread.
+     *
+     * @return The event, or null if the buffer is empty
+     */
+    private LoggingEvent poll() {
+        long position = head;
+        int index = (int) position & mask;
+        if (sequences.get(index) != position + 1) {
+            return null;
+        }
+        LoggingEvent event = buffer[index];
+        buffer[index] = null;
+        sequences.set(index, position + mask + 1);
+        head = position + 1;
+        return event;
+    }
+
+    private void drain() {
+        while (true) {
+            LoggingEvent event = poll();
+            if (event != null) {
+                appendToAppenders(event);
+                continue;
+            }
+            reportDropped();
+            if (!running && tail.get() == head) {
+                return;
+            }
+            writerIdle = true;
+            // re-check after announcing the writer is idle so an offer in between is not missed
+            if (tail.get() == head && running) {
+                LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+            }
+            writerIdle = false;
+        }
+    }
+
+    private void reportDropped() {
+        long total = dropped.get();
+        long count = total - droppedReported;
+        droppedReported = total;
+        if (count > 0) {
+            appendToAppenders(new LoggingEvent(AsyncRingBufferAppender.class.getName(),
+                    Logger.getLogger(AsyncRingBufferAppender.class), Level.WARN,
+                    "The log buffer was full; " + count + " log events below " + blockingThreshold + " were dropped", null));
+        }
+    }
+
+    private void appendToAppenders(LoggingEvent event) {
+        synchronized (appenders) {
+            appenders.appendLoopOnAppenders(event);
+        }
+    }
+
+    /**
+     * Writes every buffered event, then closes the attached appenders
+     */
+    @Override
+    public void close() {
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+        }
+        running = false;
+        if (writer != null) {
+            LockSupport.unpark(writer);
+            try {
+                writer.join(TimeUnit.SECONDS.toMillis(5));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            if (writer.isAlive()) {
+                LogLog.warn("Timed out writing the buffered log events of " + getName());
+            }
+            MBeans.unregister("AsyncRingBufferAppender", getName());
+        }
+        synchronized (appenders) {
+            Enumeration<?> attached = appenders.getAllAppenders();
+            while (attached != null && attached.hasMoreElements()) {
+                ((Appender) attached.nextElement()).close();
+            }
+        }
+    }
+
+    @Override
+    public boolean requiresLayout() {
+        return false;
+    }
+
+    public void setBufferSize(int bufferSize) {
+        this.bufferSize = bufferSize;
+    }
+
+    @Override
+    public int getBufferSize() {
+        return buffer != null ? buffer.length : bufferSize;
+    }
+
+    /**
+     * @param blockingThreshold - Events at or above this level wait for space in a full buffer instead of being dropped
+     */
+    public void setBlockingThreshold(String blockingThreshold) {
+        this.blockingThreshold = Level.toLevel(blockingThreshold, Level.WARN);
+    }
+
+    /**
+     * @param locationInfo - Whether to capture the caller's class and line (%C, %L) on the logging thread; this is slow
+     */
+    public void setLocationInfo(boolean locationInfo) {
+        this.locationInfo = locationInfo;
+    }
+
+    @Override
+    public int getPendingCount() {
+        return (int) (tail.get() - head);
+    }
+
+    @Override
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    @Override
+    public void addAppender(Appender appender) {
+        synchronized (appenders) {
+            appenders.addAppender(appender);
+        }
+    }
+
+    @Override
+    public Enumeration getAllAppenders() {
+        synchronized (appenders) {
+            return appenders.getAllAppenders();
+        }
+    }
+
+    @Override
+    public Appender getAppender(String name) {
+        synchronized (appenders) {
+            return appenders.getAppender(name);
+        }
+    }
+
+    @Override
+    public boolean isAttached(Appender appender) {
+        synchronized (appenders) {
+            return appenders.isAttached(appender);
+        }
+    }
+
+    @Override
+    public void removeAllAppenders() {
+        synchronized (appenders) {
+            appenders.removeAllAppenders();
+        }
+    }
+
+    @Override
+    public void removeAppender(Appender appender) {
+        synchronized (appenders) {
+            appenders.removeAppender(appender);
+        }
+    }
+
+    @Override
+    public void removeAppender(String name) {
+        synchronized (appenders) {
+            appenders.removeAppender(name);
+        }
+    }
+}
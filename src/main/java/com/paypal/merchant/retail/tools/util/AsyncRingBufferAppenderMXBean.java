@@ -0,0 +1,14 @@
+package com.paypal.merchant.retail.tools.util;
+
+/**
+ * JMX view of an {@link AsyncRingBufferAppender}
+ */
+public interface AsyncRingBufferAppenderMXBean {
+    int getBufferSize();
+
+    /** Number of events waiting to be written */
+    int getPendingCount();
+
+    /** Number of events dropped because the buffer was full, since the appender was activated */
+    long getDroppedCount();
+}
@@ -0,0 +1,131 @@
+package com.paypal.merchant.retail.tools.util;
+
+import org.apache.log4j.Logger;
+
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs a task, then runs it again after each delay given by a {@link RetryPolicy} until the task
+ * stops the scheduler or the policy runs out of retries.
+ *
+ * <p>The delay before the next run is chosen when a run starts, so {@link #getDelayTime()} already
+ * returns it while the task is running and the countdown until the run afterwards.
+ * Tasks are registered with the process-wide {@link SharedTimerService}
+ */
+public class BackoffTaskScheduler implements TaskScheduler {
+    Logger logger = Logger.getLogger(this.getClass());
+
+    private ScheduledFuture<?> scheduledFuture;
+    private Runnable runnable;
+    private RetryPolicy retryPolicy;
+    private long initialWait;
+    private TimeUnit timeUnit;
+
+    private boolean stopped = true;
+    private int runCount = 0;
+    private long nextDelay = 0;
+
+    public BackoffTaskScheduler(final Runnable runnableTask, long initialWait, RetryPolicy retryPolicy, TimeUnit timeUnit) {
+        this.runnable = runnableTask;
+        this.initialWait = initialWait;
+        this.retryPolicy = retryPolicy;
+        this.timeUnit = timeUnit;
+    }
+
+    @Override
+    public synchronized void start() {
+        try{
+            logger.debug("Setting the schedule of tasks. Retry policy: " + retryPolicy);
+            cancel();
+            stopped = false;
+            runCount = 0;
+            nextDelay = 0;
+            scheduledFuture = SharedTimerService.INSTANCE.schedule(this::runAndReschedule, initialWait, timeUnit);
+        } catch (Exception e) {
+            logger.error(e.getMessage());
+        }
+    }
+
+    @Override
+    public synchronized void stop() {
+        if(!stopped) {
+            logger.info("Stop the task scheduler. No more future tasks will be executed.");
+        }
+        stopped = true;
+        nextDelay = 0;
+        cancel();
+    }
+
+    /**
+     * Returns the number of seconds until the next run
+     */
+    @Override
+    public synchronized long getDelayTime() {
+        if(stopped) {
+            return 0;
+        }
+        if(scheduledFuture != null && !scheduledFuture.isDone()) {
+            return scheduledFuture.getDelay(TimeUnit.SECONDS);
+        }
+        // the task is running: the next run is nextDelay after it finishes
+        return timeUnit.toSeconds(nextDelay);
+    }
+
+    @Override
+    public synchronized boolean isRunning() {
+        return !stopped;
+    }
+
+    /**
+     * Skips the rest of the current delay. The retry count and the following delays are unchanged.
+     */
+    @Override
+    public synchronized void runNow() {
+        if(!stopped && scheduledFuture != null && scheduledFuture.cancel(false)) {
+            logger.info("Running the task now instead of waiting for the rest of the delay.");
+            scheduledFuture = SharedTimerService.INSTANCE.schedule(this::runAndReschedule, 0, timeUnit);
+        }
+    }
+
+    /**
+     * Number of times the task has been started since the scheduler was started
+     */
+    public synchronized int getRunCount() {
+        return runCount;
+    }
+
+    private void runAndReschedule() {
+        final int run;
+        synchronized (this) {
+            if(stopped) {
+                return;
+            }
+            run = ++runCount;
+            nextDelay = run <= retryPolicy.getMaxRetries() ? retryPolicy.getDelay(run, nextDelay) : 0;
+        }
+
+        try {
+            runnable.run();
+        } finally {
+            synchronized (this) {
+                if(!stopped && run == runCount) {
+                    if(run > retryPolicy.getMaxRetries()) {
+                        logger.info("Maximum number of retries reached. No more future tasks will be executed.");
+                        stopped = true;
+                    } else {
+                        logger.debug("Retry #" + run + " in " + nextDelay + " " + timeUnit.name().toLowerCase());
+                        scheduledFuture = SharedTimerService.INSTANCE.schedule(this::runAndReschedule, nextDelay, timeUnit);
+                    }
+                }
+            }
+        }
+    }
+
+    private void cancel() {
+        if(scheduledFuture != null) {
+            scheduledFuture.cancel(true);
+            scheduledFuture = null;
+        }
+    }
+}
@@ -1,24 +1,28 @@
 package com.paypal.merchant.retail.tools.util;
 
-import com.google.common.util.concurrent.SimpleTimeLimiter;
-import com.google.common.util.concurrent.TimeLimiter;
-import com.google.common.util.concurrent.UncheckedTimeoutException;
 import com.paypal.merchant.retail.tools.exception.ClientException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 /**
  * Created by Paolo on 7/30/2014.
+ *
+ * <p>Runs the callable on the shared {@link TimeoutExecutor}, either blocking ({@link #call()})
+ * or returning a future ({@link #callAsync()}). Failures are always reported as a ClientException.
  */
 public class CallableWithTimeout<T> {
     private Logger logger = LoggerFactory.getLogger(this.getClass());
     private Callable<T> callable;
     private long timeOut;
     private TimeUnit timeUnit;
-    private static TimeLimiter timeLimiter = new SimpleTimeLimiter();
 
     public CallableWithTimeout(Callable<T> callable, long timeOut, TimeUnit timeUnit) {
         this.callable = callable;
@@ -28,18 +32,49 @@ public class CallableWithTimeout<T> {
 
     public T call() throws ClientException {
         try {
-            return timeLimiter.callWithTimeout(callable, timeOut, timeUnit, false);
-        } catch (ClientException e) {
-            throw e;
+            return TimeoutExecutor.INSTANCE.call(callable, timeOut, timeUnit);
         } catch (InterruptedException e) {
             logger.error("Thread was interrupted while executing callable", e);
-            throw new ClientException(e.getMessage());
-        } catch (UncheckedTimeoutException e) {
-            logger.error("Timed Out while executing callable", e);
+            Thread.currentThread().interrupt();
             throw new ClientException(e.getMessage());
         } catch (Exception e) {
-            logger.error("Exception while executing callable", e);
-            throw new ClientException(e.getMessage());
+            throw toClientException(e);
+        }
+    }
+
+    /**
+     * Runs the callable without blocking the caller
+     *
+     * @return A future that completes with the result, or exceptionally with a ClientException
+     */
+    public CompletableFuture<T> callAsync() {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        TimeoutExecutor.INSTANCE.submit(callable, timeOut, timeUnit).whenComplete((value, e) -> {
+            if (e == null) {
+                result.complete(value);
+            } else {
+                result.completeExceptionally(toClientException(e));
+            }
+        });
+        return result;
+    }
+
+    private ClientException toClientException(Throwable e) {
+        if (e instanceof ExecutionException || e instanceof CompletionException) {
+            if (e.getCause() != null) {
+                e = e.getCause();
+            }
+        }
+        if (e instanceof ClientException) {
+            return (ClientException) e;
+        } else if (e instanceof TimeoutException) {
+            logger.error("Timed Out while executing callable", e);
+            return new ClientException("Timed out after " + timeOut + " " + timeUnit.name().toLowerCase(), (TimeoutException) e);
+        } else if (e instanceof RejectedExecutionException) {
+            logger.error("Rejected callable", e);
+            return new ClientException("Too many SDK calls in progress. Try again later.", (RejectedExecutionException) e);
         }
+        logger.error("Exception while executing callable", e);
+        return e instanceof Exception ? new ClientException(e.getMessage(), (Exception) e) : new ClientException(e.getMessage());
     }
 }
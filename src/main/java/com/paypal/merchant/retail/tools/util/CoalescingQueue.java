@@ -0,0 +1,91 @@
+package com.paypal.merchant.retail.tools.util;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lock-free queue of tasks that are run in batches by one consumer thread.
+ *
+ * <p>A task added with a key replaces any task with the same key that has not run yet, and runs
+ * in the position of the latest one. Tasks without a key all run, in the order they were added.
+ * Any number of threads may add tasks.
+ */
+public class CoalescingQueue {
+    private static Logger logger = LoggerFactory.getLogger(CoalescingQueue.class);
+
+    private final Queue<Task> tasks = new ConcurrentLinkedQueue<>();
+    private final ConcurrentMap<Object, Task> latest = new ConcurrentHashMap<>();
+    private final AtomicLong coalesced = new AtomicLong();
+
+    public void add(Runnable runnable) {
+        tasks.add(new Task(null, runnable));
+    }
+
+    /**
+     * @param key - Identifies what the task updates, e.g. a control or a store id; null adds the task without a key
+     */
+    public void add(Object key, Runnable runnable) {
+        if (key == null) {
+            add(runnable);
+            return;
+        }
+        Task task = new Task(key, runnable);
+        if (latest.put(key, task) != null) {
+            coalesced.incrementAndGet();
+        }
+        tasks.add(task);
+    }
+
+    /**
+     * Runs the tasks added before this call. Tasks added while it runs are left for the next call.
+     * A task that throws is logged and the others still run.
+     *
+     * @return The number of tasks run
+     */
+    public int runAll() {
+        Task end = new Task(null, null);
+        tasks.add(end);
+        int count = 0;
+        Task task;
+        while ((task = tasks.poll()) != end) {
+            if (task.key != null && !latest.remove(task.key, task)) {
+                // replaced by a later task with the same key
+                continue;
+            }
+            try {
+                task.runnable.run();
+            } catch (RuntimeException e) {
+                logger.error("Queued task failed", e);
+            }
+            count++;
+        }
+        return count;
+    }
+
+    public boolean isEmpty() {
+        return tasks.isEmpty();
+    }
+
+    /**
+     * Number of tasks that were replaced by a later task with the same key before they ran
+     */
+    public long getCoalescedCount() {
+        return coalesced.get();
+    }
+
+    private static class Task {
+        private final Object key;
+        private final Runnable runnable;
+
+        Task(Object key, Runnable runnable) {
+            this.key = key;
+            this.runnable = runnable;
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package com.paypal.merchant.retail.tools.util;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Watches configuration files and runs a reload action when one of them changes.
+ *
+ * <p>Uses an NIO WatchService on each file's directory. Editors often write a file in several steps,
+ * so the reload runs once the file has been quiet for the debounce time. Reloads run on the
+ * {@link SharedTimerService}; a reload that throws is logged and the previous configuration stays in use.
+ */
+public class ConfigWatcher implements Closeable {
+    private static Logger logger = LoggerFactory.getLogger(ConfigWatcher.class);
+
+    private final WatchService watchService;
+    private final long debounceMillis;
+    private final Map<Path, ReloadAction> actions = new HashMap<>();
+    private final Set<Path> directories = new HashSet<>();
+    private final Map<Path, ScheduledFuture<?>> pendingReloads = new ConcurrentHashMap<>();
+    private final Object reloadLock = new Object();
+    private Thread thread;
+
+    public ConfigWatcher(long debounceMillis) throws IOException {
+        this.watchService = FileSystems.getDefault().newWatchService();
+        this.debounceMillis = Math.max(0, debounceMillis);
+    }
+
+    /**
+     * Runs the action whenever the file is created or modified. Must be called before {@link #start()}.
+     *
+     * @param file - The file to watch
+     * @param action - Reads, validates and applies the new content
+     * @throws IOException if the file's directory cannot be watched
+     */
+    public synchronized void watch(Path file, ReloadAction action) throws IOException {
+        Path absolute = file.toAbsolutePath().normalize();
+        Path directory = absolute.getParent();
+        if (directories.add(directory)) {
+            directory.register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+        }
+        actions.put(absolute, action);
+        logger.info("Watching " + absolute + " for changes");
+    }
+
+    /**
+     * Starts the watcher thread
+     */
+    public synchronized void start() {
+        if (thread == null) {
+            thread = new Thread(this::processEvents, "config-watcher");
+            thread.setDaemon(true);
+            thread.start();
+        }
+    }
+
+    private void processEvents() {
+        while (!Thread.currentThread().isInterrupted()) {
+            WatchKey key;
+            try {
+                key = watchService.take();
+            } catch (InterruptedException | ClosedWatchServiceException e) {
+                return;
+            }
+            Path directory = (Path) key.watchable();
+            for (WatchEvent<?> event : key.pollEvents()) {
+                if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                    // events were lost; check every file in the directory
+                    actions.keySet().stream().filter(file -> file.getParent().equals(directory)).forEach(this::scheduleReload);
+                } else {
+                    Path file = directory.resolve((Path) event.context()).normalize();
+                    if (actions.containsKey(file)) {
+                        scheduleReload(file);
+                    }
+                }
+            }
+            key.reset();
+        }
+    }
+
+    private void scheduleReload(Path file) {
+        ScheduledFuture<?> reload = SharedTimerService.INSTANCE.schedule(() -> reload(file), debounceMillis, TimeUnit.MILLISECONDS);
+        ScheduledFuture<?> previous = pendingReloads.put(file, reload);
+        if (previous != null) {
+            previous.cancel(false);
+        }
+    }
+
+    private void reload(Path file) {
+        // one reload at a time, so an older content can never be applied after a newer one
+        synchronized (reloadLock) {
+            logger.info("Reloading " + file);
+            long start = System.currentTimeMillis();
+            try {
+                actions.get(file).reload();
+                logger.info("Reloaded " + file + " in " + (System.currentTimeMillis() - start) + " ms");
+            } catch (Exception e) {
+                logger.error("Rejected the new content of " + file + ". The previous configuration is still in use: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Stops watching. Reloads already scheduled are canceled.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        pendingReloads.values().forEach(reload -> reload.cancel(false));
+        watchService.close();
+        if (thread != null) {
+            thread.interrupt();
+        }
+    }
+
+    /**
+     * Applies the new content of a watched file. Throws if the content is invalid.
+     */
+    public interface ReloadAction {
+        void reload() throws Exception;
+    }
+}
@@ -0,0 +1,40 @@
+package com.paypal.merchant.retail.tools.util;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Picks a random delay between the base delay and three times the previous delay, capped at the max delay.
+ *
+ * <p>The delays grow roughly exponentially, but clients that failed together do not retry together.
+ */
+public class DecorrelatedJitterRetryPolicy implements RetryPolicy {
+    private final long baseDelay;
+    private final long maxDelay;
+    private final int maxRetries;
+
+    public DecorrelatedJitterRetryPolicy(long baseDelay, long maxDelay, int maxRetries) {
+        this.baseDelay = Math.max(0, baseDelay);
+        this.maxDelay = Math.max(this.baseDelay, maxDelay);
+        this.maxRetries = Math.max(0, maxRetries);
+    }
+
+    @Override
+    public long getDelay(int retry, long previousDelay) {
+        long previous = Math.max(baseDelay, previousDelay);
+        long upper = previous > maxDelay / 3 ? maxDelay : previous * 3;
+        if (upper <= baseDelay) {
+            return baseDelay;
+        }
+        return ThreadLocalRandom.current().nextLong(baseDelay, upper + 1);
+    }
+
+    @Override
+    public int getMaxRetries() {
+        return maxRetries;
+    }
+
+    @Override
+    public String toString() {
+        return "jitter(" + baseDelay + ".." + maxDelay + ")";
+    }
+}
@@ -0,0 +1,36 @@
+package com.paypal.merchant.retail.tools.util;
+
+/**
+ * Doubles the delay before every retry, starting at the base delay and never exceeding the max delay
+ */
+public class ExponentialRetryPolicy implements RetryPolicy {
+    private final long baseDelay;
+    private final long maxDelay;
+    private final int maxRetries;
+
+    public ExponentialRetryPolicy(long baseDelay, long maxDelay, int maxRetries) {
+        this.baseDelay = Math.max(0, baseDelay);
+        this.maxDelay = Math.max(this.baseDelay, maxDelay);
+        this.maxRetries = Math.max(0, maxRetries);
+    }
+
+    @Override
+    public long getDelay(int retry, long previousDelay) {
+        int doublings = Math.max(0, retry - 1);
+        if (baseDelay == 0 || doublings >= Long.numberOfLeadingZeros(baseDelay) - 1) {
+            // the next doubling would overflow
+            return baseDelay == 0 ? 0 : maxDelay;
+        }
+        return Math.min(maxDelay, baseDelay << doublings);
+    }
+
+    @Override
+    public int getMaxRetries() {
+        return maxRetries;
+    }
+
+    @Override
+    public String toString() {
+        return "exponential(" + baseDelay + ".." + maxDelay + ")";
+    }
+}
@@ -0,0 +1,29 @@
+package com.paypal.merchant.retail.tools.util;
+
+/**
+ * Waits the same interval before every retry
+ */
+public class FixedRetryPolicy implements RetryPolicy {
+    private final long interval;
+    private final int maxRetries;
+
+    public FixedRetryPolicy(long interval, int maxRetries) {
+        this.interval = Math.max(0, interval);
+        this.maxRetries = Math.max(0, maxRetries);
+    }
+
+    @Override
+    public long getDelay(int retry, long previousDelay) {
+        return interval;
+    }
+
+    @Override
+    public int getMaxRetries() {
+        return maxRetries;
+    }
+
+    @Override
+    public String toString() {
+        return "fixed(" + interval + ")";
+    }
+}
@@ -0,0 +1,98 @@
+package com.paypal.merchant.retail.tools.util;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+/**
+ * The record format of the local journals: one line per record of a type letter, a key and a detail,
+ * separated by tabs and ended by a CRC32 of the rest, so a record torn by a crash is detected.
+ */
+public final class JournalRecords {
+    private static Logger logger = LoggerFactory.getLogger(JournalRecords.class);
+
+    private JournalRecords() {
+    }
+
+    /**
+     * Returns the line of a record, including its line break. Tabs and line breaks in the key and detail become spaces.
+     *
+     * @param detail - May be null
+     */
+    public static byte[] encode(char type, String key, String detail) {
+        String content = type + "\t" + clean(key) + "\t" + clean(detail);
+        return (content + "\t" + crc(content) + "\n").getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @param line - A line without its line break
+     * @return The type, key and detail of the record, or null if it is corrupt
+     */
+    public static String[] decode(String line) {
+        int crcStart = line.lastIndexOf('\t');
+        if (crcStart < 0) {
+            return null;
+        }
+        String content = line.substring(0, crcStart);
+        String[] fields = content.split("\t", -1);
+        if (fields.length != 3 || fields[0].length() != 1 || !line.substring(crcStart + 1).equals(crc(content))) {
+            return null;
+        }
+        return fields;
+    }
+
+    /**
+     * Passes every record of a file to the consumer in order
+     *
+     * @param stopAtCorrupt - Whether a corrupt record ends the file, as for a file being written when the
+     *                      process died; otherwise it is skipped
+     * @return The length of the file up to the end of the last record read
+     */
+    public static long read(Path file, boolean stopAtCorrupt, Consumer<String[]> records) throws IOException {
+        long position = 0;
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(file), 1 << 16)) {
+            ByteArrayOutputStream line = new ByteArrayOutputStream(128);
+            int b;
+            while ((b = in.read()) != -1) {
+                if (b != '\n') {
+                    line.write(b);
+                    continue;
+                }
+                String[] record = decode(new String(line.toByteArray(), StandardCharsets.UTF_8));
+                if (record != null) {
+                    records.accept(record);
+                } else if (stopAtCorrupt) {
+                    return position;
+                } else {
+                    logger.warn("Skipping a corrupt record at byte " + position + " of " + file);
+                }
+                position += line.size() + 1;
+                line.reset();
+            }
+        }
+        // an unterminated last line was torn while it was written
+        return position;
+    }
+
+    /**
+     * Returns the key as it is stored
+     */
+    public static String clean(String value) {
+        return value == null ? "" : value.replace('\t', ' ').replace('\n', ' ').replace('\r', ' ');
+    }
+
+    private static String crc(String content) {
+        CRC32 crc = new CRC32();
+        crc.update(content.getBytes(StandardCharsets.UTF_8));
+        return Long.toHexString(crc.getValue());
+    }
+}
@@ -0,0 +1,115 @@
+package com.paypal.merchant.retail.tools.util;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free latency histogram with HDR-style log-linear buckets.
+ *
+ * <p>Values are recorded in microseconds. Below 2^precisionBits every value has its own bucket; above
+ * that each power of two is split into 2^(precisionBits-1) buckets, so a percentile is accurate to within
+ * 1/2^(precisionBits-1) of its value (7 bits: under 2%) whatever its magnitude. Values above one hour are
+ * counted in the last bucket. Recording is a single atomic increment and never allocates.
+ */
+public class LatencyHistogram {
+    private static final long HIGHEST_TRACKABLE_MICROS = TimeUnit.HOURS.toMicros(1);
+
+    private final int precisionBits;
+    private final int subBucketCount;
+    private final int subBucketHalf;
+    private final AtomicLongArray counts;
+    private final AtomicLong totalCount = new AtomicLong();
+    private final AtomicLong totalMicros = new AtomicLong();
+    private final AtomicLong maxMicros = new AtomicLong();
+
+    /**
+     * @param precisionBits - Number of bits of each value that are kept (1-14); 7 gives under 2% error
+     */
+    public LatencyHistogram(int precisionBits) {
+        if (precisionBits < 1 || precisionBits > 14) {
+            throw new IllegalArgumentException("precisionBits must be between 1 and 14");
+        }
+        this.precisionBits = precisionBits;
+        this.subBucketCount = 1 << precisionBits;
+        this.subBucketHalf = subBucketCount / 2;
+        this.counts = new AtomicLongArray(indexOf(HIGHEST_TRACKABLE_MICROS) + 1);
+    }
+
+    public void record(long value, TimeUnit timeUnit) {
+        long micros = Math.max(0, timeUnit.toMicros(value));
+        counts.incrementAndGet(Math.min(indexOf(micros), counts.length() - 1));
+        totalCount.incrementAndGet();
+        totalMicros.addAndGet(micros);
+        long max;
+        while (micros > (max = maxMicros.get()) && !maxMicros.compareAndSet(max, micros)) {
+            // retry until this value is recorded or a larger one is
+        }
+    }
+
+    private int indexOf(long micros) {
+        if (micros < subBucketCount) {
+            return (int) micros;
+        }
+        int bucket = 64 - Long.numberOfLeadingZeros(micros) - precisionBits;
+        int subBucket = (int) (micros >>> bucket);
+        return subBucketCount + (bucket - 1) * subBucketHalf + (subBucket - subBucketHalf);
+    }
+
+    private long lowestValueAt(int index) {
+        if (index < subBucketCount) {
+            return index;
+        }
+        int bucket = (index - subBucketCount) / subBucketHalf + 1;
+        int subBucket = (index - subBucketCount) % subBucketHalf + subBucketHalf;
+        return (long) subBucket << bucket;
+    }
+
+    public long getCount() {
+        return totalCount.get();
+    }
+
+    /**
+     * Returns the value below which the given percentage of the recorded values fall
+     *
+     * @param percentile - 0 to 100
+     * @return The value, or 0 if nothing was recorded
+     */
+    public long getPercentile(double percentile, TimeUnit timeUnit) {
+        long count = totalCount.get();
+        if (count == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(Math.min(100, percentile) / 100 * count));
+        long seen = 0;
+        for (int i = 0; i < counts.length(); i++) {
+            seen += counts.get(i);
+            if (seen >= rank) {
+                long highestInBucket = lowestValueAt(i + 1) - 1;
+                return timeUnit.convert(Math.min(highestInBucket, maxMicros.get()), TimeUnit.MICROSECONDS);
+            }
+        }
+        return getMax(timeUnit);
+    }
+
+    public long getMax(TimeUnit timeUnit) {
+        return timeUnit.convert(maxMicros.get(), TimeUnit.MICROSECONDS);
+    }
+
+    public double getMean(TimeUnit timeUnit) {
+        long count = totalCount.get();
+        return count == 0 ? 0 : (double) totalMicros.get() / count * TimeUnit.MICROSECONDS.toNanos(1) / timeUnit.toNanos(1);
+    }
+
+    /**
+     * Clears every recorded value. Values recorded concurrently may be partly kept.
+     */
+    public void reset() {
+        for (int i = 0; i < counts.length(); i++) {
+            counts.set(i, 0);
+        }
+        totalCount.set(0);
+        totalMicros.set(0);
+        maxMicros.set(0);
+    }
+}
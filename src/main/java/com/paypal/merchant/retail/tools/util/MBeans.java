@@ -0,0 +1,60 @@
+package com.paypal.merchant.retail.tools.util;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.management.MBeanServer;
+import javax.management.MalformedObjectNameException;
+import javax.management.ObjectName;
+import javax.management.StandardMBean;
+import java.lang.management.ManagementFactory;
+
+/**
+ * Registers the tool's MXBeans with the platform MBean server under com.paypal.merchant.retail.tools,
+ * where jconsole or a JMX scraper can read and steer them.
+ *
+ * <p>Registering a bean under a name already in use replaces the previous bean. A bean that cannot
+ * be registered is logged and otherwise ignored; JMX is never required for the tool to work.
+ */
+public final class MBeans {
+    public static final String DOMAIN = "com.paypal.merchant.retail.tools";
+    private static Logger logger = LoggerFactory.getLogger(MBeans.class);
+
+    private MBeans() {
+    }
+
+    /**
+     * @param type - The type key of the ObjectName, e.g. TimeoutExecutor
+     * @param name - The name key of the ObjectName, or null if there is a single bean of the type
+     * @param bean - The bean
+     * @param mxbeanInterface - The attributes and operations exposed
+     */
+    public static synchronized <T> void register(String type, String name, T bean, Class<T> mxbeanInterface) {
+        try {
+            ObjectName objectName = objectName(type, name);
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            if (server.isRegistered(objectName)) {
+                server.unregisterMBean(objectName);
+            }
+            server.registerMBean(new StandardMBean(bean, mxbeanInterface, true), objectName);
+        } catch (Exception e) {
+            logger.warn("Failed to register " + type + (name != null ? " " + name : "") + " with JMX: " + e.getMessage());
+        }
+    }
+
+    public static synchronized void unregister(String type, String name) {
+        try {
+            ObjectName objectName = objectName(type, name);
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            if (server.isRegistered(objectName)) {
+                server.unregisterMBean(objectName);
+            }
+        } catch (Exception e) {
+            logger.warn("Failed to unregister " + type + (name != null ? " " + name : "") + " from JMX: " + e.getMessage());
+        }
+    }
+
+    public static ObjectName objectName(String type, String name) throws MalformedObjectNameException {
+        return new ObjectName(DOMAIN + ":type=" + type + (name != null ? ",name=" + name : ""));
+    }
+}
@@ -2,43 +2,41 @@ package com.paypal.merchant.retail.tools.util;
 
 import org.apache.log4j.Logger;
 
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
 
 /**
  * Created by Paolo
  * Created on 5/14/14 1:22 PM
+ *
+ * <p>Tasks are registered with the process-wide {@link SharedTimerService}
  */
 public class OneTimeTaskScheduler implements TaskScheduler {
     Logger logger = Logger.getLogger(this.getClass());
 
-    private ScheduledExecutorService service;
     private ScheduledFuture<?> scheduledFuture;
     private Runnable runnable;
     private long initialWait;
     private TimeUnit timeUnit;
 
-    public OneTimeTaskScheduler(final Runnable runnableTask, long initialWait, int threadPoolSize, TimeUnit timeUnit) {
-        this.service = Executors.newScheduledThreadPool(threadPoolSize);
+    public OneTimeTaskScheduler(final Runnable runnableTask, long initialWait, TimeUnit timeUnit) {
         this.runnable = runnableTask;
         this.initialWait = initialWait;
         this.timeUnit = timeUnit;
     }
 
     @Override
-    public void start() {
+    public synchronized void start() {
         try{
             logger.debug("Setting the schedule of tasks.");
-            scheduledFuture = service.schedule(this.runnable, initialWait, timeUnit);
+            scheduledFuture = SharedTimerService.INSTANCE.schedule(this.runnable, initialWait, timeUnit);
         } catch (Exception e) {
             logger.error(e.getMessage());
         }
     }
 
     @Override
-    public void stop() {
+    public synchronized void stop() {
         if(scheduledFuture != null) {
             logger.info("Stop the task scheduler. No more future tasks will be executed.");
             scheduledFuture.cancel(true);
@@ -49,4 +47,20 @@ public class OneTimeTaskScheduler implements TaskScheduler {
     public long getDelayTime() {
         return 0;
     }
+
+    /**
+     * Whether the task is still waiting to run
+     */
+    @Override
+    public synchronized boolean isRunning() {
+        return scheduledFuture != null && !scheduledFuture.isDone();
+    }
+
+    @Override
+    public synchronized void runNow() {
+        if(scheduledFuture != null && scheduledFuture.cancel(false)) {
+            logger.info("Running the task now instead of waiting for the rest of the delay.");
+            scheduledFuture = SharedTimerService.INSTANCE.schedule(this.runnable, 0, timeUnit);
+        }
+    }
 }
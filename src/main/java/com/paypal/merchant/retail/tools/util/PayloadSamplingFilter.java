@@ -0,0 +1,114 @@
+package com.paypal.merchant.retail.tools.util;
+
+import org.apache.log4j.Level;
+import org.apache.log4j.spi.Filter;
+import org.apache.log4j.spi.LoggingEvent;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Samples and rate-limits the payload log lines of the SDK, per command type.
+ *
+ * <p>Every SDK command logs its full XML payload at DEBUG to a logger named after the command class
+ * (e.g. com.paypal.merchant.retail.sdk.internal.commands.GetLocationCommandImpl), and the service clients
+ * under it log the full JSON of every request and response the same way (e.g.
+ * com.paypal.merchant.retail.sdk.internal.serviceclient.here.LocationProviderImpl). Of the events below
+ * threshold from loggers under loggerPrefix, only one in sampleRate is kept, and at most maxPerSecond per
+ * logger class. Events from other loggers, and warnings and errors, always pass.
+ *
+ * <p>The decision uses only the logger name and level, so a dropped payload is never rendered.
+ * Configured in log4j.xml inside an appender:
+ * <pre>
+ * &lt;filter class="com.paypal.merchant.retail.tools.util.PayloadSamplingFilter"&gt;
+ *     &lt;param name="sampleRate" value="10"/&gt;
+ *     &lt;param name="maxPerSecond" value="5"/&gt;
+ * &lt;/filter&gt;
+ * </pre>
+ */
+public class PayloadSamplingFilter extends Filter {
+    private final Map<String, CommandBudget> budgets = new ConcurrentHashMap<>();
+
+    private String loggerPrefix = "com.paypal.merchant.retail.sdk.internal";
+    private Level threshold = Level.WARN;
+    private int sampleRate = 1;
+    private double maxPerSecond = 0;
+
+    @Override
+    public int decide(LoggingEvent event) {
+        if (event.getLevel().isGreaterOrEqual(threshold) || !event.getLoggerName().startsWith(loggerPrefix)) {
+            return NEUTRAL;
+        }
+        String commandType = event.getLoggerName().substring(event.getLoggerName().lastIndexOf('.') + 1);
+        return budgets.computeIfAbsent(commandType, type -> new CommandBudget()).tryAcquire(System.nanoTime()) ?
+                NEUTRAL : DENY;
+    }
+
+    /**
+     * @param commandType - The simple name of the logger, e.g. GetLocationCommandImpl or LocationProviderImpl
+     * @return The number of payloads of the command type that were dropped
+     */
+    public long getSuppressedCount(String commandType) {
+        CommandBudget budget = budgets.get(commandType);
+        return budget != null ? budget.suppressed.get() : 0;
+    }
+
+    public void setLoggerPrefix(String loggerPrefix) {
+        this.loggerPrefix = loggerPrefix;
+    }
+
+    /**
+     * @param threshold - Events at or above this level are never dropped
+     */
+    public void setThreshold(String threshold) {
+        this.threshold = Level.toLevel(threshold, Level.WARN);
+    }
+
+    /**
+     * @param sampleRate - Keep one of every sampleRate payloads of each command type (1 keeps all)
+     */
+    public void setSampleRate(int sampleRate) {
+        this.sampleRate = Math.max(1, sampleRate);
+    }
+
+    /**
+     * @param maxPerSecond - Maximum payloads logged per second for each command type (0 for no limit)
+     */
+    public void setMaxPerSecond(double maxPerSecond) {
+        this.maxPerSecond = Math.max(0, maxPerSecond);
+    }
+
+    /**
+     * The sampling counter and token bucket of one command type
+     */
+    private class CommandBudget {
+        private final AtomicLong seen = new AtomicLong();
+        private final AtomicLong suppressed = new AtomicLong();
+        private double tokens = Math.max(1, maxPerSecond);
+        private long lastRefillNanos = System.nanoTime();
+
+        boolean tryAcquire(long nowNanos) {
+            if (seen.getAndIncrement() % sampleRate != 0 || !takeToken(nowNanos)) {
+                suppressed.incrementAndGet();
+                return false;
+            }
+            return true;
+        }
+
+        private synchronized boolean takeToken(long nowNanos) {
+            if (maxPerSecond == 0) {
+                return true;
+            }
+            double burst = Math.max(1, maxPerSecond);
+            tokens = Math.min(burst, tokens + (nowNanos - lastRefillNanos) * maxPerSecond / TimeUnit.SECONDS.toNanos(1));
+            lastRefillNanos = nowNanos;
+            if (tokens < 1) {
+                return false;
+            }
+            tokens--;
+            return true;
+        }
+    }
+}
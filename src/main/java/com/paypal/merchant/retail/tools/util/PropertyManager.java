@@ -2,7 +2,6 @@ package com.paypal.merchant.retail.tools.util;
 
 import com.paypal.merchant.retail.tools.exception.ConfigException;
 import org.apache.commons.io.FilenameUtils;
-import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -11,8 +10,13 @@ import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
 import java.math.BigDecimal;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.InvalidPropertiesFormatException;
 import java.util.Properties;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Created by Paolo on 3/20/14.
@@ -24,12 +28,22 @@ import java.util.Properties;
  * <li>Serialization is guaranteed by the jvm</li>
  * <li>Enum is thread-safe; no need for double checked locking</li>
  *
+ * <p>The loaded properties are kept as an immutable {@link PropertySnapshot} behind a volatile reference.
+ * Reads never lock and never parse; loading or setting a property publishes a new snapshot.
+ * Properties set with {@link #setProperty(String, String)} are kept on top of the file when it is reloaded.
+ *
  */
 public enum PropertyManager {
     INSTANCE;
     private static Logger logger = LoggerFactory.getLogger(PropertyManager.class);
-    private Properties properties = null;
+    private volatile PropertySnapshot snapshot = null;
+    private volatile String propertiesFileName = DEFAULT_PROP_FILE_PATH;
+    //Properties set with setProperty since the last load; guarded by this
+    private final Properties overrides = new Properties();
+    //When loading the default file on first use last failed, or 0; guarded by this
+    private long loadFailedAt = 0;
     public static final String DEFAULT_PROP_FILE_PATH = "sdk-tool-properties.xml";  //by default, look on classpath for the file
+    private static final long LOAD_RETRY_SECONDS = 10;
 
     /**
      * Load the default properties file
@@ -43,15 +57,74 @@ public enum PropertyManager {
      * Initializes the properties file with an existing Properties instance.
      * Used for unit testing to be able to mock properties or use custom properties.
      */
-    public void loadCustomProperties(Properties props) throws ConfigException {
-        properties = props;
+    public synchronized void loadCustomProperties(Properties props) throws ConfigException {
+        overrides.clear();
+        snapshot = new PropertySnapshot(props);
     }
 
     /**
      * Initializes the PropertyManager instance with a given file.
      * This is public to allow loading of various properties file for testing purposes.
      */
-    public void loadCustomProperties(String propertiesFileName) throws ConfigException {
+    public synchronized void loadCustomProperties(String propertiesFileName) throws ConfigException {
+        Properties properties = readProperties(propertiesFileName);
+        overrides.clear();
+        snapshot = new PropertySnapshot(properties);
+        this.propertiesFileName = propertiesFileName;
+    }
+
+    /**
+     * Reads the properties file last loaded again and swaps it in if it is valid. Lookups made while
+     * the file is read still see the previous snapshot. Properties set with setProperty keep their value.
+     *
+     * @throws ConfigException if the file cannot be read or is empty; the previous snapshot stays in use
+     */
+    public void reloadProperties() throws ConfigException {
+        String fileName = propertiesFileName;
+        Properties properties = readProperties(fileName);
+        if (properties.isEmpty()) {
+            throw new ConfigException("Properties file, " + fileName + ", has no entries.");
+        }
+        int kept;
+        synchronized (this) {
+            properties.putAll(overrides);
+            kept = overrides.size();
+            snapshot = new PropertySnapshot(properties);
+        }
+        logger.info("Reloaded " + properties.size() + " properties from " + fileName +
+                (kept > 0 ? "; kept " + kept + " set properties" : ""));
+    }
+
+    /**
+     * Returns the file the properties were loaded from, or null if they were not loaded from a file
+     * on disk (e.g. from inside a jar)
+     */
+    public Path getPropertiesPath() {
+        return getFilePath(propertiesFileName);
+    }
+
+    /**
+     * Resolves a file the way it is loaded: the path in the System property of the same name,
+     * otherwise the classpath resource if it is a file on disk
+     *
+     * @return The path, or null if the file is not on disk
+     */
+    public static Path getFilePath(String fileName) {
+        if (System.getProperty(fileName) != null) {
+            return Paths.get(System.getProperty(fileName));
+        }
+        URL resource = PropertyManager.class.getClassLoader().getResource(fileName);
+        if (resource == null || !"file".equals(resource.getProtocol())) {
+            return null;
+        }
+        try {
+            return Paths.get(resource.toURI());
+        } catch (URISyntaxException e) {
+            return null;
+        }
+    }
+
+    private Properties readProperties(String propertiesFileName) throws ConfigException {
         logger.debug("Attempting to load properties file: " + propertiesFileName);
         try {
             logger.debug("Loading properties file for the first time.");
@@ -75,7 +148,7 @@ public enum PropertyManager {
                 }
             }
             try {
-                properties = new Properties();
+                Properties properties = new Properties();
                 if (FilenameUtils.getExtension(propertiesFileName).equalsIgnoreCase("xml")) {
                     properties.loadFromXML(inputStream);
                 }
@@ -83,6 +156,7 @@ public enum PropertyManager {
                     //assume its a text based properties file
                     properties.load(inputStream);
                 }
+                return properties;
             }
             finally {
                 inputStream.close();
@@ -96,37 +170,49 @@ public enum PropertyManager {
         }
     }
 
-    public String getProperty(String propertyName) {
-        if(properties == null) {
-            try {
-                loadProperties();
-            }
-            catch (ConfigException e) {
-                logger.error(e.getMessage());
-                return null;
+    /**
+     * Returns the current snapshot, loading the default properties file on first use.
+     * If it cannot be loaded, lookups return their default until it loads; it is tried again at most
+     * every LOAD_RETRY_SECONDS rather than on every lookup.
+     */
+    public PropertySnapshot getSnapshot() {
+        PropertySnapshot current = snapshot;
+        if (current == null) {
+            synchronized (this) {
+                if (snapshot == null) {
+                    if (loadFailedAt != 0 && System.nanoTime() - loadFailedAt < TimeUnit.SECONDS.toNanos(LOAD_RETRY_SECONDS)) {
+                        return PropertySnapshot.EMPTY;
+                    }
+                    try {
+                        loadProperties();
+                    }
+                    catch (ConfigException e) {
+                        logger.error("Failed to load the properties; using defaults until they load: " + e.getMessage());
+                        loadFailedAt = System.nanoTime();
+                        return PropertySnapshot.EMPTY;
+                    }
+                }
+                current = snapshot;
             }
         }
-        return properties.getProperty(propertyName);
+        return current;
+    }
+
+    public String getProperty(String propertyName) {
+        return getSnapshot().getString(propertyName, null);
     }
 
     /**
-     * Allows us to override a loaded property if needed as in the case with unit testing
+     * Allows us to override a loaded property if needed as in the case with unit testing, or to point at
+     * the SDK stand-in. The value is kept when the file is reloaded and dropped when a file is loaded.
      * @param propertyName - The property to set - will only exist in scope of Properties
      * @param propertyValue - The value to set
      */
-    public void setProperty(String propertyName, String propertyValue) {
-        if(properties == null) {
-            try {
-                loadProperties();
-                properties.setProperty(propertyName, propertyValue);
-            }
-            catch (ConfigException e) {
-                logger.error(e.getMessage());
-            }
-        } else {
-            properties.setProperty(propertyName, propertyValue);
-        }
-
+    public synchronized void setProperty(String propertyName, String propertyValue) {
+        // the default file may be loaded first, which clears the overrides
+        PropertySnapshot current = getSnapshot();
+        overrides.setProperty(propertyName, propertyValue);
+        snapshot = current.with(propertyName, propertyValue);
     }
 
     /**
@@ -136,16 +222,7 @@ public enum PropertyManager {
      * @return String
      */
     public String getProperty(String propertyName, String defaultValue) {
-        if(properties == null) {
-            try {
-                loadProperties();
-            }
-            catch (ConfigException e) {
-                logger.error(e.getMessage());
-                return defaultValue;
-            }
-        }
-        return properties.getProperty(propertyName, defaultValue);
+        return getSnapshot().getString(propertyName, defaultValue);
     }
 
     /**
@@ -155,25 +232,7 @@ public enum PropertyManager {
      * @return boolean
      */
     public boolean getProperty(String propertyName, boolean defaultValue) {
-        if(properties == null) {
-            try {
-                loadProperties();
-            }
-            catch (ConfigException e) {
-                logger.error(e.getMessage());
-                return defaultValue;
-            }
-        }
-        String propValue = properties.getProperty(propertyName);
-        if(StringUtils.isBlank(propValue)){
-            return defaultValue;
-        }
-
-        try{
-            return Boolean.parseBoolean(propValue);
-        } catch(NumberFormatException e){
-            return defaultValue;
-        }
+        return getSnapshot().getBoolean(propertyName, defaultValue);
     }
 
     /**
@@ -183,25 +242,7 @@ public enum PropertyManager {
      * @return double
      */
     public double getProperty(String propertyName, double defaultValue) {
-        if(properties == null) {
-            try {
-                loadProperties();
-            }
-            catch (ConfigException e) {
-                logger.error(e.getMessage());
-                return defaultValue;
-            }
-        }
-        String propValue = properties.getProperty(propertyName);
-        if(StringUtils.isBlank(propValue)){
-            return defaultValue;
-        }
-
-        try{
-            return Double.parseDouble(propValue);
-        } catch(NumberFormatException e){
-            return defaultValue;
-        }
+        return getSnapshot().getDouble(propertyName, defaultValue);
     }
 
     /**
@@ -211,25 +252,7 @@ public enum PropertyManager {
      * @return int
      */
     public int getProperty(String propertyName, int defaultValue) {
-        if(properties == null) {
-            try {
-                loadProperties();
-            }
-            catch (ConfigException e) {
-                logger.error(e.getMessage());
-                return defaultValue;
-            }
-        }
-        String propValue = properties.getProperty(propertyName);
-        if(StringUtils.isBlank(propValue)){
-            return defaultValue;
-        }
-
-        try{
-            return Integer.parseInt(propValue);
-        } catch(NumberFormatException e){
-            return defaultValue;
-        }
+        return getSnapshot().getInt(propertyName, defaultValue);
     }
 
     /**
@@ -239,24 +262,7 @@ public enum PropertyManager {
      * @return long
      */
     public long getProperty(String propertyName, long defaultValue) {
-        if(properties == null) {
-            try {
-                loadProperties();
-            }
-            catch (ConfigException e) {
-                logger.error(e.getMessage());
-            }
-        }
-        String propValue = properties.getProperty(propertyName);
-        if(StringUtils.isBlank(propValue)){
-            return defaultValue;
-        }
-
-        try{
-            return Long.parseLong(propValue);
-        } catch(NumberFormatException e){
-            return defaultValue;
-        }
+        return getSnapshot().getLong(propertyName, defaultValue);
     }
 
     /**
@@ -266,23 +272,6 @@ public enum PropertyManager {
      * @return BigDecimal
      */
     public BigDecimal getProperty(String propertyName, BigDecimal defaultValue) {
-        if(properties == null) {
-            try {
-                loadProperties();
-            }
-            catch (ConfigException e) {
-                logger.error(e.getMessage());
-            }
-        }
-        String propValue = properties.getProperty(propertyName);
-        if(StringUtils.isBlank(propValue)){
-            return defaultValue;
-        }
-
-        try{
-            return BigDecimal.valueOf(Double.valueOf(propValue));
-        } catch(NumberFormatException e){
-            return defaultValue;
-        }
+        return getSnapshot().getBigDecimal(propertyName, defaultValue);
     }
 }
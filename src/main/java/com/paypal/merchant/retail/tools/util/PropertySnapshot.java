@@ -0,0 +1,130 @@
+package com.paypal.merchant.retail.tools.util;
+
+import org.apache.commons.lang3.StringUtils;
+
+import java.math.BigDecimal;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * Immutable copy of the loaded properties. Every value is parsed once, when the snapshot is built,
+ * into each type it can be read as, so a typed lookup is a single map read with no parsing or locking.
+ *
+ * <p>Blank values are treated as missing, and a value that does not parse as the requested type
+ * returns the default, as {@link PropertyManager} always has.
+ */
+public final class PropertySnapshot {
+    static final PropertySnapshot EMPTY = new PropertySnapshot(new Properties());
+
+    private final Map<String, Value> values;
+
+    public PropertySnapshot(Properties properties) {
+        Map<String, Value> parsed = new HashMap<>();
+        for (String name : properties.stringPropertyNames()) {
+            parsed.put(name, new Value(properties.getProperty(name)));
+        }
+        this.values = Collections.unmodifiableMap(parsed);
+    }
+
+    private PropertySnapshot(Map<String, Value> values) {
+        this.values = Collections.unmodifiableMap(values);
+    }
+
+    /**
+     * Returns a new snapshot with one property added or replaced
+     */
+    PropertySnapshot with(String propertyName, String propertyValue) {
+        Map<String, Value> copy = new HashMap<>(values);
+        copy.put(propertyName, new Value(propertyValue));
+        return new PropertySnapshot(copy);
+    }
+
+    /**
+     * Returns the properties of this snapshot as a new, mutable Properties instance
+     */
+    public Properties toProperties() {
+        Properties properties = new Properties();
+        values.forEach((name, value) -> properties.setProperty(name, value.string));
+        return properties;
+    }
+
+    public int size() {
+        return values.size();
+    }
+
+    public String getString(String propertyName, String defaultValue) {
+        Value value = values.get(propertyName);
+        return value != null ? value.string : defaultValue;
+    }
+
+    public boolean getBoolean(String propertyName, boolean defaultValue) {
+        Value value = values.get(propertyName);
+        return value != null && value.booleanValue != null ? value.booleanValue : defaultValue;
+    }
+
+    public int getInt(String propertyName, int defaultValue) {
+        Value value = values.get(propertyName);
+        return value != null && value.intValue != null ? value.intValue : defaultValue;
+    }
+
+    public long getLong(String propertyName, long defaultValue) {
+        Value value = values.get(propertyName);
+        return value != null && value.longValue != null ? value.longValue : defaultValue;
+    }
+
+    public double getDouble(String propertyName, double defaultValue) {
+        Value value = values.get(propertyName);
+        return value != null && value.doubleValue != null ? value.doubleValue : defaultValue;
+    }
+
+    public BigDecimal getBigDecimal(String propertyName, BigDecimal defaultValue) {
+        Value value = values.get(propertyName);
+        return value != null && value.bigDecimalValue != null ? value.bigDecimalValue : defaultValue;
+    }
+
+    /**
+     * A property value and every type it parses as; null where it does not parse
+     */
+    private static final class Value {
+        private final String string;
+        private final Boolean booleanValue;
+        private final Integer intValue;
+        private final Long longValue;
+        private final Double doubleValue;
+        private final BigDecimal bigDecimalValue;
+
+        Value(String string) {
+            this.string = string;
+            boolean blank = StringUtils.isBlank(string);
+            this.booleanValue = blank ? null : Boolean.parseBoolean(string);
+            Integer intValue = null;
+            Long longValue = null;
+            Double doubleValue = null;
+            BigDecimal bigDecimalValue = null;
+            if (!blank) {
+                try {
+                    intValue = Integer.parseInt(string);
+                } catch (NumberFormatException e) {
+                    // not an int
+                }
+                try {
+                    longValue = Long.parseLong(string);
+                } catch (NumberFormatException e) {
+                    // not a long
+                }
+                try {
+                    doubleValue = Double.parseDouble(string);
+                    bigDecimalValue = BigDecimal.valueOf(doubleValue);
+                } catch (NumberFormatException e) {
+                    // not a number
+                }
+            }
+            this.intValue = intValue;
+            this.longValue = longValue;
+            this.doubleValue = doubleValue;
+            this.bigDecimalValue = bigDecimalValue;
+        }
+    }
+}
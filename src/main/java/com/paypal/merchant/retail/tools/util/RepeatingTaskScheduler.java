@@ -2,27 +2,25 @@ package com.paypal.merchant.retail.tools.util;
 
 import org.apache.log4j.Logger;
 
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
 
 /**
  * Created by Paolo
  * Created on 5/14/14 1:22 PM
+ *
+ * <p>Tasks are registered with the process-wide {@link SharedTimerService}
  */
 public class RepeatingTaskScheduler implements TaskScheduler {
     Logger logger = Logger.getLogger(this.getClass());
 
-    private ScheduledExecutorService service;
     private ScheduledFuture<?> scheduledFuture;
     private Runnable runnable;
     private long interval;
     private long initialWait;
     private TimeUnit timeUnit;
 
-    public RepeatingTaskScheduler(final Runnable runnableTask, long initialWait, long interval, int threadPoolSize, TimeUnit timeUnit) {
-        this.service = Executors.newScheduledThreadPool(threadPoolSize);
+    public RepeatingTaskScheduler(final Runnable runnableTask, long initialWait, long interval, TimeUnit timeUnit) {
         this.runnable = runnableTask;
         this.interval = interval;
         this.initialWait = initialWait;
@@ -30,17 +28,17 @@ public class RepeatingTaskScheduler implements TaskScheduler {
     }
 
     @Override
-    public void start() {
+    public synchronized void start() {
         try{
             logger.debug("Setting the schedule of tasks.");
-            scheduledFuture = service.scheduleAtFixedRate(this.runnable, initialWait, interval, timeUnit);
+            scheduledFuture = SharedTimerService.INSTANCE.scheduleAtFixedRate(this.runnable, initialWait, interval, timeUnit);
         } catch (Exception e) {
             logger.error(e.getMessage());
         }
     }
 
     @Override
-    public void stop() {
+    public synchronized void stop() {
         if(scheduledFuture != null) {
             logger.info("Stop the task scheduler. No more future tasks will be executed.");
             scheduledFuture.cancel(true);
@@ -48,14 +46,26 @@ public class RepeatingTaskScheduler implements TaskScheduler {
     }
 
     @Override
-    public long getDelayTime() {
+    public synchronized long getDelayTime() {
         if(scheduledFuture != null) {
             return scheduledFuture.getDelay(TimeUnit.SECONDS);
         }
         return 0;
     }
 
+    @Override
+    public synchronized boolean isRunning() {
+        return scheduledFuture != null && !scheduledFuture.isCancelled();
+    }
 
-
-
+    /**
+     * Runs the task now and every interval from now on
+     */
+    @Override
+    public synchronized void runNow() {
+        if(scheduledFuture != null && scheduledFuture.cancel(false)) {
+            logger.info("Running the task now instead of waiting for the rest of the interval.");
+            scheduledFuture = SharedTimerService.INSTANCE.scheduleAtFixedRate(this.runnable, 0, interval, timeUnit);
+        }
+    }
 }
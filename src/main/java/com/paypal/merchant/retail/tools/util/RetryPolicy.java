@@ -0,0 +1,67 @@
+package com.paypal.merchant.retail.tools.util;
+
+import org.slf4j.LoggerFactory;
+
+/**
+ * Decides how long to wait before each retry of a failed call and how many retries are made.
+ *
+ * <p>Delays are in the time unit of the {@link BackoffTaskScheduler} that uses the policy.
+ * Use {@link #forCommand(String)} to build the policy configured for a command type.
+ */
+public interface RetryPolicy {
+
+    /**
+     * Returns the delay before the given retry
+     *
+     * @param retry - The retry about to be scheduled (1 for the first retry)
+     * @param previousDelay - The delay used before the previous retry, or 0 before the first retry
+     * @return The delay before the retry
+     */
+    public long getDelay(int retry, long previousDelay);
+
+    /**
+     * Maximum number of retries after the first attempt
+     */
+    public int getMaxRetries();
+
+    /**
+     * Builds the retry policy for a command type from the properties file. Each setting is read from
+     * sdk.service.retry.[commandType].* and falls back to sdk.service.retry.*
+     *
+     * <ul>
+     * <li>policy - fixed, exponential or jitter (decorrelated jitter); an unknown policy is logged and
+     * the fixed policy used, so a typo in a reloaded properties file does not stop every call</li>
+     * <li>interval.seconds - the fixed delay, or the base delay of the backoff policies</li>
+     * <li>max.interval.seconds - the longest delay of the backoff policies</li>
+     * <li>max.attempts - the maximum number of retries</li>
+     * </ul>
+     *
+     * @param commandType - The command name, e.g. SetLocationAvailability
+     * @return RetryPolicy with delays in seconds
+     */
+    public static RetryPolicy forCommand(String commandType) {
+        String prefix = "sdk.service.retry." + commandType + ".";
+        PropertyManager properties = PropertyManager.INSTANCE;
+
+        String policy = properties.getProperty(prefix + "policy", properties.getProperty("sdk.service.retry.policy", "fixed"));
+        long interval = properties.getProperty(prefix + "interval.seconds",
+                properties.getProperty("sdk.service.retry.interval.seconds", 60L));
+        long maxInterval = properties.getProperty(prefix + "max.interval.seconds",
+                properties.getProperty("sdk.service.retry.max.interval.seconds", 300L));
+        int maxRetries = properties.getProperty(prefix + "max.attempts",
+                properties.getProperty("sdk.service.retry.max.attempts", 5));
+
+        switch (policy.trim().toLowerCase()) {
+            case "exponential":
+                return new ExponentialRetryPolicy(interval, maxInterval, maxRetries);
+            case "jitter":
+                return new DecorrelatedJitterRetryPolicy(interval, maxInterval, maxRetries);
+            case "fixed":
+                return new FixedRetryPolicy(interval, maxRetries);
+            default:
+                LoggerFactory.getLogger(RetryPolicy.class).warn("Unknown retry policy '" + policy + "' for " +
+                        commandType + ". Expected fixed, exponential or jitter; using fixed.");
+                return new FixedRetryPolicy(interval, maxRetries);
+        }
+    }
+}
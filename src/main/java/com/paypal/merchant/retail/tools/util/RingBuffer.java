@@ -0,0 +1,69 @@
+package com.paypal.merchant.retail.tools.util;
+
+import java.util.Arrays;
+
+/**
+ * Fixed-capacity list that drops its oldest element to make room for a new one.
+ *
+ * <p>Adding, evicting and reading by index are O(1) and never allocate. Not thread safe.
+ */
+public class RingBuffer<E> {
+    private final Object[] elements;
+    private int start = 0;
+    private int size = 0;
+
+    public RingBuffer(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("capacity must be at least 1");
+        }
+        this.elements = new Object[capacity];
+    }
+
+    /**
+     * Appends an element, dropping the oldest one if the buffer is full
+     *
+     * @return The dropped element, or null if the buffer was not full
+     */
+    @SuppressWarnings("unchecked")
+    public E add(E element) {
+        E evicted = null;
+        if (size == elements.length) {
+            evicted = (E) elements[start];
+            elements[start] = element;
+            start = (start + 1) % elements.length;
+        } else {
+            elements[(start + size) % elements.length] = element;
+            size++;
+        }
+        return evicted;
+    }
+
+    /**
+     * @param index - 0 is the oldest element
+     */
+    @SuppressWarnings("unchecked")
+    public E get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+        return (E) elements[(start + index) % elements.length];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int capacity() {
+        return elements.length;
+    }
+
+    public boolean isFull() {
+        return size == elements.length;
+    }
+
+    public void clear() {
+        Arrays.fill(elements, null);
+        start = 0;
+        size = 0;
+    }
+}
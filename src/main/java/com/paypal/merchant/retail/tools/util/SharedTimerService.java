@@ -0,0 +1,115 @@
+package com.paypal.merchant.retail.tools.util;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Process-wide timer that every {@link TaskScheduler} registers its tasks with.
+ *
+ * <p>Timers are kept by a small ScheduledThreadPoolExecutor (sdk.timer.threads) that removes
+ * cancelled timers right away, so tens of thousands of pending timers cost one heap entry each
+ * and no threads. When a timer fires the task is handed to a separate worker pool
+ * (sdk.timer.worker.threads) so a long-running task never delays other timers.
+ * A repeating task is skipped, not run twice, if its previous run has not finished.
+ */
+public enum SharedTimerService implements SharedTimerServiceMXBean {
+    INSTANCE;
+    private Logger logger = LoggerFactory.getLogger(this.getClass());
+
+    private final int TIMER_THREADS = PropertyManager.INSTANCE.getProperty("sdk.timer.threads", 1);
+    private final int WORKER_THREADS = PropertyManager.INSTANCE.getProperty("sdk.timer.worker.threads", 4);
+
+    private final ScheduledThreadPoolExecutor timer;
+    private final ThreadPoolExecutor workers;
+
+    private SharedTimerService() {
+        timer = new ScheduledThreadPoolExecutor(Math.max(1, TIMER_THREADS),
+                new ThreadFactoryBuilder().setNameFormat("task-timer-%d").setDaemon(true).build());
+        timer.setRemoveOnCancelPolicy(true);
+        timer.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+
+        ThreadPoolExecutor workerPool = new ThreadPoolExecutor(Math.max(1, WORKER_THREADS), Math.max(1, WORKER_THREADS),
+                60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(),
+                new ThreadFactoryBuilder().setNameFormat("task-worker-%d").setDaemon(true).build());
+        workerPool.allowCoreThreadTimeOut(true);
+        workers = workerPool;
+        MBeans.register("SharedTimerService", null, this, SharedTimerServiceMXBean.class);
+    }
+
+    /**
+     * Runs the task once after the given delay
+     *
+     * @return The timer, used to cancel the task or get the remaining delay
+     */
+    public ScheduledFuture<?> schedule(Runnable task, long delay, TimeUnit timeUnit) {
+        final AtomicBoolean running = new AtomicBoolean(false);
+        return timer.schedule(() -> dispatch(task, running), delay, timeUnit);
+    }
+
+    /**
+     * Runs the task repeatedly, first after initialWait and then every interval
+     *
+     * @return The timer, used to cancel the task or get the delay until the next run
+     */
+    public ScheduledFuture<?> scheduleAtFixedRate(Runnable task, long initialWait, long interval, TimeUnit timeUnit) {
+        final AtomicBoolean running = new AtomicBoolean(false);
+        return timer.scheduleAtFixedRate(() -> dispatch(task, running), initialWait, interval, timeUnit);
+    }
+
+    /**
+     * Number of timers waiting to fire
+     */
+    @Override
+    public int getPendingCount() {
+        return timer.getQueue().size();
+    }
+
+    @Override
+    public int getRunningTaskCount() {
+        return workers.getActiveCount();
+    }
+
+    @Override
+    public int getQueuedTaskCount() {
+        return workers.getQueue().size();
+    }
+
+    /**
+     * Cancels every pending timer and stops the timer and worker threads
+     */
+    public void shutdown() {
+        logger.info("Shutting down the shared timer service. Pending timers: " + getPendingCount());
+        timer.shutdownNow();
+        workers.shutdownNow();
+    }
+
+    private void dispatch(Runnable task, AtomicBoolean running) {
+        if (!running.compareAndSet(false, true)) {
+            logger.debug("Previous run of the task has not finished. Skipping this run.");
+            return;
+        }
+        try {
+            workers.execute(() -> {
+                try {
+                    task.run();
+                } catch (Exception e) {
+                    logger.error("Scheduled task failed", e);
+                } finally {
+                    running.set(false);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            running.set(false);
+            logger.error("Scheduled task rejected: the timer service is shut down");
+        }
+    }
+}
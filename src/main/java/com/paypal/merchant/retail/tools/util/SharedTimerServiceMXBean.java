@@ -0,0 +1,15 @@
+package com.paypal.merchant.retail.tools.util;
+
+/**
+ * JMX view of the {@link SharedTimerService}
+ */
+public interface SharedTimerServiceMXBean {
+    /** Number of timers waiting to fire */
+    int getPendingCount();
+
+    /** Number of tasks running on the worker threads */
+    int getRunningTaskCount();
+
+    /** Number of fired tasks waiting for a worker thread */
+    int getQueuedTaskCount();
+}
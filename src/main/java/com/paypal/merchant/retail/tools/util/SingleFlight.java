@@ -0,0 +1,86 @@
+package com.paypal.merchant.retail.tools.util;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Collapses concurrent identical calls into one.
+ *
+ * <p>While a call for a key is in flight, every other call for the same key waits for its result
+ * instead of starting a new one. Once the call completes the key is free again, so results are
+ * never cached. Each caller gets its own future: cancelling it does not affect the other waiters.
+ */
+public class SingleFlight<K, V> {
+    private final ConcurrentMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+    private final AtomicLong callCount = new AtomicLong();
+    private final AtomicLong sharedCount = new AtomicLong();
+
+    /**
+     * Starts the call for the key, or joins the one already in flight
+     *
+     * @param key - Identifies identical calls, e.g. the command type and id
+     * @param call - Starts the call; only invoked if no call for the key is in flight
+     * @return A future completed with the result of the shared call
+     */
+    public CompletableFuture<V> execute(K key, Supplier<CompletableFuture<V>> call) {
+        CompletableFuture<V> shared = new CompletableFuture<>();
+        CompletableFuture<V> existing = inFlight.putIfAbsent(key, shared);
+        if (existing != null) {
+            sharedCount.incrementAndGet();
+            return copy(existing);
+        }
+
+        callCount.incrementAndGet();
+        try {
+            call.get().whenComplete((value, e) -> {
+                // free the key before completing so a caller woken by the result starts a fresh call
+                inFlight.remove(key, shared);
+                if (e == null) {
+                    shared.complete(value);
+                } else {
+                    shared.completeExceptionally(e);
+                }
+            });
+        } catch (RuntimeException e) {
+            inFlight.remove(key, shared);
+            shared.completeExceptionally(e);
+        }
+        return copy(shared);
+    }
+
+    private static <V> CompletableFuture<V> copy(CompletableFuture<V> shared) {
+        CompletableFuture<V> copy = new CompletableFuture<>();
+        shared.whenComplete((value, e) -> {
+            if (e == null) {
+                copy.complete(value);
+            } else {
+                copy.completeExceptionally(e);
+            }
+        });
+        return copy;
+    }
+
+    /**
+     * Number of calls currently in flight
+     */
+    public int getInFlightCount() {
+        return inFlight.size();
+    }
+
+    /**
+     * Number of calls started
+     */
+    public long getCallCount() {
+        return callCount.get();
+    }
+
+    /**
+     * Number of requests that joined a call already in flight instead of starting one
+     */
+    public long getSharedCount() {
+        return sharedCount.get();
+    }
+}
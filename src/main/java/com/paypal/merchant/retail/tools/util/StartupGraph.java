@@ -0,0 +1,166 @@
+package com.paypal.merchant.retail.tools.util;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs startup steps as a dependency graph: each step starts as soon as the steps it depends on have
+ * finished, so independent steps run in parallel.
+ *
+ * <p>Dependencies only order the steps. A step that fails is logged and reported to the listener, and
+ * the steps that depend on it still run, so the application can start with whatever did load.
+ * The start offset and duration of every step are kept for {@link #getReport()}.
+ */
+public class StartupGraph {
+    private static Logger logger = LoggerFactory.getLogger(StartupGraph.class);
+
+    private final Executor defaultExecutor;
+    private final Map<String, Step> steps = new LinkedHashMap<>();
+    private long startNanos;
+
+    /**
+     * @param defaultExecutor - Runs the steps that are not given their own executor
+     */
+    public StartupGraph(Executor defaultExecutor) {
+        this.defaultExecutor = defaultExecutor;
+    }
+
+    /**
+     * Adds a step run on the default executor
+     *
+     * @param name - Shown in the progress and the report; also used by other steps to depend on this one
+     * @param task - The work to do
+     * @param dependsOn - Steps that must finish first. They must already have been added.
+     */
+    public StartupGraph add(String name, StartupTask task, String... dependsOn) {
+        return add(name, defaultExecutor, task, dependsOn);
+    }
+
+    /**
+     * Adds a step run on the given executor, e.g. Platform::runLater for steps that touch a live scene
+     */
+    public StartupGraph add(String name, Executor executor, StartupTask task, String... dependsOn) {
+        if (steps.containsKey(name)) {
+            throw new IllegalArgumentException("Duplicate startup step: " + name);
+        }
+        List<Step> dependencies = new ArrayList<>();
+        for (String dependency : dependsOn) {
+            Step step = steps.get(dependency);
+            if (step == null) {
+                throw new IllegalArgumentException("Startup step '" + name + "' depends on unknown step '" + dependency + "'");
+            }
+            dependencies.add(step);
+        }
+        steps.put(name, new Step(name, executor, task, dependencies));
+        return this;
+    }
+
+    /**
+     * Starts every step
+     *
+     * @param listener - Told about every finished step; may be null
+     * @return A future completed when every step has finished
+     */
+    public CompletableFuture<Void> run(Listener listener) {
+        startNanos = System.nanoTime();
+        final int total = steps.size();
+        final AtomicInteger finished = new AtomicInteger();
+
+        List<CompletableFuture<Void>> all = new ArrayList<>();
+        for (Step step : steps.values()) {
+            CompletableFuture<?>[] dependencies = step.dependencies.stream().map(dependency -> dependency.future)
+                    .toArray(CompletableFuture<?>[]::new);
+            step.future = CompletableFuture.allOf(dependencies).handle((ignored, e) -> null)
+                    .thenRunAsync(() -> {
+                        step.startNanos = System.nanoTime();
+                        try {
+                            step.task.run();
+                        } catch (Exception e) {
+                            step.error = e;
+                            logger.error("Startup step failed: " + step.name, e);
+                        } finally {
+                            step.endNanos = System.nanoTime();
+                        }
+                        logger.info("Startup step '" + step.name + "' took " + step.getElapsedMillis() + " ms");
+                        if (listener != null) {
+                            try {
+                                listener.onStepFinished(step.name, step.getElapsedMillis(), step.error,
+                                        finished.incrementAndGet(), total);
+                            } catch (Exception e) {
+                                logger.error("Startup listener failed", e);
+                            }
+                        }
+                    }, step.executor);
+            all.add(step.future);
+        }
+        return CompletableFuture.allOf(all.toArray(new CompletableFuture<?>[all.size()]))
+                .whenComplete((ignored, e) -> logger.info(getReport()));
+    }
+
+    /**
+     * Returns one line per step with its start offset and duration, then the total time
+     */
+    public String getReport() {
+        StringBuilder report = new StringBuilder("Startup timing (start offset + duration):");
+        long end = startNanos;
+        for (Step step : steps.values()) {
+            report.append("\n  ").append(step.name).append(": ");
+            if (step.endNanos == 0) {
+                report.append("not finished");
+                continue;
+            }
+            report.append("+").append((step.startNanos - startNanos) / 1000000).append(" ms, ")
+                    .append(step.getElapsedMillis()).append(" ms");
+            if (step.error != null) {
+                report.append(" (FAILED: ").append(step.error.getMessage()).append(")");
+            }
+            end = Math.max(end, step.endNanos);
+        }
+        report.append("\n  Total: ").append((end - startNanos) / 1000000).append(" ms");
+        return report.toString();
+    }
+
+    /**
+     * One unit of startup work
+     */
+    public interface StartupTask {
+        void run() throws Exception;
+    }
+
+    /**
+     * Told about each startup step as it finishes. Called on the thread that ran the step.
+     */
+    public interface Listener {
+        void onStepFinished(String name, long elapsedMillis, Exception error, int finished, int total);
+    }
+
+    private static class Step {
+        private final String name;
+        private final Executor executor;
+        private final StartupTask task;
+        private final List<Step> dependencies;
+        private volatile CompletableFuture<Void> future;
+        private volatile long startNanos;
+        private volatile long endNanos;
+        private volatile Exception error;
+
+        Step(String name, Executor executor, StartupTask task, List<Step> dependencies) {
+            this.name = name;
+            this.executor = executor;
+            this.task = task;
+            this.dependencies = dependencies;
+        }
+
+        long getElapsedMillis() {
+            return (endNanos - startNanos) / 1000000;
+        }
+    }
+}
@@ -3,7 +3,7 @@ package com.paypal.merchant.retail.tools.util;
 /**
  * Created by Paolo on 7/28/2014.
  */
-public interface TaskScheduler {
+public interface TaskScheduler extends TaskSchedulerMXBean {
     public void start();
     public void stop();
     public long getDelayTime();
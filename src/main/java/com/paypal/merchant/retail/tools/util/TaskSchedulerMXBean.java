@@ -0,0 +1,18 @@
+package com.paypal.merchant.retail.tools.util;
+
+/**
+ * The state of a {@link TaskScheduler} and the operations to steer it, as exposed over JMX
+ */
+public interface TaskSchedulerMXBean {
+    /** Whether the scheduler has been started and has not been stopped or run out of runs */
+    public boolean isRunning();
+
+    /** Number of seconds until the next run */
+    public long getDelayTime();
+
+    /** Cancels every future run */
+    public void stop();
+
+    /** Runs the task now instead of waiting for the rest of the delay. Does nothing if the task is running or the scheduler is stopped. */
+    public void runNow();
+}
@@ -0,0 +1,310 @@
+package com.paypal.merchant.retail.tools.util;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Process-wide, bounded thread pool that runs callables with a time limit.
+ *
+ * <p>At most sdk.timeout.executor.pool.size callables run at once and at most
+ * sdk.timeout.executor.queue.size wait for a thread. Anything beyond that is rejected
+ * immediately rather than queued without bound. A callable that times out is interrupted;
+ * if it ignores the interrupt it is counted as abandoned until it finally returns.
+ *
+ * <p>{@link #submit} is the non-blocking form: the time limit is enforced by a single timer
+ * thread, so no thread waits on the result.
+ *
+ * <p>When sdk.execution.mode is "virtual" and the JVM supports virtual threads (Java 21+), every
+ * callable gets its own virtual thread instead of a pool thread, and at most
+ * sdk.execution.virtual.max.inflight may run at once. On older JVMs the pool is used.
+ */
+public enum TimeoutExecutor implements TimeoutExecutorMXBean {
+    INSTANCE;
+    private Logger logger = LoggerFactory.getLogger(this.getClass());
+
+    private final int POOL_SIZE = PropertyManager.INSTANCE.getProperty("sdk.timeout.executor.pool.size", 20);
+    private final int QUEUE_SIZE = PropertyManager.INSTANCE.getProperty("sdk.timeout.executor.queue.size", 100);
+    private final String EXECUTION_MODE = PropertyManager.INSTANCE.getProperty("sdk.execution.mode", "platform");
+    private final int VIRTUAL_MAX_INFLIGHT = PropertyManager.INSTANCE.getProperty("sdk.execution.virtual.max.inflight", 10000);
+
+    private final ExecutorService executor;
+    private final ThreadPoolExecutor pool;
+    private final Semaphore inFlightPermits;
+    private final ScheduledExecutorService timer;
+    private final AtomicInteger activeCount = new AtomicInteger();
+    private final AtomicInteger abandonedCount = new AtomicInteger();
+    private final AtomicLong completedCount = new AtomicLong();
+    private final AtomicLong timedOutCount = new AtomicLong();
+    private final AtomicLong rejectedCount = new AtomicLong();
+
+    private TimeoutExecutor() {
+        ExecutorService virtualExecutor = "virtual".equalsIgnoreCase(EXECUTION_MODE) ? newVirtualThreadExecutor() : null;
+        if (virtualExecutor != null) {
+            logger.info("Running SDK calls on virtual threads | Max in flight: " + VIRTUAL_MAX_INFLIGHT);
+            executor = virtualExecutor;
+            pool = null;
+            inFlightPermits = new Semaphore(Math.max(1, VIRTUAL_MAX_INFLIGHT));
+        } else {
+            pool = new ThreadPoolExecutor(POOL_SIZE, POOL_SIZE, 60, TimeUnit.SECONDS,
+                    new ArrayBlockingQueue<>(Math.max(1, QUEUE_SIZE)),
+                    new ThreadFactoryBuilder().setNameFormat("sdk-call-%d").setDaemon(true).build(),
+                    new ThreadPoolExecutor.AbortPolicy());
+            pool.allowCoreThreadTimeOut(true);
+            executor = pool;
+            inFlightPermits = null;
+        }
+        timer = Executors.newSingleThreadScheduledExecutor(
+                new ThreadFactoryBuilder().setNameFormat("sdk-call-timer").setDaemon(true).build());
+        MBeans.register("TimeoutExecutor", null, this, TimeoutExecutorMXBean.class);
+    }
+
+    /**
+     * Runs the callable on the shared pool and waits at most the given time for its result
+     *
+     * @return The result of the callable
+     * @throws RejectedExecutionException if the pool and its queue are full
+     * @throws TimeoutException if the callable did not finish in time; it has been interrupted
+     * @throws ExecutionException if the callable threw an exception
+     * @throws InterruptedException if the calling thread was interrupted while waiting
+     */
+    public <T> T call(Callable<T> callable, long timeOut, TimeUnit timeUnit)
+            throws TimeoutException, ExecutionException, InterruptedException {
+        TrackedCallable<T> task = new TrackedCallable<>(callable);
+        Future<T> future;
+        try {
+            acquirePermit(task);
+            future = executor.submit(task);
+        } catch (RejectedExecutionException e) {
+            task.releasePermit();
+            rejected();
+            throw e;
+        }
+
+        try {
+            return future.get(timeOut, timeUnit);
+        } catch (TimeoutException e) {
+            timedOutCount.incrementAndGet();
+            future.cancel(true);
+            task.abandon();
+            throw e;
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            task.abandon();
+            throw e;
+        }
+    }
+
+    /**
+     * Runs the callable on the shared pool without blocking the caller. If it has not finished in
+     * time, the returned future fails with a TimeoutException and the callable is interrupted.
+     * If the pool and its queue are full, the future fails with a RejectedExecutionException.
+     * Cancelling the returned future interrupts the callable.
+     *
+     * @return A future completed with the result of the callable
+     */
+    public <T> CompletableFuture<T> submit(Callable<T> callable, long timeOut, TimeUnit timeUnit) {
+        final CompletableFuture<T> result = new CompletableFuture<>();
+        final TrackedCallable<T> task = new TrackedCallable<>(callable);
+        final AtomicBoolean finished = new AtomicBoolean();
+        final Future<?> future;
+        try {
+            acquirePermit(task);
+            future = executor.submit(() -> {
+                T value;
+                try {
+                    value = task.call();
+                } catch (Throwable e) {
+                    finished.set(true);
+                    result.completeExceptionally(e);
+                    return;
+                }
+                finished.set(true);
+                result.complete(value);
+            });
+        } catch (RejectedExecutionException e) {
+            task.releasePermit();
+            rejected();
+            result.completeExceptionally(e);
+            return result;
+        }
+
+        final ScheduledFuture<?> timeout = timer.schedule(() -> {
+            if (result.completeExceptionally(new TimeoutException("Timed out after " + timeOut + " " +
+                    timeUnit.name().toLowerCase()))) {
+                timedOutCount.incrementAndGet();
+            }
+        }, timeOut, timeUnit);
+
+        result.whenComplete((value, e) -> {
+            timeout.cancel(false);
+            // only a timeout or a cancel of the result stops the callable; one that threw has already
+            // finished, and interrupting it would interrupt the worker thread that completes the result
+            if (e != null && !finished.get()) {
+                future.cancel(true);
+                task.abandon();
+            }
+        });
+        return result;
+    }
+
+    private void acquirePermit(TrackedCallable<?> task) {
+        if (inFlightPermits != null) {
+            if (!inFlightPermits.tryAcquire()) {
+                throw new RejectedExecutionException(VIRTUAL_MAX_INFLIGHT + " callables already in flight");
+            }
+            task.permit.set(inFlightPermits);
+        }
+    }
+
+    private void rejected() {
+        rejectedCount.incrementAndGet();
+        logger.error("Rejected callable: " + getActiveCount() + " running and " + getQueuedCount() + " queued");
+    }
+
+    /**
+     * Returns an executor that starts a new virtual thread per task, or null if this JVM
+     * does not have virtual threads. Looked up reflectively so the tool still builds and runs on Java 8.
+     */
+    private ExecutorService newVirtualThreadExecutor() {
+        try {
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+            builder = builderClass.getMethod("name", String.class, long.class).invoke(builder, "sdk-vcall-", 0L);
+            ThreadFactory threadFactory = (ThreadFactory) builderClass.getMethod("factory").invoke(builder);
+            return (ExecutorService) Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class)
+                    .invoke(null, threadFactory);
+        } catch (Exception e) {
+            logger.warn("Virtual threads are not available on Java " + System.getProperty("java.version") +
+                    ". Falling back to the platform thread pool.");
+            return null;
+        }
+    }
+
+    /**
+     * Whether callables run on virtual threads
+     */
+    public boolean isVirtual() {
+        return pool == null;
+    }
+
+    /**
+     * Number of callables currently running
+     */
+    public int getActiveCount() {
+        return activeCount.get();
+    }
+
+    /**
+     * Number of callables waiting for a thread
+     */
+    public int getQueuedCount() {
+        return pool != null ? pool.getQueue().size() : 0;
+    }
+
+    /**
+     * Number of timed out callables that are still holding a thread
+     */
+    public int getAbandonedCount() {
+        return abandonedCount.get();
+    }
+
+    public long getCompletedCount() {
+        return completedCount.get();
+    }
+
+    public long getTimedOutCount() {
+        return timedOutCount.get();
+    }
+
+    public long getRejectedCount() {
+        return rejectedCount.get();
+    }
+
+    public int getPoolSize() {
+        return POOL_SIZE;
+    }
+
+    public int getQueueSize() {
+        return QUEUE_SIZE;
+    }
+
+    public void shutdown() {
+        logger.info("Shutting down the timeout executor");
+        timer.shutdownNow();
+        executor.shutdownNow();
+    }
+
+    /**
+     * Wraps a callable to keep the active and abandoned counts
+     */
+    private class TrackedCallable<T> implements Callable<T> {
+        private static final int QUEUED = 0;
+        private static final int RUNNING = 1;
+        private static final int DONE = 2;
+        private static final int ABANDONED = 3;
+
+        private final Callable<T> callable;
+        private final AtomicInteger state = new AtomicInteger(QUEUED);
+        private final AtomicReference<Semaphore> permit = new AtomicReference<>();
+
+        TrackedCallable(Callable<T> callable) {
+            this.callable = callable;
+        }
+
+        @Override
+        public T call() throws Exception {
+            if (!state.compareAndSet(QUEUED, RUNNING)) {
+                releasePermit();
+                return null;
+            }
+            activeCount.incrementAndGet();
+            try {
+                return callable.call();
+            } finally {
+                activeCount.decrementAndGet();
+                completedCount.incrementAndGet();
+                releasePermit();
+                if (!state.compareAndSet(RUNNING, DONE)) {
+                    abandonedCount.decrementAndGet();
+                    logger.info("Abandoned callable finally returned on " + Thread.currentThread().getName());
+                }
+            }
+        }
+
+        void abandon() {
+            if (state.compareAndSet(RUNNING, ABANDONED)) {
+                abandonedCount.incrementAndGet();
+            } else if (state.compareAndSet(QUEUED, DONE)) {
+                releasePermit();
+            }
+        }
+
+        void releasePermit() {
+            Semaphore held = permit.getAndSet(null);
+            if (held != null) {
+                held.release();
+            }
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package com.paypal.merchant.retail.tools.util;
+
+/**
+ * JMX view of the {@link TimeoutExecutor} pool
+ */
+public interface TimeoutExecutorMXBean {
+    boolean isVirtual();
+
+    int getActiveCount();
+
+    int getQueuedCount();
+
+    int getAbandonedCount();
+
+    long getCompletedCount();
+
+    long getTimedOutCount();
+
+    long getRejectedCount();
+
+    int getPoolSize();
+
+    int getQueueSize();
+}
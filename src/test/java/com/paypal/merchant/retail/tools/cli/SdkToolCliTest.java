@@ -0,0 +1,67 @@
+package com.paypal.merchant.retail.tools.cli;
+
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+public class SdkToolCliTest {
+
+    @Test
+    public void testReadLinesSkipsBlanksAndComments() throws Exception {
+        BufferedReader reader = new BufferedReader(new StringReader("SanJose\n\n# comment\n  Austin  \n"));
+        assertEquals(Arrays.asList("SanJose", "Austin"), SdkToolCli.readLines(reader));
+    }
+
+    @Test
+    public void testParseBulkLine() throws Exception {
+        assertArrayEquals(new String[]{"SanJose", "open"}, SdkToolCli.parseBulkLine("SanJose open"));
+        assertArrayEquals(new String[]{"SanJose", "close"}, SdkToolCli.parseBulkLine("SanJose,CLOSED"));
+        assertArrayEquals(new String[]{"SanJose", "close"}, SdkToolCli.parseBulkLine("SanJose\tclose"));
+        try {
+            SdkToolCli.parseBulkLine("SanJose maybe");
+            fail("Expected an invalid state to be rejected");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testFormat() throws Exception {
+        assertEquals("SanJose\tok\topen\t12\t", SdkToolCli.format("SanJose", true, true, 12, null, false));
+        assertEquals("SanJose\tfailed\t\t30\tTimed out after 10 seconds",
+                SdkToolCli.format("SanJose", false, false, 30, "Timed out\tafter 10 seconds", false));
+        assertEquals("{\"storeId\":\"SanJose\",\"ok\":true,\"state\":\"closed\",\"elapsedMillis\":12}",
+                SdkToolCli.format("SanJose", true, false, 12, "", true));
+        assertEquals("{\"storeId\":\"SanJose\",\"ok\":false,\"elapsedMillis\":5,\"message\":\"say \\\"hi\\\"\\n\"}",
+                SdkToolCli.format("SanJose", false, false, 5, "say \"hi\"\n", true));
+    }
+
+    @Test
+    public void testUsageErrors() throws Exception {
+        assertEquals(SdkToolCli.EXIT_USAGE, newCli().run(new String[]{}));
+        assertEquals(SdkToolCli.EXIT_USAGE, newCli().run(new String[]{"status", "--format", "xml"}));
+        assertEquals(SdkToolCli.EXIT_USAGE, newCli().run(new String[]{"bulk", "SanJose"}));
+        assertEquals(SdkToolCli.EXIT_USAGE, newCli().run(new String[]{"status", "--concurrency"}));
+    }
+
+    @Test
+    public void testMalformedBulkLineIsAUsageError() throws Exception {
+        SdkToolCli cli = new SdkToolCli(new PrintStream(new ByteArrayOutputStream()),
+                new ByteArrayInputStream("SanJose open\nAustin maybe\n".getBytes(StandardCharsets.UTF_8)));
+        assertEquals(SdkToolCli.EXIT_USAGE, cli.run(new String[]{"bulk"}));
+    }
+
+    private static SdkToolCli newCli() {
+        return new SdkToolCli(new PrintStream(new ByteArrayOutputStream()), new ByteArrayInputStream(new byte[0]));
+    }
+}
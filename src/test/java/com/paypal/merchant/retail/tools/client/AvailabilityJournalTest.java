@@ -0,0 +1,112 @@
+package com.paypal.merchant.retail.tools.client;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class AvailabilityJournalTest {
+    private static final long AN_HOUR = TimeUnit.HOURS.toMillis(1);
+    private Path directory;
+    private AvailabilityJournal journal;
+
+    @Before
+    public void setUp() throws Exception {
+        directory = Files.createTempDirectory("availability-journal");
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        if (journal != null) {
+            journal.close();
+        }
+        FileUtils.deleteQuietly(directory.toFile());
+    }
+
+    @Test
+    public void testResumesPendingChangesAfterReopen() throws Exception {
+        journal = AvailabilityJournal.open(directory, 1000);
+        journal.recordPending(Arrays.asList("store1", "store2", "store3"), true);
+        journal.recordPending(Collections.singletonList("store4"), false);
+        journal.recordDone("store2", true);
+        journal.close();
+
+        journal = AvailabilityJournal.open(directory, 1000);
+        Map<String, Boolean> pending = journal.getPending(AN_HOUR);
+        assertEquals(Arrays.asList("store1", "store3", "store4"), Arrays.asList(pending.keySet().toArray()));
+        assertEquals(true, pending.get("store1"));
+        assertEquals(false, pending.get("store4"));
+    }
+
+    @Test
+    public void testDoneForTheOtherStateKeepsTheNewerChange() throws Exception {
+        journal = AvailabilityJournal.open(directory, 1000);
+        journal.recordPending(Collections.singletonList("store1"), true);
+        journal.recordPending(Collections.singletonList("store1"), false);
+        journal.recordDone("store1", true);
+
+        assertEquals(Collections.singletonMap("store1", false), journal.getPending(AN_HOUR));
+        journal.recordDone("store1", false);
+        assertEquals(0, journal.getPendingCount());
+    }
+
+    @Test
+    public void testCutsOffATornRecord() throws Exception {
+        journal = AvailabilityJournal.open(directory, 1000);
+        journal.recordPending(Arrays.asList("store1", "store2"), false);
+        journal.close();
+        Files.write(directory.resolve("availability.wal"), "P\tstore3\tOPEN@1".getBytes(StandardCharsets.UTF_8),
+                StandardOpenOption.APPEND);
+
+        journal = AvailabilityJournal.open(directory, 1000);
+        assertEquals(2, journal.getPendingCount());
+        journal.recordPending(Collections.singletonList("store3"), true);
+        journal.close();
+
+        journal = AvailabilityJournal.open(directory, 1000);
+        assertEquals(3, journal.getPending(AN_HOUR).size());
+    }
+
+    @Test
+    public void testCompactsTheLogIntoACheckpoint() throws Exception {
+        journal = AvailabilityJournal.open(directory, 100);
+        for (int i = 0; i < 500; i++) {
+            journal.recordPending(Collections.singletonList("store" + i), i % 2 == 0);
+            if (i % 10 != 0) {
+                journal.recordDone("store" + i, i % 2 == 0);
+            }
+        }
+        assertTrue(Files.size(directory.resolve("availability.wal")) < 100 * 64);
+        journal.close();
+
+        journal = AvailabilityJournal.open(directory, 100);
+        Map<String, Boolean> pending = journal.getPending(AN_HOUR);
+        assertEquals(50, pending.size());
+        assertEquals(true, pending.get("store490"));
+        assertEquals(0, Files.size(directory.resolve("availability.wal")));
+    }
+
+    @Test
+    public void testDropsChangesTooOldToResume() throws Exception {
+        journal = AvailabilityJournal.open(directory, 1000);
+        journal.recordPending(Collections.singletonList("store1"), true);
+        Thread.sleep(20);
+
+        assertTrue(journal.getPending(10).isEmpty());
+        journal.close();
+        journal = AvailabilityJournal.open(directory, 1000);
+        assertEquals(0, journal.getPendingCount());
+    }
+}
@@ -0,0 +1,109 @@
+package com.paypal.merchant.retail.tools.client;
+
+import com.paypal.merchant.retail.tools.exception.ClientException;
+import com.paypal.merchant.retail.tools.exception.RequestRejectedException;
+import org.junit.Test;
+
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+public class CircuitBreakerTest {
+    private static final long FAST = TimeUnit.MILLISECONDS.toNanos(10);
+    private static final long SLOW = TimeUnit.SECONDS.toNanos(6);
+
+    @Test
+    public void testOpensOnFailureRate() throws Exception {
+        CircuitBreaker circuitBreaker = new CircuitBreaker("hereAPIService", true, 10, 4, 50, 100, 5, 30, 2);
+        circuitBreaker.onSuccess(FAST);
+        circuitBreaker.onError(FAST, new ClientException("failed"));
+        circuitBreaker.onSuccess(FAST);
+        assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState());
+
+        circuitBreaker.onError(FAST, new ClientException("failed"));
+        assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState());
+        assertNotPermitted(circuitBreaker);
+        assertEquals(1, circuitBreaker.getNotPermittedCount());
+    }
+
+    @Test
+    public void testOpensOnSlowCallRate() throws Exception {
+        CircuitBreaker circuitBreaker = new CircuitBreaker("hereAPIService", true, 10, 4, 100, 75, 5, 30, 2);
+        circuitBreaker.onSuccess(SLOW);
+        circuitBreaker.onSuccess(SLOW);
+        circuitBreaker.onSuccess(FAST);
+        circuitBreaker.onSuccess(SLOW);
+        assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState());
+    }
+
+    @Test
+    public void testRejectionsAreNotCounted() throws Exception {
+        CircuitBreaker circuitBreaker = new CircuitBreaker("hereAPIService", true, 10, 2, 50, 100, 5, 30, 2);
+        for (int i = 0; i < 10; i++) {
+            circuitBreaker.onError(FAST, new ClientException("busy", new RejectedExecutionException()));
+        }
+        assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState());
+    }
+
+    @Test
+    public void testRejectedRequestsAreNotFailures() throws Exception {
+        CircuitBreaker circuitBreaker = new CircuitBreaker("hereAPIService", true, 20, 10, 50, 100, 5, 30, 2);
+        for (int i = 0; i < 10; i++) {
+            circuitBreaker.onError(FAST, new ClientException("Failed PayPal Merchant SDK",
+                    new RequestRejectedException("Unknown store " + i)));
+            circuitBreaker.onSuccess(FAST);
+        }
+        assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState());
+        assertEquals(0, circuitBreaker.getFailureRate());
+
+        for (int i = 0; i < 10; i++) {
+            circuitBreaker.onError(FAST, new ClientException("Timed out"));
+        }
+        assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState());
+    }
+
+    @Test
+    public void testHalfOpenClosesAfterTrialCalls() throws Exception {
+        CircuitBreaker circuitBreaker = new CircuitBreaker("hereAPIService", true, 10, 1, 50, 100, 5, 0, 2);
+        circuitBreaker.onError(FAST, new ClientException("failed"));
+        assertEquals(CircuitBreaker.State.HALF_OPEN, circuitBreaker.getState());
+
+        circuitBreaker.acquirePermission();
+        circuitBreaker.acquirePermission();
+        assertNotPermitted(circuitBreaker);
+
+        circuitBreaker.onSuccess(FAST);
+        circuitBreaker.onSuccess(FAST);
+        assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState());
+        circuitBreaker.acquirePermission();
+    }
+
+    @Test
+    public void testHalfOpenReopensOnFailure() throws Exception {
+        CircuitBreaker circuitBreaker = new CircuitBreaker("hereAPIService", true, 10, 1, 50, 100, 5, 0, 1);
+        circuitBreaker.onError(FAST, new ClientException("failed"));
+        circuitBreaker.acquirePermission();
+        circuitBreaker.onError(FAST, new ClientException("failed"));
+        assertEquals(CircuitBreaker.State.HALF_OPEN, circuitBreaker.getState());
+        assertEquals(0, circuitBreaker.getNotPermittedCount());
+    }
+
+    @Test
+    public void testDisabled() throws Exception {
+        CircuitBreaker circuitBreaker = new CircuitBreaker("hereAPIService", false, 10, 1, 50, 100, 5, 30, 1);
+        circuitBreaker.onError(FAST, new ClientException("failed"));
+        circuitBreaker.acquirePermission();
+        assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState());
+    }
+
+    private static void assertNotPermitted(CircuitBreaker circuitBreaker) {
+        try {
+            circuitBreaker.acquirePermission();
+            fail("Expected the circuit to fail fast");
+        } catch (ClientException e) {
+            // expected
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.paypal.merchant.retail.tools.client;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class CommandMetricsTest {
+
+    @Before
+    public void setUp() throws Exception {
+        CommandMetrics.INSTANCE.reset();
+    }
+
+    @Test
+    public void testRecordsByCommandAndStore() throws Exception {
+        for (int i = 1; i <= 100; i++) {
+            CommandMetrics.INSTANCE.record("GetLocation", "SanJose", TimeUnit.MILLISECONDS.toNanos(i), "Success", null);
+        }
+        CommandMetrics.INSTANCE.record("SetLocationAvailability", "Austin", TimeUnit.SECONDS.toNanos(2), "Failure", "ServiceError");
+
+        List<CommandStats> commands = CommandMetrics.INSTANCE.getCommands();
+        assertEquals(2, commands.size());
+        CommandStats getLocation = commands.get(0);
+        assertEquals("GetLocation", getLocation.getName());
+        assertEquals(100, getLocation.getCount());
+        assertEquals(50, getLocation.getP50Millis(), 1);
+        assertEquals(99, getLocation.getP99Millis(), 2);
+        assertEquals(100, getLocation.getMaxMillis());
+        assertEquals(Long.valueOf(100), getLocation.getResults().get("Success"));
+
+        CommandStats setAvailability = commands.get(1);
+        assertEquals(Long.valueOf(1), setAvailability.getResults().get("Failure"));
+        assertEquals(Long.valueOf(1), setAvailability.getErrorCodes().get("ServiceError"));
+
+        assertEquals(100, CommandMetrics.INSTANCE.getStore("SanJose").getCount());
+        assertNull(CommandMetrics.INSTANCE.getStore("Unknown"));
+        assertEquals("Austin", CommandMetrics.INSTANCE.getSlowestStores(1).get(0).getName());
+        assertTrue(CommandMetrics.INSTANCE.dump().contains("SetLocationAvailability"));
+    }
+
+    @Test
+    public void testRegisteredWithJmx() throws Exception {
+        CommandMetrics.INSTANCE.record("GetLocation", "SanJose", TimeUnit.MILLISECONDS.toNanos(5), "Success", null);
+
+        Object commands = ManagementFactory.getPlatformMBeanServer().getAttribute(
+                new ObjectName(CommandMetrics.OBJECT_NAME), "Commands");
+        assertEquals(1, ((Object[]) commands).length);
+    }
+}
@@ -0,0 +1,252 @@
+package com.paypal.merchant.retail.tools.client;
+
+import com.paypal.merchant.retail.sdk.contract.entities.Location;
+import com.paypal.merchant.retail.sdk.internal.entities.LocationImpl;
+import com.paypal.merchant.retail.tools.exception.ClientException;
+import com.paypal.merchant.retail.tools.util.RetryPolicy;
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+public class FleetAvailabilityUpdaterTest {
+    private FleetAvailabilityUpdater updater;
+
+    @After
+    public void tearDown() {
+        if (updater != null) {
+            updater.shutdown();
+        }
+    }
+
+    private static Location location(String storeId, boolean isOpen) {
+        LocationImpl location = new LocationImpl();
+        location.setStoreId(storeId);
+        location.setOpen(isOpen);
+        return location;
+    }
+
+    private static List<String> stores(int count) {
+        List<String> storeIds = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            storeIds.add("store" + i);
+        }
+        return storeIds;
+    }
+
+    @Test
+    public void testLimitsCallsInFlight() throws Exception {
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger maxInFlight = new AtomicInteger();
+        LinkedBlockingQueue<Runnable> pending = new LinkedBlockingQueue<>();
+        updater = new FleetAvailabilityUpdater((storeId, isOpen) -> {
+            maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            CompletableFuture<Location> call = new CompletableFuture<>();
+            pending.add(() -> {
+                inFlight.decrementAndGet();
+                call.complete(location(storeId, isOpen));
+            });
+            return call;
+        }, 3, () -> null, null);
+
+        Listener listener = new Listener();
+        updater.update(stores(20), true, listener);
+        // let the dispatcher fill every permit before the first call completes
+        long deadline = System.currentTimeMillis() + 5000;
+        while (pending.size() < 3 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        for (int i = 0; i < 20; i++) {
+            Runnable complete = pending.poll(5, TimeUnit.SECONDS);
+            assertNotNull(complete);
+            assertTrue(inFlight.get() <= 3);
+            complete.run();
+        }
+
+        assertTrue(listener.finished.await(5, TimeUnit.SECONDS));
+        assertEquals(3, maxInFlight.get());
+        assertEquals(Arrays.asList(20, 0, 20), listener.totals);
+        assertEquals(20, listener.results.size());
+        assertEquals("Open", listener.results.get("store7").getMessage());
+    }
+
+    @Test
+    public void testReportsFailedStores() throws Exception {
+        updater = new FleetAvailabilityUpdater((storeId, isOpen) -> {
+            CompletableFuture<Location> call = new CompletableFuture<>();
+            if (storeId.equals("store2")) {
+                call.completeExceptionally(new ClientException("Store is suspended"));
+            } else {
+                call.complete(location(storeId, isOpen));
+            }
+            return call;
+        }, 2, () -> null, null);
+
+        Listener listener = new Listener();
+        updater.update(stores(5), false, listener);
+
+        assertTrue(listener.finished.await(5, TimeUnit.SECONDS));
+        assertEquals(Arrays.asList(5, 1, 5), listener.totals);
+        assertFalse(listener.results.get("store2").isSuccessful());
+        assertEquals("Store is suspended", listener.results.get("store2").getMessage());
+        assertEquals("FAILED", updater.getStore("store2").getState());
+        assertEquals("Closed", listener.results.get("store3").getMessage());
+    }
+
+    @Test
+    public void testRetriesFailedStores() throws Exception {
+        AtomicInteger calls = new AtomicInteger();
+        updater = new FleetAvailabilityUpdater((storeId, isOpen) -> {
+            CompletableFuture<Location> call = new CompletableFuture<>();
+            if (calls.incrementAndGet() == 1) {
+                call.completeExceptionally(new ClientException("Timed out"));
+            } else {
+                call.complete(location(storeId, isOpen));
+            }
+            return call;
+        }, 1, () -> new RetryPolicy() {
+            @Override
+            public long getDelay(int retry, long previousDelay) {
+                return 0;
+            }
+
+            @Override
+            public int getMaxRetries() {
+                return 1;
+            }
+        }, null);
+
+        Listener listener = new Listener();
+        updater.update(Collections.singletonList("store0"), true, listener);
+
+        assertTrue(listener.finished.await(5, TimeUnit.SECONDS));
+        assertEquals(Arrays.asList(1, 0, 1), listener.totals);
+        assertEquals(2, updater.getStore("store0").getAttempts());
+    }
+
+    @Test
+    public void testNullLocationAndUnexpectedErrorsAreReported() throws Exception {
+        updater = new FleetAvailabilityUpdater((storeId, isOpen) -> {
+            if (storeId.equals("store0")) {
+                return CompletableFuture.completedFuture(null);
+            }
+            if (storeId.equals("store1")) {
+                throw new IllegalStateException("expected");
+            }
+            return CompletableFuture.completedFuture(location(storeId, isOpen));
+        }, 2, () -> null, null);
+
+        Listener listener = new Listener();
+        updater.update(Arrays.asList("store0", "store1", "store2", "store2"), true, listener);
+
+        assertTrue(listener.finished.await(5, TimeUnit.SECONDS));
+        assertEquals(Arrays.asList(3, 2, 3), listener.totals);
+        assertEquals("The PayPal Merchant SDK returned no Location", listener.results.get("store0").getMessage());
+        assertEquals("expected", listener.results.get("store1").getMessage());
+        assertTrue(listener.results.get("store2").isSuccessful());
+    }
+
+    @Test
+    public void testCancelSkipsStoresNotStarted() throws Exception {
+        LinkedBlockingQueue<CompletableFuture<Location>> pending = new LinkedBlockingQueue<>();
+        updater = new FleetAvailabilityUpdater((storeId, isOpen) -> {
+            CompletableFuture<Location> call = new CompletableFuture<>();
+            pending.add(call);
+            return call.thenApply(ignored -> location(storeId, isOpen));
+        }, 2, () -> null, null);
+
+        Listener listener = new Listener();
+        updater.update(stores(10), true, listener);
+        CompletableFuture<Location> first = pending.poll(5, TimeUnit.SECONDS);
+        CompletableFuture<Location> second = pending.poll(5, TimeUnit.SECONDS);
+        updater.cancel();
+        first.complete(null);
+        second.complete(null);
+
+        assertTrue(listener.finished.await(5, TimeUnit.SECONDS));
+        assertEquals(Arrays.asList(10, 8, 10), listener.totals);
+        assertEquals("Canceled", listener.results.get("store9").getMessage());
+        assertEquals(Integer.valueOf(8), updater.getStoreStateCounts().get("CANCELED"));
+    }
+
+    @Test
+    public void testCancelDropsPendingRetries() throws Exception {
+        List<String> calls = Collections.synchronizedList(new ArrayList<>());
+        updater = new FleetAvailabilityUpdater((storeId, isOpen) -> {
+            calls.add(storeId);
+            CompletableFuture<Location> call = new CompletableFuture<>();
+            if (storeId.startsWith("store")) {
+                call.completeExceptionally(new ClientException("Timed out"));
+            } else {
+                call.complete(location(storeId, isOpen));
+            }
+            return call;
+        }, 2, () -> new RetryPolicy() {
+            @Override
+            public long getDelay(int retry, long previousDelay) {
+                return 3600;
+            }
+
+            @Override
+            public int getMaxRetries() {
+                return 5;
+            }
+        }, null);
+
+        Listener listener = new Listener();
+        updater.update(stores(3), true, listener);
+        long deadline = System.currentTimeMillis() + 5000;
+        while (updater.getPendingRetryCount() < 3 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(3, updater.getPendingRetryCount());
+        updater.cancel();
+
+        assertTrue(listener.finished.await(5, TimeUnit.SECONDS));
+        assertEquals(Arrays.asList(3, 3, 3), listener.totals);
+        assertEquals(Integer.valueOf(3), updater.getStoreStateCounts().get("CANCELED"));
+
+        // the cancel belongs to the earlier update
+        Listener next = new Listener();
+        updater.update(Collections.singletonList("other"), true, next);
+        assertTrue(next.finished.await(5, TimeUnit.SECONDS));
+        assertEquals(Arrays.asList(1, 0, 1), next.totals);
+        assertEquals(4, calls.size());
+    }
+
+    private static class Listener implements FleetAvailabilityUpdater.ProgressListener {
+        private final Map<String, FleetAvailabilityUpdater.StoreResult> results = new ConcurrentHashMap<>();
+        private final CountDownLatch finished = new CountDownLatch(1);
+        private volatile List<Integer> totals;
+
+        @Override
+        public void onStoreResult(FleetAvailabilityUpdater.StoreResult result) {
+            results.put(result.getStoreId(), result);
+        }
+
+        @Override
+        public void onProgress(int completed, int failed, int total) {
+        }
+
+        @Override
+        public void onFinished(int completed, int failed, int total) {
+            totals = Arrays.asList(completed, failed, total);
+            finished.countDown();
+        }
+    }
+}
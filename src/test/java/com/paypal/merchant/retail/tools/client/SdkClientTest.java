@@ -0,0 +1,62 @@
+package com.paypal.merchant.retail.tools.client;
+
+import com.paypal.merchant.retail.tools.exception.ClientException;
+import com.paypal.merchant.retail.tools.standin.LatencyDistribution;
+import com.paypal.merchant.retail.tools.standin.SdkStandInServer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class SdkClientTest {
+    private SdkStandInServer standIn;
+    private Path config;
+
+    @Before
+    public void setUp() throws Exception {
+        standIn = new SdkStandInServer(5, LatencyDistribution.parse("fixed:0"), 0, 0, 1000);
+        standIn.start(0);
+        config = Files.createTempFile("Config", ".xml");
+        standIn.writeConfig(config);
+        System.setProperty(SdkClient.CONFIG_FILE, config.toString());
+        SdkClient.INSTANCE.reloadConfig();
+        SdkClient.INSTANCE.resetCircuitBreakers();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        System.clearProperty(SdkClient.CONFIG_FILE);
+        try {
+            SdkClient.INSTANCE.reloadConfig();
+        } catch (ClientException ignored) {
+        }
+        standIn.close();
+        Files.deleteIfExists(config);
+    }
+
+    @Test
+    public void testUnknownStoresDoNotOpenTheCircuit() throws Exception {
+        assertEquals(standIn.getStoreIds(), SdkClient.INSTANCE.getStoreIds());
+        CircuitBreaker circuitBreaker = SdkClient.INSTANCE.getCircuitBreaker("SetLocationAvailability");
+        for (int i = 0; i < 50; i++) {
+            try {
+                SdkClient.INSTANCE.setLocationAvailabilityAsync("NoSuchStore" + i, null, true).get(5, TimeUnit.SECONDS);
+                fail("An unknown store must fail");
+            } catch (ExecutionException expected) {
+                // failed looking up the store, not because the client is not initialized or the circuit is open
+                assertTrue(expected.getCause().getMessage(), expected.getCause().getMessage().contains("NoSuchStore" + i));
+            }
+        }
+        assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState());
+        assertEquals(-1, circuitBreaker.getFailureRate());
+        assertEquals(0, circuitBreaker.getNotPermittedCount());
+    }
+}
@@ -0,0 +1,233 @@
+package com.paypal.merchant.retail.tools.refund;
+
+import com.paypal.merchant.retail.tools.exception.ClientException;
+import com.paypal.merchant.retail.tools.exception.RequestRejectedException;
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class BatchRefundProcessorTest {
+    private Path directory;
+    private BatchRefundProcessor processor;
+    private final ScheduledExecutorService sdk = Executors.newScheduledThreadPool(8);
+
+    @Before
+    public void setUp() throws Exception {
+        directory = Files.createTempDirectory("batch-refund");
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        if (processor != null) {
+            processor.shutdown();
+        }
+        sdk.shutdownNow();
+        FileUtils.deleteQuietly(directory.toFile());
+    }
+
+    private RefundValidator newValidator() {
+        return new RefundValidator(Arrays.asList("store1", "store2"), "store1", "USD");
+    }
+
+    private static BatchRefundProcessor.ProgressListener ignoreProgress() {
+        return new BatchRefundProcessor.ProgressListener() {
+            @Override
+            public void onResult(RefundResult result) {
+            }
+
+            @Override
+            public void onProgress(BatchRefundProcessor.Progress progress) {
+            }
+
+            @Override
+            public void onFinished(BatchRefundProcessor.Progress progress) {
+            }
+        };
+    }
+
+    @Test
+    public void testWritesResultOfEveryRecord() throws Exception {
+        StringBuilder csv = new StringBuilder("store_id,transaction_id,amount,currency\n");
+        for (int i = 0; i < 50; i++) {
+            csv.append(i % 2 == 0 ? "store1" : "store2").append(",T").append(i).append(",1.50,\n");
+        }
+        csv.append("store1,T0,1.50,USD\n");     // duplicate
+        csv.append("store9,T99,1.50,USD\n");    // unknown store
+        csv.append("store1,T100,-1,USD\n");     // negative amount
+        csv.append("store1,T101,1.005,USD\n");  // too many decimals
+        csv.append("store2,FAIL,2,USD\n");
+        Path input = Files.write(directory.resolve("refunds.csv"), csv.toString().getBytes(StandardCharsets.UTF_8));
+        Path output = RefundResultWriter.resultsPathFor(input);
+
+        processor = new BatchRefundProcessor(request -> {
+            CompletableFuture<String> refund = new CompletableFuture<>();
+            sdk.schedule(() -> {
+                if (request.getTransactionId().equals("FAIL")) {
+                    refund.completeExceptionally(new ClientException("Declined"));
+                } else {
+                    refund.complete("R-" + request.getTransactionId());
+                }
+            }, 5, TimeUnit.MILLISECONDS);
+            return refund;
+        }, 4, 1000, 10);
+
+        BatchRefundProcessor.Progress progress = processor.process(input, output, newValidator(), ignoreProgress())
+                .get(10, TimeUnit.SECONDS);
+
+        assertTrue(progress.isDone());
+        assertNull(progress.getError());
+        assertEquals(55, progress.getRead());
+        assertEquals(50, progress.getRefunded());
+        assertEquals(1, progress.getFailed());
+        assertEquals(4, progress.getInvalid());
+        assertEquals(1.0, progress.getFraction(), 0);
+
+        List<String> lines = Files.readAllLines(output, StandardCharsets.UTF_8);
+        assertEquals(56, lines.size());
+        assertTrue(lines.stream().anyMatch(line -> line.startsWith("2,store1,T0,1.50,USD,REFUNDED,R-T0,,")));
+        assertTrue(lines.stream().anyMatch(line -> line.startsWith("52,store1,T0,1.50,USD,INVALID,,Duplicate")));
+        assertTrue(lines.stream().anyMatch(line -> line.startsWith("56,store2,FAIL,2.00,USD,FAILED,,Declined,")));
+    }
+
+    @Test
+    public void testResumedRunSkipsRefundsAlreadyMade() throws Exception {
+        Path input = Files.write(directory.resolve("refunds.csv"),
+                "transaction_id,amount\nT1,1\nT2,2\nFAIL,3\nT4,4\nSLOW,5\n".getBytes(StandardCharsets.UTF_8));
+        Path journalDirectory = directory.resolve("journal");
+        AtomicInteger failures = new AtomicInteger(1);
+        List<String> sent = Collections.synchronizedList(new ArrayList<>());
+        RefundSender sender = request -> {
+            sent.add(request.getTransactionId());
+            CompletableFuture<String> refund = new CompletableFuture<>();
+            if (request.getTransactionId().equals("FAIL") && failures.getAndDecrement() > 0) {
+                refund.completeExceptionally(new RequestRejectedException("Declined"));
+            } else if (request.getTransactionId().equals("SLOW")) {
+                // may have been refunded after all
+                refund.completeExceptionally(new ClientException("Timed out"));
+            } else {
+                refund.complete("R-" + request.getTransactionId());
+            }
+            return refund;
+        };
+
+        // a run that died after T2 went out without its outcome being recorded
+        RefundJournal journal = RefundJournal.open(journalDirectory, 1024 * 1024);
+        journal.recordSubmitted("store1:T2", "2.00 USD").get(5, TimeUnit.SECONDS);
+        journal.close();
+
+        processor = new BatchRefundProcessor(sender, 2, 1000, 10, journalDirectory, 1024 * 1024);
+        BatchRefundProcessor.Progress first = processor.process(input, directory.resolve("first.csv"),
+                newValidator(), ignoreProgress()).get(10, TimeUnit.SECONDS);
+        assertEquals(2, first.getRefunded());
+        assertEquals(2, first.getFailed());
+        assertEquals(1, first.getSkipped());
+
+        sent.clear();
+        BatchRefundProcessor.Progress second = processor.process(input, directory.resolve("second.csv"),
+                newValidator(), ignoreProgress()).get(10, TimeUnit.SECONDS);
+        assertEquals(Collections.singletonList("FAIL"), sent);
+        assertEquals(1, second.getRefunded());
+        assertEquals(4, second.getSkipped());
+    }
+
+    @Test
+    public void testLimitsRefundsInFlight() throws Exception {
+        StringBuilder csv = new StringBuilder("transaction_id,amount\n");
+        for (int i = 0; i < 40; i++) {
+            csv.append("T").append(i).append(",1\n");
+        }
+        Path input = Files.write(directory.resolve("refunds.csv"), csv.toString().getBytes(StandardCharsets.UTF_8));
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger maxInFlight = new AtomicInteger();
+
+        processor = new BatchRefundProcessor(request -> {
+            maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            CompletableFuture<String> refund = new CompletableFuture<>();
+            sdk.schedule(() -> {
+                inFlight.decrementAndGet();
+                refund.complete("R");
+            }, 10, TimeUnit.MILLISECONDS);
+            return refund;
+        }, 3, 1000, 100);
+
+        BatchRefundProcessor.Progress progress = processor.process(input, directory.resolve("results.csv"),
+                newValidator(), ignoreProgress()).get(10, TimeUnit.SECONDS);
+
+        assertEquals(40, progress.getRefunded());
+        assertEquals(3, maxInFlight.get());
+    }
+
+    @Test
+    public void testCancelStopsReading() throws Exception {
+        StringBuilder csv = new StringBuilder("transaction_id,amount\n");
+        for (int i = 0; i < 1000; i++) {
+            csv.append("T").append(i).append(",1\n");
+        }
+        Path input = Files.write(directory.resolve("refunds.csv"), csv.toString().getBytes(StandardCharsets.UTF_8));
+
+        processor = new BatchRefundProcessor(request -> {
+            CompletableFuture<String> refund = new CompletableFuture<>();
+            sdk.schedule(() -> refund.complete("R"), 10, TimeUnit.MILLISECONDS);
+            return refund;
+        }, 2, 1000, 100);
+
+        CompletableFuture<BatchRefundProcessor.Progress> finished = processor.process(input,
+                directory.resolve("results.csv"), newValidator(), ignoreProgress());
+        Thread.sleep(50);
+        processor.cancel();
+        BatchRefundProcessor.Progress progress = finished.get(10, TimeUnit.SECONDS);
+
+        assertTrue(progress.getRead() < 1000);
+        assertEquals(progress.getRead(), progress.getRefunded());
+        assertEquals(0, progress.getInFlight());
+        assertTrue(progress.getError().startsWith("Canceled"));
+    }
+
+    @Test
+    public void testCancelDoesNotCarryOverToTheNextFile() throws Exception {
+        StringBuilder csv = new StringBuilder("transaction_id,amount\n");
+        for (int i = 0; i < 1000; i++) {
+            csv.append("T").append(i).append(",1\n");
+        }
+        Path first = Files.write(directory.resolve("first.csv"), csv.toString().getBytes(StandardCharsets.UTF_8));
+        Path second = Files.write(directory.resolve("second.csv"),
+                "transaction_id,amount\nT1,1\nT2,2\n".getBytes(StandardCharsets.UTF_8));
+
+        processor = new BatchRefundProcessor(request -> {
+            CompletableFuture<String> refund = new CompletableFuture<>();
+            sdk.schedule(() -> refund.complete("R"), 10, TimeUnit.MILLISECONDS);
+            return refund;
+        }, 2, 1000, 100);
+
+        CompletableFuture<BatchRefundProcessor.Progress> firstFinished = processor.process(first,
+                directory.resolve("first.results.csv"), newValidator(), ignoreProgress());
+        Thread.sleep(50);
+        processor.cancel();
+        // queued behind the canceled file; it must neither undo the cancel nor inherit it
+        CompletableFuture<BatchRefundProcessor.Progress> secondFinished = processor.process(second,
+                directory.resolve("second.results.csv"), newValidator(), ignoreProgress());
+
+        assertTrue(firstFinished.get(10, TimeUnit.SECONDS).getRead() < 1000);
+        BatchRefundProcessor.Progress progress = secondFinished.get(10, TimeUnit.SECONDS);
+        assertEquals(2, progress.getRefunded());
+        assertNull(progress.getError());
+    }
+}
@@ -0,0 +1,107 @@
+package com.paypal.merchant.retail.tools.refund;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class RefundFileReaderTest {
+    private Path directory;
+
+    @Before
+    public void setUp() throws Exception {
+        directory = Files.createTempDirectory("refund-reader");
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        FileUtils.deleteQuietly(directory.toFile());
+    }
+
+    private Path write(String name, String content) throws IOException {
+        return Files.write(directory.resolve(name), content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void testReadsCsvWithQuotedValues() throws Exception {
+        Path file = write("refunds.csv", "Store ID,Transaction-ID,amount,reason\n" +
+                "store1,T1,10.00,\"damaged, returned\"\n" +
+                "\n" +
+                "store2,T2,5,\"said \"\"no\"\"\nat the till\"\n" +
+                "store3,T3,1,x,extra\n");
+
+        try (RefundFileReader reader = RefundFileReader.open(file)) {
+            RefundRow first = reader.next();
+            assertEquals(2, first.getLineNumber());
+            assertEquals("store1", first.get("store_id"));
+            assertEquals("T1", first.get("transaction_id"));
+            assertEquals("damaged, returned", first.get("reason"));
+            assertNull(first.getError());
+
+            RefundRow second = reader.next();
+            assertEquals(4, second.getLineNumber());
+            assertEquals("said \"no\"\nat the till", second.get("reason"));
+
+            RefundRow third = reader.next();
+            assertEquals(6, third.getLineNumber());
+            assertNotNull(third.getError());
+
+            assertNull(reader.next());
+            assertEquals(Files.size(file), reader.getBytesRead());
+        }
+    }
+
+    @Test
+    public void testReadsJsonArrayAndLines() throws Exception {
+        Path array = write("refunds.json", "[\n" +
+                "  {\"store_id\": \"store1\", \"transaction_id\": \"T1\", \"amount\": 10.25, \"reason\": \"a \\\"b\\\" \\u0063\"},\n" +
+                "  {\"transaction_id\": \"T2\", \"amount\": 3, \"items\": [{\"sku\": \"}\"}], \"currency\": null}\n" +
+                "]\n");
+        try (RefundFileReader reader = RefundFileReader.open(array)) {
+            RefundRow first = reader.next();
+            assertEquals(2, first.getLineNumber());
+            assertEquals("10.25", first.get("amount"));
+            assertEquals("a \"b\" c", first.get("reason"));
+
+            RefundRow second = reader.next();
+            assertEquals(3, second.getLineNumber());
+            assertEquals("T2", second.get("transaction_id"));
+            assertNull(second.get("currency"));
+            assertTrue(second.getError().contains("items"));
+
+            assertNull(reader.next());
+        }
+
+        Path lines = write("refunds.jsonl", "{\"transaction_id\": \"T1\"}\n{\"transaction_id\": \"T2\"}\n");
+        try (RefundFileReader reader = RefundFileReader.open(lines)) {
+            assertEquals("T1", reader.next().get("transaction_id"));
+            assertEquals("T2", reader.next().get("transaction_id"));
+            assertNull(reader.next());
+        }
+    }
+
+    @Test
+    public void testMalformedJsonStopsTheFile() throws Exception {
+        Path file = write("refunds.json", "{\"transaction_id\": \"T1\"}\n{\"transaction_id\" \"T2\"}\n");
+        try (RefundFileReader reader = RefundFileReader.open(file)) {
+            assertEquals("T1", reader.next().get("transaction_id"));
+            try {
+                reader.next();
+                fail("Expected an IOException");
+            } catch (IOException e) {
+                assertTrue(e.getMessage().startsWith("Line 2"));
+            }
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package com.paypal.merchant.retail.tools.refund;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class RefundJournalTest {
+    private Path directory;
+    private RefundJournal journal;
+
+    @Before
+    public void setUp() throws Exception {
+        directory = Files.createTempDirectory("refund-journal");
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        if (journal != null) {
+            journal.close();
+        }
+        FileUtils.deleteQuietly(directory.toFile());
+    }
+
+    private List<Path> segments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.sorted().collect(Collectors.toList());
+        }
+    }
+
+    @Test
+    public void testReplaysStatesAfterReopen() throws Exception {
+        journal = RefundJournal.open(directory, 1024 * 1024);
+        journal.recordSubmitted("store1:T1", "1.00 USD").get(5, TimeUnit.SECONDS);
+        journal.recordOutcome("store1:T1", true, "R1");
+        journal.recordSubmitted("store1:T2", "2.00 USD").get(5, TimeUnit.SECONDS);
+        journal.recordOutcome("store1:T2", false, null);
+        journal.recordSubmitted("store1:T3", "3.00 USD").get(5, TimeUnit.SECONDS);
+        assertEquals(RefundJournal.State.REFUNDED, journal.getState("store1:T1"));
+        journal.close();
+
+        journal = RefundJournal.open(directory, 1024 * 1024);
+        assertEquals(3, journal.size());
+        assertEquals(RefundJournal.State.REFUNDED, journal.getState("store1:T1"));
+        assertEquals(RefundJournal.State.FAILED, journal.getState("store1:T2"));
+        assertEquals(RefundJournal.State.SUBMITTED, journal.getState("store1:T3"));
+        assertNull(journal.getState("store1:T4"));
+    }
+
+    @Test
+    public void testCutsOffTornRecord() throws Exception {
+        journal = RefundJournal.open(directory, 1024 * 1024);
+        journal.recordSubmitted("store1:T1", "1.00 USD").get(5, TimeUnit.SECONDS);
+        journal.close();
+        Path segment = segments().get(0);
+        long length = Files.size(segment);
+        Files.write(segment, "S\tstore1:T2\t2.0".getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+
+        journal = RefundJournal.open(directory, 1024 * 1024);
+        assertEquals(length, Files.size(segment));
+        assertNull(journal.getState("store1:T2"));
+        journal.recordSubmitted("store1:T2", "2.00 USD").get(5, TimeUnit.SECONDS);
+        journal.close();
+
+        journal = RefundJournal.open(directory, 1024 * 1024);
+        assertEquals(RefundJournal.State.SUBMITTED, journal.getState("store1:T1"));
+        assertEquals(RefundJournal.State.SUBMITTED, journal.getState("store1:T2"));
+    }
+
+    @Test
+    public void testRollsSegmentsAndSharesFsyncs() throws Exception {
+        journal = RefundJournal.open(directory, 4096);
+        List<CompletableFuture<Void>> submitted = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            submitted.add(journal.recordSubmitted("store1:T" + i, "1.00 USD"));
+            if (i > 0) {
+                journal.recordOutcome("store1:T" + (i - 1), true, "R" + i);
+            }
+        }
+        CompletableFuture.allOf(submitted.toArray(new CompletableFuture[0])).get(30, TimeUnit.SECONDS);
+        journal.close();
+        assertTrue(segments().size() > 10);
+
+        journal = RefundJournal.open(directory, 4096);
+        assertEquals(2000, journal.size());
+        assertEquals(RefundJournal.State.REFUNDED, journal.getState("store1:T1998"));
+        assertEquals(RefundJournal.State.SUBMITTED, journal.getState("store1:T1999"));
+    }
+
+    @Test
+    public void testOutcomeRecordedFromASubmissionSurvivesASegmentRoll() throws Exception {
+        journal = RefundJournal.open(directory, 256);
+        List<CompletableFuture<Void>> outcomes = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            String key = "store1:T" + i;
+            // like a refund that fails as soon as it is sent
+            outcomes.add(journal.recordSubmitted(key, "1.00 USD")
+                    .thenRun(() -> journal.recordOutcome(key, false, null)));
+        }
+        CompletableFuture.allOf(outcomes.toArray(new CompletableFuture[0])).get(30, TimeUnit.SECONDS);
+        journal.recordSubmitted("store1:T200", "1.00 USD").get(5, TimeUnit.SECONDS);
+        journal.close();
+        assertTrue(segments().size() > 10);
+
+        journal = RefundJournal.open(directory, 256);
+        assertEquals(201, journal.size());
+        assertEquals(RefundJournal.State.FAILED, journal.getState("store1:T199"));
+        assertEquals(RefundJournal.State.SUBMITTED, journal.getState("store1:T200"));
+    }
+
+    @Test
+    public void testIndexGrowsPastItsInitialSize() throws Exception {
+        FingerprintIndex index = new FingerprintIndex(16);
+        for (long i = 1; i <= 100000; i++) {
+            index.put(i * 0x9E3779B97F4A7C15L, (byte) (i % 3 + 1));
+        }
+        assertEquals(100000, index.size());
+        for (long i = 1; i <= 100000; i++) {
+            assertEquals((byte) (i % 3 + 1), index.get(i * 0x9E3779B97F4A7C15L));
+        }
+        assertEquals(0, index.get(42));
+    }
+}
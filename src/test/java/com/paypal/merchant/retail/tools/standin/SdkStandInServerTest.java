@@ -0,0 +1,120 @@
+package com.paypal.merchant.retail.tools.standin;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class SdkStandInServerTest {
+    private SdkStandInServer server;
+
+    @After
+    public void tearDown() throws Exception {
+        if (server != null) {
+            server.close();
+        }
+    }
+
+    private SdkStandInServer start(double errorRate) throws Exception {
+        server = new SdkStandInServer(5, LatencyDistribution.parse("fixed:0"), errorRate, 0, 1000);
+        server.start(0);
+        return server;
+    }
+
+    private HttpURLConnection request(String method, String path, String body) throws Exception {
+        HttpURLConnection connection = (HttpURLConnection) new URL("http://127.0.0.1:" + server.getPort() + path).openConnection();
+        connection.setRequestMethod(method);
+        connection.setReadTimeout(5000);
+        if (body != null) {
+            connection.setDoOutput(true);
+            try (OutputStream out = connection.getOutputStream()) {
+                out.write(body.getBytes(StandardCharsets.UTF_8));
+            }
+        }
+        return connection;
+    }
+
+    private static String read(HttpURLConnection connection) throws Exception {
+        try (InputStream in = connection.getResponseCode() < 400 ? connection.getInputStream() : connection.getErrorStream()) {
+            return new String(IOUtils.toByteArray(in), StandardCharsets.UTF_8);
+        }
+    }
+
+    @Test
+    public void testGetAndSetLocation() throws Exception {
+        start(0);
+        String locationId = "LOC" + server.getStoreIds().get(2);
+
+        HttpURLConnection get = request("GET", "/here/locations/" + locationId, null);
+        assertEquals(200, get.getResponseCode());
+        String location = read(get);
+        assertTrue(location.contains("\"id\":\"" + locationId + "\""));
+        assertTrue(location.contains("\"availability\":\"closed\""));
+
+        HttpURLConnection put = request("PUT", "/here/locations/" + locationId, "{\"availability\":\"open\"}");
+        assertEquals(200, put.getResponseCode());
+        assertTrue(read(put).contains("\"availability\":\"open\""));
+
+        assertEquals(404, request("GET", "/here/locations/UNKNOWN", null).getResponseCode());
+        assertTrue(read(request("POST", "/openid/tokenservice", "grant_type=refresh_token")).contains("\"token_type\":\"Bearer\""));
+        assertEquals(4, server.getRequestCount());
+    }
+
+    @Test
+    public void testErrorRate() throws Exception {
+        start(1.0);
+        assertEquals(500, request("GET", "/here/locations/LOC" + server.getStoreIds().get(0), null).getResponseCode());
+        assertEquals(1, server.getErrorCount());
+    }
+
+    @Test
+    public void testWriteConfig() throws Exception {
+        start(0);
+        File config = File.createTempFile("standin", "Config.xml");
+        try {
+            server.writeConfig(config.toPath());
+            String xml = new String(Files.readAllBytes(config.toPath()), StandardCharsets.UTF_8);
+            assertEquals(5, xml.split("<Store id=").length - 1);
+            assertTrue(xml.contains("<uri>http://127.0.0.1:" + server.getPort() + "/here/</uri>"));
+            assertTrue(xml.contains("<locationId>LOC" + server.getStoreIds().get(0) + "</locationId>"));
+        } finally {
+            config.delete();
+        }
+    }
+
+    @Test
+    public void testLatencyDistributions() throws Exception {
+        Random random = new Random(1);
+        assertEquals(50, LatencyDistribution.parse("fixed:50").nextMillis(random));
+        for (int i = 0; i < 1000; i++) {
+            long uniform = LatencyDistribution.parse("uniform:20:200").nextMillis(random);
+            assertTrue(uniform >= 20 && uniform <= 200);
+        }
+
+        LatencyDistribution lognormal = LatencyDistribution.parse("lognormal:80:1500");
+        long[] samples = new long[10000];
+        for (int i = 0; i < samples.length; i++) {
+            samples[i] = lognormal.nextMillis(random);
+        }
+        Arrays.sort(samples);
+        assertEquals(80, samples[5000], 10);
+        assertEquals(1500, samples[9900], 300);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidLatencyDistribution() {
+        LatencyDistribution.parse("normal:5");
+    }
+}
@@ -0,0 +1,168 @@
+package com.paypal.merchant.retail.tools.util;
+
+import org.apache.log4j.AppenderSkeleton;
+import org.apache.log4j.Level;
+import org.apache.log4j.Logger;
+import org.apache.log4j.spi.LoggingEvent;
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class AsyncRingBufferAppenderTest {
+    private final RecordingAppender target = new RecordingAppender();
+    private AsyncRingBufferAppender appender;
+
+    @After
+    public void tearDown() throws Exception {
+        target.release.countDown();
+        appender.close();
+    }
+
+    @Test
+    public void testEventsAreWrittenInOrderOnTheWriterThread() throws Exception {
+        appender = newAppender(256);
+        final String[] renderedOn = new String[1];
+        Object payload = new Object() {
+            @Override
+            public String toString() {
+                renderedOn[0] = Thread.currentThread().getName();
+                return "payload";
+            }
+        };
+
+        for (int i = 0; i < 100; i++) {
+            appender.doAppend(event(Level.INFO, "event " + i));
+        }
+        appender.doAppend(event(Level.DEBUG, payload));
+        appender.close();
+
+        assertEquals(101, target.messages.size());
+        for (int i = 0; i < 100; i++) {
+            assertEquals("event " + i, target.messages.get(i));
+        }
+        assertEquals("payload", target.messages.get(100));
+        assertFalse(Thread.currentThread().getName().equals(renderedOn[0]));
+    }
+
+    @Test
+    public void testFullBufferDropsDebugButKeepsWarnings() throws Exception {
+        appender = newAppender(4);
+        target.release = new CountDownLatch(1);
+
+        for (int i = 0; i < 50; i++) {
+            appender.doAppend(event(Level.DEBUG, "debug " + i));
+        }
+        assertTrue(appender.getDroppedCount() > 0);
+
+        Thread warnings = new Thread(() -> {
+            for (int i = 0; i < 10; i++) {
+                appender.doAppend(event(Level.WARN, "warn " + i));
+            }
+        });
+        warnings.start();
+        Thread.sleep(50);
+        target.release.countDown();
+        warnings.join(TimeUnit.SECONDS.toMillis(5));
+        appender.close();
+
+        for (int i = 0; i < 10; i++) {
+            assertTrue(target.messages.contains("warn " + i));
+        }
+        assertTrue(target.messages.stream().anyMatch(message -> message.contains("were dropped")));
+    }
+
+    @Test
+    public void testWarningWaitingForSpaceDoesNotBlockOtherThreads() throws Exception {
+        appender = newAppender(4);
+        target.release = new CountDownLatch(1);
+        // the writer takes the first event and waits on the target, so the next ones fill the buffer
+        appender.doAppend(event(Level.DEBUG, "first"));
+        long deadline = System.currentTimeMillis() + 5000;
+        while (appender.getPendingCount() > 0 && System.currentTimeMillis() < deadline) {
+            Thread.yield();
+        }
+        for (int i = 0; i < 10; i++) {
+            appender.doAppend(event(Level.DEBUG, "debug " + i));
+        }
+
+        Thread warning = new Thread(() -> appender.doAppend(event(Level.WARN, "warn")));
+        warning.start();
+        deadline = System.currentTimeMillis() + 5000;
+        while (warning.getState() != Thread.State.TIMED_WAITING && System.currentTimeMillis() < deadline) {
+            Thread.yield();
+        }
+        Thread debug = new Thread(() -> appender.doAppend(event(Level.DEBUG, "debug")));
+        debug.start();
+        debug.join(TimeUnit.SECONDS.toMillis(5));
+        assertFalse(debug.isAlive());
+        assertTrue(warning.isAlive());
+
+        target.release.countDown();
+        warning.join(TimeUnit.SECONDS.toMillis(5));
+        appender.close();
+        assertTrue(target.messages.contains("warn"));
+    }
+
+    @Test
+    public void testPendingEventsAreWrittenOnClose() throws Exception {
+        appender = newAppender(1024);
+        target.release = new CountDownLatch(1);
+        for (int i = 0; i < 500; i++) {
+            appender.doAppend(event(Level.INFO, "event " + i));
+        }
+        target.release.countDown();
+        appender.close();
+
+        assertEquals(500, target.messages.size());
+        assertEquals(0, appender.getPendingCount());
+        assertTrue(target.wasClosed);
+    }
+
+    private AsyncRingBufferAppender newAppender(int bufferSize) {
+        AsyncRingBufferAppender appender = new AsyncRingBufferAppender();
+        appender.setName("test");
+        appender.setBufferSize(bufferSize);
+        appender.addAppender(target);
+        appender.activateOptions();
+        return appender;
+    }
+
+    private static LoggingEvent event(Level level, Object message) {
+        return new LoggingEvent(AsyncRingBufferAppenderTest.class.getName(),
+                Logger.getLogger(AsyncRingBufferAppenderTest.class), level, message, null);
+    }
+
+    private static class RecordingAppender extends AppenderSkeleton {
+        private final List<String> messages = new CopyOnWriteArrayList<>();
+        private volatile CountDownLatch release = new CountDownLatch(0);
+        private volatile boolean wasClosed;
+
+        @Override
+        protected void append(LoggingEvent event) {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            messages.add(event.getRenderedMessage());
+        }
+
+        @Override
+        public void close() {
+            wasClosed = true;
+        }
+
+        @Override
+        public boolean requiresLayout() {
+            return false;
+        }
+    }
+}
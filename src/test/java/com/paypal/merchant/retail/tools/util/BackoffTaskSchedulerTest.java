@@ -0,0 +1,75 @@
+package com.paypal.merchant.retail.tools.util;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class BackoffTaskSchedulerTest {
+    private BackoffTaskScheduler scheduler;
+    private volatile int counter = 0;
+
+    @After
+    public void tearDown() throws Exception {
+        scheduler.stop();
+    }
+
+    @Test
+    public void testStopsAfterMaxRetries() throws Exception {
+        scheduler = new BackoffTaskScheduler(() -> counter++, 0, new FixedRetryPolicy(1, 3), TimeUnit.MILLISECONDS);
+        scheduler.start();
+
+        Thread.sleep(100);
+        assertEquals(4, counter);
+        assertEquals(0, scheduler.getDelayTime());
+    }
+
+    @Test
+    public void testStopFromTask() throws Exception {
+        scheduler = new BackoffTaskScheduler(() -> {
+            if (++counter == 2) {
+                scheduler.stop();
+            }
+        }, 0, new FixedRetryPolicy(1, 10), TimeUnit.MILLISECONDS);
+        scheduler.start();
+
+        Thread.sleep(100);
+        assertEquals(2, counter);
+    }
+
+    @Test
+    public void testGetDelayTimeReflectsNextAttempt() throws Exception {
+        scheduler = new BackoffTaskScheduler(() -> counter++, 0, new ExponentialRetryPolicy(10, 60, 5), TimeUnit.SECONDS);
+        scheduler.start();
+
+        Thread.sleep(100);
+        assertEquals(1, counter);
+        long delay = scheduler.getDelayTime();
+        assertTrue(delay > 8 && delay <= 10);
+    }
+
+    @Test
+    public void testRunNowSkipsTheDelay() throws Exception {
+        scheduler = new BackoffTaskScheduler(() -> counter++, 0, new FixedRetryPolicy(60, 5), TimeUnit.SECONDS);
+        scheduler.start();
+
+        Thread.sleep(100);
+        assertEquals(1, counter);
+        assertTrue(scheduler.isRunning());
+
+        scheduler.runNow();
+        Thread.sleep(100);
+        assertEquals(2, counter);
+        assertTrue(scheduler.getDelayTime() > 50);
+
+        scheduler.stop();
+        assertFalse(scheduler.isRunning());
+        scheduler.runNow();
+        Thread.sleep(100);
+        assertEquals(2, counter);
+    }
+}
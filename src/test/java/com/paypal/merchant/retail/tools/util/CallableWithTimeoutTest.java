@@ -1,7 +1,12 @@
 package com.paypal.merchant.retail.tools.util;
 
+import com.paypal.merchant.retail.tools.exception.ClientException;
 import junit.framework.TestCase;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
 public class CallableWithTimeoutTest extends TestCase {
 
     public void setUp() throws Exception {
@@ -14,6 +19,71 @@ public class CallableWithTimeoutTest extends TestCase {
     }
 
     public void testCall() throws Exception {
+        CallableWithTimeout<String> callable = new CallableWithTimeout<>(() -> "done", 1, TimeUnit.SECONDS);
+        assertEquals("done", callable.call());
+    }
+
+    public void testCallTimesOut() throws Exception {
+        long timedOut = TimeoutExecutor.INSTANCE.getTimedOutCount();
+        CallableWithTimeout<String> callable = new CallableWithTimeout<>(() -> {
+            Thread.sleep(1000);
+            return "done";
+        }, 10, TimeUnit.MILLISECONDS);
+
+        try {
+            callable.call();
+            fail("Expected a ClientException");
+        } catch (ClientException e) {
+            assertTrue(e.getMessage().startsWith("Timed out"));
+        }
+        assertEquals(timedOut + 1, TimeoutExecutor.INSTANCE.getTimedOutCount());
+    }
+
+    public void testCallRethrowsClientException() throws Exception {
+        CallableWithTimeout<String> callable = new CallableWithTimeout<>(() -> {
+            throw new ClientException("SDK error");
+        }, 1, TimeUnit.SECONDS);
+
+        try {
+            callable.call();
+            fail("Expected a ClientException");
+        } catch (ClientException e) {
+            assertEquals("SDK error", e.getMessage());
+        }
+    }
+
+    public void testAbandonedCallIsCounted() throws Exception {
+        int abandoned = TimeoutExecutor.INSTANCE.getAbandonedCount();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch returned = new CountDownLatch(1);
+        CompletableFuture<String> future = TimeoutExecutor.INSTANCE.submit(() -> {
+            started.countDown();
+            // ignores interrupts like a blocking SDK call would
+            while (true) {
+                try {
+                    release.await();
+                    break;
+                } catch (InterruptedException ignored) {
+                    // keep waiting
+                }
+            }
+            returned.countDown();
+            return "done";
+        }, 1, TimeUnit.MINUTES);
+
+        // stopped only once it runs; a callable stopped while still queued is dropped, not abandoned
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        future.cancel(true);
+        assertEquals(abandoned + 1, TimeoutExecutor.INSTANCE.getAbandonedCount());
 
+        release.countDown();
+        assertTrue(returned.await(5, TimeUnit.SECONDS));
+        // the count drops just after the callable returns, on the executor thread
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (TimeoutExecutor.INSTANCE.getAbandonedCount() != abandoned && System.nanoTime() < deadline) {
+            Thread.yield();
+        }
+        assertEquals(abandoned, TimeoutExecutor.INSTANCE.getAbandonedCount());
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,110 @@
+package com.paypal.merchant.retail.tools.util;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class CoalescingQueueTest {
+    private final CoalescingQueue queue = new CoalescingQueue();
+    private final List<String> ran = new ArrayList<>();
+
+    @Test
+    public void testTasksWithoutKeyAllRunInOrder() throws Exception {
+        queue.add(() -> ran.add("a"));
+        queue.add(() -> ran.add("b"));
+        queue.add(() -> ran.add("c"));
+
+        assertEquals(3, queue.runAll());
+        assertEquals(Arrays.asList("a", "b", "c"), ran);
+        assertTrue(queue.isEmpty());
+    }
+
+    @Test
+    public void testOnlyLatestTaskPerKeyRuns() throws Exception {
+        queue.add("progress", () -> ran.add("progress 1"));
+        queue.add(() -> ran.add("log"));
+        queue.add("progress", () -> ran.add("progress 2"));
+        queue.add("store", () -> ran.add("store"));
+        queue.add("progress", () -> ran.add("progress 3"));
+
+        assertEquals(3, queue.runAll());
+        assertEquals(Arrays.asList("log", "store", "progress 3"), ran);
+        assertEquals(2, queue.getCoalescedCount());
+    }
+
+    @Test
+    public void testNullKeyIsNeverReplaced() throws Exception {
+        queue.add(null, () -> ran.add("a"));
+        queue.add(null, () -> ran.add("b"));
+
+        assertEquals(2, queue.runAll());
+        assertEquals(Arrays.asList("a", "b"), ran);
+        assertEquals(0, queue.getCoalescedCount());
+    }
+
+    @Test
+    public void testTasksAddedWhileRunningWaitForTheNextRun() throws Exception {
+        queue.add("key", () -> {
+            ran.add("first");
+            queue.add("key", () -> ran.add("second"));
+        });
+
+        assertEquals(1, queue.runAll());
+        assertEquals(Arrays.asList("first"), ran);
+        assertEquals(1, queue.runAll());
+        assertEquals(Arrays.asList("first", "second"), ran);
+    }
+
+    @Test
+    public void testFailingTaskDoesNotStopTheOthers() throws Exception {
+        queue.add(() -> {
+            throw new IllegalStateException("expected");
+        });
+        queue.add(() -> ran.add("after"));
+
+        assertEquals(2, queue.runAll());
+        assertEquals(Arrays.asList("after"), ran);
+    }
+
+    @Test
+    public void testConcurrentProducers() throws Exception {
+        AtomicInteger unkeyed = new AtomicInteger();
+        int[] latest = new int[4];
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> producers = new ArrayList<>();
+        for (int p = 0; p < 4; p++) {
+            final int producer = p;
+            Thread thread = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int i = 1; i <= 10000; i++) {
+                    final int value = i;
+                    queue.add(unkeyed::incrementAndGet);
+                    queue.add(producer, () -> latest[producer] = value);
+                }
+            });
+            thread.start();
+            producers.add(thread);
+        }
+        start.countDown();
+        while (producers.stream().anyMatch(Thread::isAlive)) {
+            queue.runAll();
+        }
+        queue.runAll();
+
+        assertEquals(40000, unkeyed.get());
+        for (int p = 0; p < 4; p++) {
+            assertEquals(10000, latest[p]);
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.paypal.merchant.retail.tools.util;
+
+import com.paypal.merchant.retail.tools.exception.ConfigException;
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ConfigWatcherTest {
+    private Path directory;
+    private ConfigWatcher watcher;
+
+    @Before
+    public void setUp() throws Exception {
+        directory = Files.createTempDirectory("config-watcher");
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        if (watcher != null) {
+            watcher.close();
+        }
+        FileUtils.deleteQuietly(directory.toFile());
+    }
+
+    @Test
+    public void testReloadsChangedFile() throws Exception {
+        Path file = Files.write(directory.resolve("watched.xml"), "one".getBytes(StandardCharsets.UTF_8));
+        Path other = Files.write(directory.resolve("other.xml"), "one".getBytes(StandardCharsets.UTF_8));
+        CountDownLatch reloaded = new CountDownLatch(1);
+        AtomicInteger reloads = new AtomicInteger();
+
+        watcher = new ConfigWatcher(300);
+        watcher.watch(file, () -> {
+            reloads.incrementAndGet();
+            reloaded.countDown();
+        });
+        watcher.start();
+
+        Files.write(other, "two".getBytes(StandardCharsets.UTF_8));
+        Files.write(file, "two".getBytes(StandardCharsets.UTF_8));
+        Files.write(file, "three".getBytes(StandardCharsets.UTF_8));
+
+        // the polling WatchService on some platforms only checks every few seconds
+        assertTrue(reloaded.await(30, TimeUnit.SECONDS));
+        Thread.sleep(500);
+        assertEquals(1, reloads.get());
+    }
+
+    @Test
+    public void testFailedReloadDoesNotStopWatching() throws Exception {
+        Path file = Files.write(directory.resolve("watched.xml"), "one".getBytes(StandardCharsets.UTF_8));
+        CountDownLatch reloaded = new CountDownLatch(2);
+
+        watcher = new ConfigWatcher(0);
+        watcher.watch(file, () -> {
+            reloaded.countDown();
+            throw new ConfigException("invalid");
+        });
+        watcher.start();
+
+        Files.write(file, "two".getBytes(StandardCharsets.UTF_8));
+        Thread.sleep(1000);
+        Files.write(file, "three".getBytes(StandardCharsets.UTF_8));
+
+        assertTrue(reloaded.await(30, TimeUnit.SECONDS));
+    }
+}
@@ -0,0 +1,54 @@
+package com.paypal.merchant.retail.tools.util;
+
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+
+public class LatencyHistogramTest {
+
+    @Test
+    public void testPercentiles() throws Exception {
+        LatencyHistogram histogram = new LatencyHistogram(7);
+        for (int i = 1; i <= 1000; i++) {
+            histogram.record(i, TimeUnit.MILLISECONDS);
+        }
+
+        assertEquals(1000, histogram.getCount());
+        assertEquals(500, histogram.getPercentile(50, TimeUnit.MILLISECONDS), 500 * 0.02);
+        assertEquals(900, histogram.getPercentile(90, TimeUnit.MILLISECONDS), 900 * 0.02);
+        assertEquals(990, histogram.getPercentile(99, TimeUnit.MILLISECONDS), 990 * 0.02);
+        assertEquals(1000, histogram.getMax(TimeUnit.MILLISECONDS));
+        assertEquals(500.5, histogram.getMean(TimeUnit.MILLISECONDS), 0.001);
+    }
+
+    @Test
+    public void testSmallValuesAreExact() throws Exception {
+        LatencyHistogram histogram = new LatencyHistogram(7);
+        histogram.record(3, TimeUnit.MICROSECONDS);
+        histogram.record(100, TimeUnit.MICROSECONDS);
+
+        assertEquals(3, histogram.getPercentile(50, TimeUnit.MICROSECONDS));
+        assertEquals(100, histogram.getPercentile(100, TimeUnit.MICROSECONDS));
+    }
+
+    @Test
+    public void testValuesAboveRangeAreCounted() throws Exception {
+        LatencyHistogram histogram = new LatencyHistogram(4);
+        histogram.record(2, TimeUnit.HOURS);
+
+        assertEquals(1, histogram.getCount());
+        assertEquals(2, histogram.getMax(TimeUnit.HOURS));
+    }
+
+    @Test
+    public void testReset() throws Exception {
+        LatencyHistogram histogram = new LatencyHistogram(7);
+        histogram.record(5, TimeUnit.SECONDS);
+        histogram.reset();
+
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getPercentile(99, TimeUnit.MILLISECONDS));
+    }
+}
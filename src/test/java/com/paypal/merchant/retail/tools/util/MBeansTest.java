@@ -0,0 +1,61 @@
+package com.paypal.merchant.retail.tools.util;
+
+import org.junit.After;
+import org.junit.Test;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class MBeansTest {
+    private final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+    private BackoffTaskScheduler scheduler;
+
+    @After
+    public void tearDown() throws Exception {
+        if (scheduler != null) {
+            scheduler.stop();
+        }
+        MBeans.unregister("TaskScheduler", "test");
+    }
+
+    @Test
+    public void testSchedulerIsReadableAndSteerable() throws Exception {
+        scheduler = new BackoffTaskScheduler(() -> {}, 60, new FixedRetryPolicy(60, 5), TimeUnit.SECONDS);
+        MBeans.register("TaskScheduler", "test", scheduler, TaskSchedulerMXBean.class);
+        ObjectName name = MBeans.objectName("TaskScheduler", "test");
+        assertEquals(false, server.getAttribute(name, "Running"));
+
+        scheduler.start();
+        assertEquals(true, server.getAttribute(name, "Running"));
+        assertTrue((Long) server.getAttribute(name, "DelayTime") > 50);
+
+        server.invoke(name, "stop", new Object[0], new String[0]);
+        assertFalse(scheduler.isRunning());
+    }
+
+    @Test
+    public void testRegisterReplacesPreviousBean() throws Exception {
+        BackoffTaskScheduler first = new BackoffTaskScheduler(() -> {}, 0, new FixedRetryPolicy(60, 5), TimeUnit.SECONDS);
+        scheduler = new BackoffTaskScheduler(() -> {}, 60, new FixedRetryPolicy(60, 5), TimeUnit.SECONDS);
+        MBeans.register("TaskScheduler", "test", first, TaskSchedulerMXBean.class);
+        MBeans.register("TaskScheduler", "test", scheduler, TaskSchedulerMXBean.class);
+
+        scheduler.start();
+        assertEquals(true, server.getAttribute(MBeans.objectName("TaskScheduler", "test"), "Running"));
+    }
+
+    @Test
+    public void testSharedServicesAreRegistered() throws Exception {
+        SharedTimerService.INSTANCE.getPendingCount();
+        TimeoutExecutor.INSTANCE.getActiveCount();
+        assertTrue(server.isRegistered(MBeans.objectName("SharedTimerService", null)));
+        assertTrue(server.isRegistered(MBeans.objectName("TimeoutExecutor", null)));
+        assertTrue(server.getAttribute(MBeans.objectName("TimeoutExecutor", null), "PoolSize") instanceof Integer);
+    }
+}
@@ -15,7 +15,7 @@ public class OneTimeTaskSchedulerTest extends TestCase {
     public void setUp() throws Exception {
         counter = 0;
         final Runnable runnable = () -> counter++;
-        scheduler = new OneTimeTaskScheduler(runnable, 0, 1, TimeUnit.MILLISECONDS);
+        scheduler = new OneTimeTaskScheduler(runnable, 0, TimeUnit.MILLISECONDS);
     }
 
     @After
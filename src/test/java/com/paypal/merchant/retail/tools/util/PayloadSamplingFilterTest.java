@@ -0,0 +1,64 @@
+package com.paypal.merchant.retail.tools.util;
+
+import org.apache.log4j.Level;
+import org.apache.log4j.Logger;
+import org.apache.log4j.spi.Filter;
+import org.apache.log4j.spi.LoggingEvent;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class PayloadSamplingFilterTest {
+    private static final String GET_LOCATION = "com.paypal.merchant.retail.sdk.internal.commands.GetLocationCommandImpl";
+    private static final String SET_AVAILABILITY = "com.paypal.merchant.retail.sdk.internal.commands.SetLocationAvailabilityCommandImpl";
+
+    @Test
+    public void testSamplesPerCommandType() throws Exception {
+        PayloadSamplingFilter filter = new PayloadSamplingFilter();
+        filter.setSampleRate(3);
+
+        assertEquals(3, countKept(filter, GET_LOCATION, Level.DEBUG, 9));
+        assertEquals(2, countKept(filter, SET_AVAILABILITY, Level.DEBUG, 4));
+        assertEquals(6, filter.getSuppressedCount("GetLocationCommandImpl"));
+    }
+
+    @Test
+    public void testSamplesServiceClientPayloads() throws Exception {
+        PayloadSamplingFilter filter = new PayloadSamplingFilter();
+        filter.setSampleRate(5);
+
+        assertEquals(2, countKept(filter, "com.paypal.merchant.retail.sdk.internal.serviceclient.here.LocationProviderImpl",
+                Level.DEBUG, 10));
+        assertEquals(8, filter.getSuppressedCount("LocationProviderImpl"));
+    }
+
+    @Test
+    public void testRateLimitsPerCommandType() throws Exception {
+        PayloadSamplingFilter filter = new PayloadSamplingFilter();
+        filter.setMaxPerSecond(2);
+
+        assertEquals(2, countKept(filter, GET_LOCATION, Level.DEBUG, 10));
+        assertEquals(2, countKept(filter, SET_AVAILABILITY, Level.DEBUG, 10));
+    }
+
+    @Test
+    public void testWarningsAndOtherLoggersAlwaysPass() throws Exception {
+        PayloadSamplingFilter filter = new PayloadSamplingFilter();
+        filter.setSampleRate(100);
+        filter.setMaxPerSecond(1);
+
+        assertEquals(10, countKept(filter, GET_LOCATION, Level.ERROR, 10));
+        assertEquals(10, countKept(filter, "com.paypal.merchant.retail.tools.client.SdkClient", Level.DEBUG, 10));
+    }
+
+    private static int countKept(Filter filter, String loggerName, Level level, int count) {
+        int kept = 0;
+        for (int i = 0; i < count; i++) {
+            LoggingEvent event = new LoggingEvent(loggerName, Logger.getLogger(loggerName), level, "<payload/>", null);
+            if (filter.decide(event) != Filter.DENY) {
+                kept++;
+            }
+        }
+        return kept;
+    }
+}
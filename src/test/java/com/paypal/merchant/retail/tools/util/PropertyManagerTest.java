@@ -0,0 +1,114 @@
+package com.paypal.merchant.retail.tools.util;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.paypal.merchant.retail.tools.exception.ConfigException;
+
+import java.io.File;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Properties;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class PropertyManagerTest {
+
+    @Before
+    public void setUp() throws Exception {
+        Properties properties = new Properties();
+        properties.setProperty("test.string", "SanJose");
+        properties.setProperty("test.int", "20");
+        properties.setProperty("test.long", "3000000000");
+        properties.setProperty("test.double", "2.5");
+        properties.setProperty("test.boolean", "true");
+        properties.setProperty("test.blank", "  ");
+        PropertyManager.INSTANCE.loadCustomProperties(properties);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        PropertyManager.INSTANCE.loadProperties();
+    }
+
+    @Test
+    public void testTypedLookups() throws Exception {
+        assertEquals("SanJose", PropertyManager.INSTANCE.getProperty("test.string"));
+        assertEquals(20, PropertyManager.INSTANCE.getProperty("test.int", 1));
+        assertEquals(20L, PropertyManager.INSTANCE.getProperty("test.int", 1L));
+        assertEquals(3000000000L, PropertyManager.INSTANCE.getProperty("test.long", 1L));
+        assertEquals(2.5, PropertyManager.INSTANCE.getProperty("test.double", 1.0), 0.0);
+        assertEquals(new BigDecimal("2.5"), PropertyManager.INSTANCE.getProperty("test.double", BigDecimal.ONE));
+        assertTrue(PropertyManager.INSTANCE.getProperty("test.boolean", false));
+    }
+
+    @Test
+    public void testDefaults() throws Exception {
+        assertNull(PropertyManager.INSTANCE.getProperty("test.missing"));
+        assertEquals("default", PropertyManager.INSTANCE.getProperty("test.missing", "default"));
+        assertEquals(7, PropertyManager.INSTANCE.getProperty("test.missing", 7));
+        assertEquals(7, PropertyManager.INSTANCE.getProperty("test.string", 7));
+        assertEquals(7, PropertyManager.INSTANCE.getProperty("test.long", 7));
+        assertEquals(7L, PropertyManager.INSTANCE.getProperty("test.blank", 7L));
+        assertEquals(BigDecimal.TEN, PropertyManager.INSTANCE.getProperty("test.string", BigDecimal.TEN));
+        assertFalse(PropertyManager.INSTANCE.getProperty("test.blank", false));
+    }
+
+    @Test
+    public void testSetPropertyPublishesNewSnapshot() throws Exception {
+        PropertySnapshot before = PropertyManager.INSTANCE.getSnapshot();
+        PropertyManager.INSTANCE.setProperty("test.int", "30");
+
+        assertEquals(30, PropertyManager.INSTANCE.getProperty("test.int", 1));
+        assertEquals(20, before.getInt("test.int", 1));
+    }
+
+    @Test
+    public void testLoadedPropertiesAreCopied() throws Exception {
+        Properties properties = new Properties();
+        properties.setProperty("test.int", "1");
+        PropertyManager.INSTANCE.loadCustomProperties(properties);
+        properties.setProperty("test.int", "2");
+
+        assertEquals(1, PropertyManager.INSTANCE.getProperty("test.int", 0));
+    }
+
+    @Test
+    public void testReloadProperties() throws Exception {
+        File file = File.createTempFile("reload-test", ".properties");
+        String fileName = "reload-test.properties";
+        System.setProperty(fileName, file.getAbsolutePath());
+        try {
+            Files.write(file.toPath(), "test.int=1".getBytes(StandardCharsets.UTF_8));
+            PropertyManager.INSTANCE.loadCustomProperties(fileName);
+            assertEquals(file.toPath(), PropertyManager.INSTANCE.getPropertiesPath());
+
+            PropertyManager.INSTANCE.setProperty("test.set", "kept");
+            Files.write(file.toPath(), "test.int=2\ntest.set=file".getBytes(StandardCharsets.UTF_8));
+            PropertyManager.INSTANCE.reloadProperties();
+            assertEquals(2, PropertyManager.INSTANCE.getProperty("test.int", 0));
+            assertEquals("kept", PropertyManager.INSTANCE.getProperty("test.set"));
+
+            Files.write(file.toPath(), new byte[0]);
+            try {
+                PropertyManager.INSTANCE.reloadProperties();
+                fail("An empty file should be rejected");
+            } catch (ConfigException e) {
+                assertEquals(2, PropertyManager.INSTANCE.getProperty("test.int", 0));
+            }
+
+            Files.write(file.toPath(), "test.set=file".getBytes(StandardCharsets.UTF_8));
+            PropertyManager.INSTANCE.loadCustomProperties(fileName);
+            assertEquals("file", PropertyManager.INSTANCE.getProperty("test.set"));
+        } finally {
+            System.clearProperty(fileName);
+            file.delete();
+        }
+    }
+}
@@ -16,7 +16,7 @@ public class RepeatingTaskSchedulerTest {
     public void setUp() throws Exception {
         counter = 0;
         final Runnable runnable = () -> counter++;
-        scheduler = new RepeatingTaskScheduler(runnable, 0, 1, 1, TimeUnit.MILLISECONDS);
+        scheduler = new RepeatingTaskScheduler(runnable, 0, 1, TimeUnit.MILLISECONDS);
     }
 
     @After
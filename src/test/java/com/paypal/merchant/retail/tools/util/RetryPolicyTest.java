@@ -0,0 +1,84 @@
+package com.paypal.merchant.retail.tools.util;
+
+import org.junit.Test;
+
+import java.util.Properties;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class RetryPolicyTest {
+
+    @Test
+    public void testFixed() throws Exception {
+        RetryPolicy policy = new FixedRetryPolicy(15, 3);
+        assertEquals(15, policy.getDelay(1, 0));
+        assertEquals(15, policy.getDelay(3, 15));
+        assertEquals(3, policy.getMaxRetries());
+    }
+
+    @Test
+    public void testExponential() throws Exception {
+        RetryPolicy policy = new ExponentialRetryPolicy(2, 20, 10);
+        assertEquals(2, policy.getDelay(1, 0));
+        assertEquals(4, policy.getDelay(2, 2));
+        assertEquals(8, policy.getDelay(3, 4));
+        assertEquals(16, policy.getDelay(4, 8));
+        assertEquals(20, policy.getDelay(5, 16));
+        assertEquals(20, policy.getDelay(100, 20));
+    }
+
+    @Test
+    public void testDecorrelatedJitterStaysInRange() throws Exception {
+        RetryPolicy policy = new DecorrelatedJitterRetryPolicy(2, 60, 10);
+        long previous = 0;
+        for (int retry = 1; retry <= 1000; retry++) {
+            long delay = policy.getDelay(retry, previous);
+            assertTrue(delay >= 2);
+            assertTrue(delay <= 60);
+            assertTrue(delay <= Math.max(2, previous) * 3);
+            previous = delay;
+        }
+    }
+
+    @Test
+    public void testForCommand() throws Exception {
+        Properties properties = new Properties();
+        properties.setProperty("sdk.service.retry.policy", "exponential");
+        properties.setProperty("sdk.service.retry.interval.seconds", "5");
+        properties.setProperty("sdk.service.retry.max.attempts", "4");
+        properties.setProperty("sdk.service.retry.GetLocation.policy", "fixed");
+        properties.setProperty("sdk.service.retry.GetLocation.max.attempts", "1");
+        PropertyManager.INSTANCE.loadCustomProperties(properties);
+        try {
+            RetryPolicy setPolicy = RetryPolicy.forCommand("SetLocationAvailability");
+            assertTrue(setPolicy instanceof ExponentialRetryPolicy);
+            assertEquals(10, setPolicy.getDelay(2, 5));
+            assertEquals(4, setPolicy.getMaxRetries());
+
+            RetryPolicy getPolicy = RetryPolicy.forCommand("GetLocation");
+            assertTrue(getPolicy instanceof FixedRetryPolicy);
+            assertEquals(5, getPolicy.getDelay(2, 5));
+            assertEquals(1, getPolicy.getMaxRetries());
+        } finally {
+            PropertyManager.INSTANCE.loadProperties();
+        }
+    }
+
+    @Test
+    public void testUnknownPolicyFallsBackToFixed() throws Exception {
+        Properties properties = new Properties();
+        properties.setProperty("sdk.service.retry.policy", "exponentail");
+        properties.setProperty("sdk.service.retry.interval.seconds", "7");
+        properties.setProperty("sdk.service.retry.max.attempts", "2");
+        PropertyManager.INSTANCE.loadCustomProperties(properties);
+        try {
+            RetryPolicy policy = RetryPolicy.forCommand("SetLocationAvailability");
+            assertTrue(policy instanceof FixedRetryPolicy);
+            assertEquals(7, policy.getDelay(3, 7));
+            assertEquals(2, policy.getMaxRetries());
+        } finally {
+            PropertyManager.INSTANCE.loadProperties();
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.paypal.merchant.retail.tools.util;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class RingBufferTest {
+
+    @Test
+    public void testKeepsElementsInOrderUntilFull() throws Exception {
+        RingBuffer<String> buffer = new RingBuffer<>(3);
+        assertNull(buffer.add("a"));
+        assertNull(buffer.add("b"));
+        assertFalse(buffer.isFull());
+        assertNull(buffer.add("c"));
+
+        assertTrue(buffer.isFull());
+        assertEquals(3, buffer.size());
+        assertEquals("a", buffer.get(0));
+        assertEquals("c", buffer.get(2));
+    }
+
+    @Test
+    public void testDropsOldestWhenFull() throws Exception {
+        RingBuffer<Integer> buffer = new RingBuffer<>(3);
+        for (int i = 0; i < 3; i++) {
+            buffer.add(i);
+        }
+        for (int i = 3; i < 10; i++) {
+            assertEquals(Integer.valueOf(i - 3), buffer.add(i));
+        }
+
+        assertEquals(3, buffer.size());
+        assertEquals(Integer.valueOf(7), buffer.get(0));
+        assertEquals(Integer.valueOf(8), buffer.get(1));
+        assertEquals(Integer.valueOf(9), buffer.get(2));
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testGetOutsideTheElements() throws Exception {
+        RingBuffer<String> buffer = new RingBuffer<>(3);
+        buffer.add("a");
+        buffer.get(1);
+    }
+
+    @Test
+    public void testClear() throws Exception {
+        RingBuffer<String> buffer = new RingBuffer<>(2);
+        buffer.add("a");
+        buffer.add("b");
+        buffer.add("c");
+        buffer.clear();
+
+        assertEquals(0, buffer.size());
+        buffer.add("d");
+        assertEquals("d", buffer.get(0));
+    }
+}
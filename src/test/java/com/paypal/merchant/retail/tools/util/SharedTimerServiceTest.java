@@ -0,0 +1,70 @@
+package com.paypal.merchant.retail.tools.util;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class SharedTimerServiceTest {
+
+    @Test
+    public void testCancelledTimersAreRemoved() throws Exception {
+        int pendingBefore = SharedTimerService.INSTANCE.getPendingCount();
+
+        List<ScheduledFuture<?>> timers = new ArrayList<>();
+        for (int i = 0; i < 20000; i++) {
+            timers.add(SharedTimerService.INSTANCE.schedule(() -> { }, 1, TimeUnit.HOURS));
+        }
+        assertEquals(pendingBefore + 20000, SharedTimerService.INSTANCE.getPendingCount());
+
+        for (ScheduledFuture<?> timer : timers) {
+            timer.cancel(false);
+        }
+        assertEquals(pendingBefore, SharedTimerService.INSTANCE.getPendingCount());
+    }
+
+    @Test
+    public void testLongTaskDoesNotDelayOtherTimers() throws Exception {
+        CountDownLatch blocker = new CountDownLatch(1);
+        CountDownLatch fired = new CountDownLatch(1);
+
+        SharedTimerService.INSTANCE.schedule(() -> {
+            try {
+                blocker.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }, 0, TimeUnit.MILLISECONDS);
+        SharedTimerService.INSTANCE.schedule(fired::countDown, 5, TimeUnit.MILLISECONDS);
+
+        assertTrue(fired.await(1, TimeUnit.SECONDS));
+        blocker.countDown();
+    }
+
+    @Test
+    public void testRepeatingTaskDoesNotOverlap() throws Exception {
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+
+        ScheduledFuture<?> timer = SharedTimerService.INSTANCE.scheduleAtFixedRate(() -> {
+            maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+            try {
+                Thread.sleep(5);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            running.decrementAndGet();
+        }, 0, 1, TimeUnit.MILLISECONDS);
+
+        Thread.sleep(50);
+        timer.cancel(false);
+        assertEquals(1, maxRunning.get());
+    }
+}
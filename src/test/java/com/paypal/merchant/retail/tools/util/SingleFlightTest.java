@@ -0,0 +1,75 @@
+package com.paypal.merchant.retail.tools.util;
+
+import org.junit.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class SingleFlightTest {
+
+    @Test
+    public void testConcurrentCallsShareOneCall() throws Exception {
+        SingleFlight<String, String> singleFlight = new SingleFlight<>();
+        CompletableFuture<String> backend = new CompletableFuture<>();
+        AtomicInteger calls = new AtomicInteger();
+
+        CompletableFuture<String> first = singleFlight.execute("GetLocation:SanJose", () -> {
+            calls.incrementAndGet();
+            return backend;
+        });
+        CompletableFuture<String> second = singleFlight.execute("GetLocation:SanJose", () -> {
+            calls.incrementAndGet();
+            return backend;
+        });
+        assertEquals(1, singleFlight.getInFlightCount());
+
+        backend.complete("location");
+        assertEquals("location", first.get());
+        assertEquals("location", second.get());
+        assertEquals(1, calls.get());
+        assertEquals(1, singleFlight.getSharedCount());
+        assertEquals(0, singleFlight.getInFlightCount());
+    }
+
+    @Test
+    public void testCompletedCallIsNotReused() throws Exception {
+        SingleFlight<String, Integer> singleFlight = new SingleFlight<>();
+        AtomicInteger calls = new AtomicInteger();
+
+        assertEquals(1, (int) singleFlight.execute("key", () -> CompletableFuture.completedFuture(calls.incrementAndGet())).get());
+        assertEquals(2, (int) singleFlight.execute("key", () -> CompletableFuture.completedFuture(calls.incrementAndGet())).get());
+    }
+
+    @Test
+    public void testDifferentKeysDoNotShare() throws Exception {
+        SingleFlight<String, String> singleFlight = new SingleFlight<>();
+        singleFlight.execute("GetLocation:SanJose", CompletableFuture::new);
+        singleFlight.execute("GetLocation:Austin", CompletableFuture::new);
+        assertEquals(2, singleFlight.getInFlightCount());
+        assertEquals(0, singleFlight.getSharedCount());
+    }
+
+    @Test
+    public void testFailureIsSharedAndCancelIsNot() throws Exception {
+        SingleFlight<String, String> singleFlight = new SingleFlight<>();
+        CompletableFuture<String> backend = new CompletableFuture<>();
+
+        CompletableFuture<String> first = singleFlight.execute("key", () -> backend);
+        CompletableFuture<String> second = singleFlight.execute("key", () -> backend);
+        first.cancel(true);
+        assertTrue(!backend.isDone());
+
+        backend.completeExceptionally(new IllegalStateException("down"));
+        try {
+            second.get();
+            fail("Expected the shared failure");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof IllegalStateException);
+        }
+    }
+}
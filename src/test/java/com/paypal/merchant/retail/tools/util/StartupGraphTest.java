@@ -0,0 +1,95 @@
+package com.paypal.merchant.retail.tools.util;
+
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class StartupGraphTest {
+
+    @Test
+    public void testDependenciesRunFirst() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        List<String> order = new CopyOnWriteArrayList<>();
+        try {
+            new StartupGraph(executor)
+                    .add("properties", () -> order.add("properties"))
+                    .add("sdk", () -> order.add("sdk"), "properties")
+                    .add("location", () -> order.add("location"), "sdk")
+                    .add("stage", () -> order.add("stage"), "location", "properties")
+                    .run(null).get(5, TimeUnit.SECONDS);
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(4, order.size());
+        assertEquals("properties", order.get(0));
+        assertEquals("stage", order.get(3));
+        assertTrue(order.indexOf("sdk") < order.indexOf("location"));
+    }
+
+    @Test
+    public void testIndependentStepsRunInParallel() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        CountDownLatch bothStarted = new CountDownLatch(2);
+        StartupGraph.StartupTask task = () -> {
+            bothStarted.countDown();
+            if (!bothStarted.await(5, TimeUnit.SECONDS)) {
+                throw new IllegalStateException("Steps did not run in parallel");
+            }
+        };
+        AtomicInteger failures = new AtomicInteger();
+        try {
+            new StartupGraph(executor)
+                    .add("location", task)
+                    .add("refund pane", task)
+                    .run((name, elapsedMillis, error, finished, total) -> {
+                        if (error != null) {
+                            failures.incrementAndGet();
+                        }
+                    }).get(10, TimeUnit.SECONDS);
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(0, failures.get());
+    }
+
+    @Test
+    public void testFailedStepDoesNotBlockDependents() throws Exception {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        List<String> finished = new CopyOnWriteArrayList<>();
+        StartupGraph startup = new StartupGraph(executor)
+                .add("location", () -> {
+                    throw new IllegalStateException("service down");
+                })
+                .add("stage", () -> { }, "location");
+        try {
+            startup.run((name, elapsedMillis, error, count, total) ->
+                    finished.add(name + (error != null ? " failed" : "") + " " + count + "/" + total))
+                    .get(5, TimeUnit.SECONDS);
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals("location failed 1/2", finished.get(0));
+        assertEquals("stage 2/2", finished.get(1));
+        assertTrue(startup.getReport().contains("FAILED: service down"));
+    }
+
+    @Test
+    public void testUnknownDependency() throws Exception {
+        try {
+            new StartupGraph(Runnable::run).add("stage", () -> { }, "missing");
+            fail("Expected an unknown dependency to be rejected");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+    }
+}